@@ -0,0 +1,451 @@
+package analysis.experiments;
+
+import calculator.ast.AstNode;
+import calculator.compiler.CompiledExpression;
+import calculator.compiler.ExpressionCompiler;
+import calculator.errors.EvaluationError;
+import datastructures.concrete.dictionaries.ChainedHashDictionary;
+import datastructures.interfaces.IDictionary;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Compiles 'toDouble'-style expressions straight to JVM bytecode.
+ *
+ * Each compiled expression becomes a small class of its own whose 'evaluate' method is the whole
+ * expression as one straight line of arithmetic instructions, so once the JIT compiles it the
+ * expression runs as native code with no calls between nodes. Generating and loading a class
+ * costs far more than building closures, so this is meant for expressions that are evaluated a
+ * great many times, such as long plots.
+ *
+ * Expressions this compiler can't turn into bytecode are handed to ExpressionCompiler instead,
+ * so 'compile' accepts exactly the same expressions (and throws the same errors) as
+ * ExpressionCompiler does.
+ *
+ * The calculator itself doesn't use this compiler: 'plot' and its variants evaluate expressions
+ * with BatchCompiler, which needs no generated classes. It lives here so Experiment12 can
+ * compare the two.
+ */
+public class BytecodeCompiler {
+    // The JIT refuses to compile methods longer than 8000 bytes of bytecode, and an interpreted
+    // 'evaluate' would be slower than closures, so longer expressions use closures instead
+    private static final int MAX_CODE_LENGTH = 8000;
+
+    private static final String CLASS_NAME_PREFIX = "analysis/experiments/GeneratedExpression";
+    private static final String INTERFACE_NAME = "calculator/compiler/CompiledExpression";
+
+    private static int classCount = 0;
+
+    /**
+     * Compiles the given expression, with the same meaning for 'variables' and 'parameters'
+     * as ExpressionCompiler.compile.
+     *
+     * @throws EvaluationError  if the expression contains an undefined variable
+     * @throws EvaluationError  if the expression uses an unknown operation
+     */
+    public static CompiledExpression compile(AstNode expression, IDictionary<String, AstNode> variables,
+                                             String... parameters) {
+        AstNode folded;
+        try {
+            folded = ExpressionCompiler.fold(expression, variables, parameters);
+        } catch (EvaluationError ex) {
+            // Let ExpressionCompiler report the problem
+            return ExpressionCompiler.compile(expression, variables, parameters);
+        }
+
+        MethodWriter method = new MethodWriter(parameters);
+        method.emit(folded);
+        if (method.code.size() > MAX_CODE_LENGTH) {
+            return ExpressionCompiler.compile(expression, variables, parameters);
+        }
+        return load(method);
+    }
+
+    /*
+     * defines the class for the given method and returns a new instance of it
+     */
+    private static CompiledExpression load(MethodWriter method) {
+        String className;
+        synchronized (BytecodeCompiler.class) {
+            className = CLASS_NAME_PREFIX + classCount;
+            classCount++;
+        }
+        byte[] bytes = method.toClassFile(className);
+        // Each class gets a loader of its own, so the class can be unloaded as soon as the
+        // compiled expression is no longer used
+        ExpressionLoader loader = new ExpressionLoader(BytecodeCompiler.class.getClassLoader());
+        try {
+            Class<?> generated = loader.define(className.replace('/', '.'), bytes);
+            return (CompiledExpression) generated.getConstructor().newInstance();
+        } catch (ReflectiveOperationException ex) {
+            throw new IllegalStateException("could not load generated expression", ex);
+        }
+    }
+
+    private static class ExpressionLoader extends ClassLoader {
+        public ExpressionLoader(ClassLoader parent) {
+            super(parent);
+        }
+
+        public Class<?> define(String name, byte[] bytes) {
+            return this.defineClass(name, bytes, 0, bytes.length);
+        }
+    }
+
+    /*
+     * writes the bytecode of 'evaluate' and then the class file around it
+     */
+    private static class MethodWriter {
+        // Instructions used below; see chapter 6 of the Java Virtual Machine Specification
+        private static final int ICONST_0 = 0x03;
+        private static final int DCONST_0 = 0x0e;
+        private static final int DCONST_1 = 0x0f;
+        private static final int BIPUSH = 0x10;
+        private static final int SIPUSH = 0x11;
+        private static final int LDC_W = 0x13;
+        private static final int LDC2_W = 0x14;
+        private static final int ALOAD_0 = 0x2a;
+        private static final int ALOAD_1 = 0x2b;
+        private static final int DALOAD = 0x31;
+        private static final int DADD = 0x63;
+        private static final int DSUB = 0x67;
+        private static final int DMUL = 0x6b;
+        private static final int DDIV = 0x6f;
+        private static final int DNEG = 0x77;
+        private static final int DRETURN = 0xaf;
+        private static final int RETURN = 0xb1;
+        private static final int INVOKESPECIAL = 0xb7;
+        private static final int INVOKESTATIC = 0xb8;
+
+        // Constant pool tags
+        private static final int CONSTANT_UTF8 = 1;
+        private static final int CONSTANT_INTEGER = 3;
+        private static final int CONSTANT_DOUBLE = 6;
+        private static final int CONSTANT_CLASS = 7;
+        private static final int CONSTANT_METHODREF = 10;
+        private static final int CONSTANT_NAME_AND_TYPE = 12;
+
+        private static final int ACC_PUBLIC = 0x0001;
+        private static final int ACC_FINAL = 0x0010;
+        private static final int ACC_SUPER = 0x0020;
+
+        private final String[] parameters;
+        private final ByteArrayOutputStream constants;
+        private final DataOutputStream constantsOut;
+        private final IDictionary<String, Integer> constantIndices;
+        private final ByteArrayOutputStream code;
+        private int constantCount;
+        private int stack;
+        private int maxStack;
+
+        public MethodWriter(String[] parameters) {
+            this.parameters = parameters;
+            this.constants = new ByteArrayOutputStream();
+            this.constantsOut = new DataOutputStream(this.constants);
+            this.constantIndices = new ChainedHashDictionary<>();
+            this.code = new ByteArrayOutputStream();
+            // Constant pool indices start at 1
+            this.constantCount = 1;
+            this.stack = 0;
+            this.maxStack = 0;
+        }
+
+        public static int slotOf(String[] parameters, String name) {
+            for (int i = 0; i < parameters.length; i++) {
+                if (parameters[i].equals(name)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        /*
+         * appends the instructions that leave the value of the given folded expression on
+         * top of the operand stack
+         */
+        public void emit(AstNode node) {
+            if (node.isNumber()) {
+                this.emitConstant(node.getNumericValue());
+                return;
+            } else if (node.isVariable()) {
+                this.code.write(ALOAD_1);
+                this.push(1);
+                this.emitInt(slotOf(this.parameters, node.getName()));
+                this.code.write(DALOAD);
+                this.pop(2);
+                this.push(2);
+                return;
+            }
+
+            this.emit(node.getChild(0));
+            switch (node.getOpcode()) {
+                case SIN:
+                    this.emitMath("sin", "(D)D");
+                    return;
+                case COS:
+                    this.emitMath("cos", "(D)D");
+                    return;
+                case NEGATE:
+                    this.code.write(DNEG);
+                    return;
+                default:
+                    break;
+            }
+
+            this.emit(node.getChild(1));
+            switch (node.getOpcode()) {
+                case ADD:
+                    this.code.write(DADD);
+                    break;
+                case SUBTRACT:
+                    this.code.write(DSUB);
+                    break;
+                case MULTIPLY:
+                    this.code.write(DMUL);
+                    break;
+                case DIVIDE:
+                    this.code.write(DDIV);
+                    break;
+                default: // when opcode is POWER
+                    this.emitMath("pow", "(DD)D");
+                    break;
+            }
+            this.pop(2);
+        }
+
+        private void emitConstant(double value) {
+            long bits = Double.doubleToLongBits(value);
+            if (bits == Double.doubleToLongBits(0.0)) {
+                this.code.write(DCONST_0);
+            } else if (bits == Double.doubleToLongBits(1.0)) {
+                this.code.write(DCONST_1);
+            } else {
+                this.code.write(LDC2_W);
+                this.writeShort(this.code, this.doubleConstant(value));
+            }
+            this.push(2);
+        }
+
+        private void emitInt(int value) {
+            if (value <= 5) {
+                this.code.write(ICONST_0 + value);
+            } else if (value <= Byte.MAX_VALUE) {
+                this.code.write(BIPUSH);
+                this.code.write(value);
+            } else if (value <= Short.MAX_VALUE) {
+                this.code.write(SIPUSH);
+                this.writeShort(this.code, value);
+            } else {
+                this.code.write(LDC_W);
+                this.writeShort(this.code, this.intConstant(value));
+            }
+            this.push(1);
+        }
+
+        // Calls a static method of java.lang.Math that returns a double; this accounts for one
+        // double argument, and the caller for any others
+        private void emitMath(String name, String descriptor) {
+            this.code.write(INVOKESTATIC);
+            this.writeShort(this.code, this.methodConstant("java/lang/Math", name, descriptor));
+            this.pop(2);
+            this.push(2);
+        }
+
+        private void push(int slots) {
+            this.stack += slots;
+            this.maxStack = Math.max(this.maxStack, this.stack);
+        }
+
+        private void pop(int slots) {
+            this.stack -= slots;
+        }
+
+        /*
+         * returns the complete class file of a public final class with the given internal name
+         * that implements CompiledExpression using the instructions emitted so far
+         */
+        public byte[] toClassFile(String className) {
+            int thisClass = this.classConstant(className);
+            int superClass = this.classConstant("java/lang/Object");
+            int interfaceClass = this.classConstant(INTERFACE_NAME);
+            int objectInit = this.methodConstant("java/lang/Object", "<init>", "()V");
+            int initName = this.utf8Constant("<init>");
+            int initDescriptor = this.utf8Constant("()V");
+            int evaluateName = this.utf8Constant("evaluate");
+            int evaluateDescriptor = this.utf8Constant("([D)D");
+            int codeName = this.utf8Constant("Code");
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            try {
+                out.writeInt(0xCAFEBABE);
+                // Version 52.0 (Java 8). The code never branches, so it needs no stack map frames
+                out.writeShort(0);
+                out.writeShort(52);
+                out.writeShort(this.constantCount);
+                this.constantsOut.flush();
+                this.constants.writeTo(out);
+
+                out.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+                out.writeShort(thisClass);
+                out.writeShort(superClass);
+                out.writeShort(1);
+                out.writeShort(interfaceClass);
+                // No fields
+                out.writeShort(0);
+
+                out.writeShort(2);
+                byte[] initCode = {
+                    (byte) ALOAD_0,
+                    (byte) INVOKESPECIAL, (byte) (objectInit >> 8), (byte) objectInit,
+                    (byte) RETURN,
+                };
+                writeMethod(out, initName, initDescriptor, codeName, 1, 1, initCode);
+
+                this.code.write(DRETURN);
+                writeMethod(out, evaluateName, evaluateDescriptor, codeName, this.maxStack, 2,
+                        this.code.toByteArray());
+
+                // No class attributes
+                out.writeShort(0);
+                out.flush();
+            } catch (IOException ex) {
+                // Writing to a byte array never fails
+                throw new IllegalStateException(ex);
+            }
+            return bytes.toByteArray();
+        }
+
+        private static void writeMethod(DataOutputStream out, int name, int descriptor, int codeName,
+                                        int maxStack, int maxLocals, byte[] code) throws IOException {
+            out.writeShort(ACC_PUBLIC);
+            out.writeShort(name);
+            out.writeShort(descriptor);
+            out.writeShort(1);
+            out.writeShort(codeName);
+            // The attribute length counts everything after it: the stack and local sizes (4),
+            // the code length (4), the code, and the empty exception table and attribute list (4)
+            out.writeInt(12 + code.length);
+            out.writeShort(maxStack);
+            out.writeShort(maxLocals);
+            out.writeInt(code.length);
+            out.write(code);
+            out.writeShort(0);
+            out.writeShort(0);
+        }
+
+        private void writeShort(ByteArrayOutputStream out, int value) {
+            out.write(value >> 8);
+            out.write(value);
+        }
+
+        /*
+         * the methods below add an entry to the constant pool the first time they see it and
+         * return its index
+         */
+
+        private int utf8Constant(String value) {
+            Integer index = this.constantIndices.getOrNull("utf8 " + value);
+            if (index == null) {
+                index = this.newConstant("utf8 " + value, 1);
+                this.writeConstant(CONSTANT_UTF8);
+                this.writeConstantUtf8(value);
+            }
+            return index;
+        }
+
+        private int classConstant(String name) {
+            Integer index = this.constantIndices.getOrNull("class " + name);
+            if (index == null) {
+                int nameIndex = this.utf8Constant(name);
+                index = this.newConstant("class " + name, 1);
+                this.writeConstant(CONSTANT_CLASS);
+                this.writeConstantShort(nameIndex);
+            }
+            return index;
+        }
+
+        private int methodConstant(String owner, String name, String descriptor) {
+            String key = "method " + owner + "." + name + descriptor;
+            Integer index = this.constantIndices.getOrNull(key);
+            if (index == null) {
+                int ownerIndex = this.classConstant(owner);
+                int nameIndex = this.utf8Constant(name);
+                int descriptorIndex = this.utf8Constant(descriptor);
+                int nameAndType = this.newConstant("name and type " + name + descriptor, 1);
+                this.writeConstant(CONSTANT_NAME_AND_TYPE);
+                this.writeConstantShort(nameIndex);
+                this.writeConstantShort(descriptorIndex);
+                index = this.newConstant(key, 1);
+                this.writeConstant(CONSTANT_METHODREF);
+                this.writeConstantShort(ownerIndex);
+                this.writeConstantShort(nameAndType);
+            }
+            return index;
+        }
+
+        private int doubleConstant(double value) {
+            String key = "double " + Double.doubleToLongBits(value);
+            Integer index = this.constantIndices.getOrNull(key);
+            if (index == null) {
+                // Doubles take up two entries of the constant pool
+                index = this.newConstant(key, 2);
+                this.writeConstant(CONSTANT_DOUBLE);
+                try {
+                    this.constantsOut.writeDouble(value);
+                } catch (IOException ex) {
+                    throw new IllegalStateException(ex);
+                }
+            }
+            return index;
+        }
+
+        private int intConstant(int value) {
+            String key = "int " + value;
+            Integer index = this.constantIndices.getOrNull(key);
+            if (index == null) {
+                index = this.newConstant(key, 1);
+                this.writeConstant(CONSTANT_INTEGER);
+                try {
+                    this.constantsOut.writeInt(value);
+                } catch (IOException ex) {
+                    throw new IllegalStateException(ex);
+                }
+            }
+            return index;
+        }
+
+        private int newConstant(String key, int size) {
+            int index = this.constantCount;
+            this.constantIndices.put(key, index);
+            this.constantCount += size;
+            return index;
+        }
+
+        private void writeConstant(int tag) {
+            try {
+                this.constantsOut.writeByte(tag);
+            } catch (IOException ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+
+        private void writeConstantShort(int value) {
+            try {
+                this.constantsOut.writeShort(value);
+            } catch (IOException ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+
+        private void writeConstantUtf8(String value) {
+            try {
+                this.constantsOut.writeUTF(value);
+            } catch (IOException ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+    }
+}
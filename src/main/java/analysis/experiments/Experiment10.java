@@ -0,0 +1,33 @@
+package analysis.experiments;
+
+import analysis.utils.AnalysisUtils;
+import analysis.utils.CsvWriter;
+import calculator.ast.AstNode;
+import datastructures.interfaces.IList;
+
+public class Experiment10 {
+    // Measures how much memory an expression tree uses, for trees of up to 100k AstNodes.
+    // Memory usage is deterministic, so there's no need to conduct trials
+    public static final long MAX_EXPRESSION_SIZE = 100001;
+    public static final long STEP = 10000;
+
+    public static void main(String[] args) {
+        IList<Long> expressionSizes = AnalysisUtils.makeDoubleLinkedList(1L, MAX_EXPRESSION_SIZE, STEP);
+
+        System.out.println("Starting experiment 10");
+        IList<Long> testResults = AnalysisUtils.runSingleTrial(expressionSizes, Experiment10::test);
+
+        System.out.println("Saving results to file");
+        CsvWriter writer = new CsvWriter();
+        writer.addColumn("InputExpressionSize", expressionSizes);
+        writer.addColumn("MemoryBytes", testResults);
+        writer.writeToFile("experimentdata/experiment10.csv");
+
+        System.out.println("All done!");
+    }
+
+    public static long test(long size) {
+        AstNode expression = AnalysisUtils.makeExpression(size);
+        return AnalysisUtils.getApproximateMemoryUsed(expression);
+    }
+}
@@ -0,0 +1,53 @@
+package analysis.experiments;
+
+import analysis.utils.AnalysisUtils;
+import analysis.utils.CsvWriter;
+import calculator.ast.AstNode;
+import calculator.ast.ExpressionManipulators;
+import calculator.interpreter.Environment;
+import datastructures.concrete.DoubleLinkedList;
+import datastructures.concrete.dictionaries.AdaptiveDictionary;
+import datastructures.interfaces.IDictionary;
+import datastructures.interfaces.IList;
+
+public class Experiment11 {
+    // Times 'toDouble' on expressions of up to 100k nodes, which is dominated by how quickly
+    // each node's operation can be dispatched.
+    public static final int NUM_TRIALS = 5;
+    public static final long MAX_EXPRESSION_SIZE = 100001;
+    public static final long STEP = 10000;
+    public static final int NUM_EVALUATIONS = 100;
+
+    public static void main(String[] args) {
+        IList<Long> expressionSizes = AnalysisUtils.makeDoubleLinkedList(1L, MAX_EXPRESSION_SIZE, STEP);
+
+        System.out.println("Starting experiment 11");
+        IList<Long> testResults = AnalysisUtils.runTrials(expressionSizes, Experiment11::test, NUM_TRIALS);
+
+        System.out.println("Saving results to file");
+        CsvWriter writer = new CsvWriter();
+        writer.addColumn("InputExpressionSize", expressionSizes);
+        writer.addColumn("ToDoubleMillis", testResults);
+        writer.writeToFile("experimentdata/experiment11.csv");
+
+        System.out.println("All done!");
+    }
+
+    public static long test(long size) {
+        // We don't include the cost of constructing the expression
+        IDictionary<String, AstNode> variables = new AdaptiveDictionary<>();
+        variables.put("x", new AstNode(0.5));
+        Environment env = new Environment(variables, null, null, null, null);
+        IList<AstNode> children = new DoubleLinkedList<>();
+        children.add(AnalysisUtils.makeExpression(size));
+        AstNode node = new AstNode("toDouble", children);
+
+        long start = System.currentTimeMillis();
+        double temp = 0.0;
+        for (int i = 0; i < NUM_EVALUATIONS; i++) {
+            temp += ExpressionManipulators.handleToDouble(env, node).getNumericValue();
+        }
+        // Returns time elapsed
+        return System.currentTimeMillis() - start;
+    }
+}
@@ -0,0 +1,126 @@
+package analysis.experiments;
+
+import analysis.utils.AnalysisUtils;
+import analysis.utils.CsvWriter;
+import calculator.ast.AstNode;
+import calculator.ast.ExpressionManipulators;
+import calculator.compiler.BatchCompiler;
+import calculator.compiler.BatchExpression;
+import calculator.compiler.CompiledExpression;
+import calculator.compiler.ExpressionCompiler;
+import calculator.interpreter.Environment;
+import datastructures.concrete.DoubleLinkedList;
+import datastructures.concrete.dictionaries.AdaptiveDictionary;
+import datastructures.interfaces.IDictionary;
+import datastructures.interfaces.IList;
+
+public class Experiment12 {
+    // Compares ways of evaluating one expression at many values of 'x', the way 'plot' does.
+    // Test 1 is how 'plot' used to work: bind 'x', then run 'toDouble'. Test 2 compiles the
+    // expression into closures once and then evaluates those. Test 3 compiles it to bytecode.
+    // Test 4 compiles it for BatchExpression and evaluates it a column of samples at a time.
+    public static final int NUM_TRIALS = 5;
+    public static final long MAX_EXPRESSION_SIZE = 1001;
+    public static final long STEP = 50;
+    public static final int NUM_SAMPLES = 10000;
+
+    public static void main(String[] args) {
+        IList<Long> expressionSizes = AnalysisUtils.makeDoubleLinkedList(1L, MAX_EXPRESSION_SIZE, STEP);
+
+        System.out.println("Starting experiment 12, test 1");
+        IList<Long> test1Results = AnalysisUtils.runTrials(expressionSizes, Experiment12::test1, NUM_TRIALS);
+
+        System.out.println("Starting experiment 12, test 2");
+        IList<Long> test2Results = AnalysisUtils.runTrials(expressionSizes, Experiment12::test2, NUM_TRIALS);
+
+        System.out.println("Starting experiment 12, test 3");
+        IList<Long> test3Results = AnalysisUtils.runTrials(expressionSizes, Experiment12::test3, NUM_TRIALS);
+
+        System.out.println("Starting experiment 12, test 4");
+        IList<Long> test4Results = AnalysisUtils.runTrials(expressionSizes, Experiment12::test4, NUM_TRIALS);
+
+        System.out.println("Saving experiment 12 results to file");
+        CsvWriter writer = new CsvWriter();
+        writer.addColumn("InputExpressionSize", expressionSizes);
+        writer.addColumn("InterpretedMicros", test1Results);
+        writer.addColumn("ClosureMicros", test2Results);
+        writer.addColumn("BytecodeMicros", test3Results);
+        writer.addColumn("BatchMicros", test4Results);
+        writer.writeToFile("experimentdata/experiment12.csv");
+
+        System.out.println("All done!");
+    }
+
+    public static long test1(long size) {
+        // We don't include the cost of constructing the expression
+        IDictionary<String, AstNode> variables = new AdaptiveDictionary<>();
+        Environment env = new Environment(variables, null, null, null, null);
+        IList<AstNode> children = new DoubleLinkedList<>();
+        children.add(AnalysisUtils.makeExpression(size));
+        AstNode node = new AstNode("toDouble", children);
+
+        long start = System.nanoTime();
+        double temp = 0.0;
+        for (int i = 0; i < NUM_SAMPLES; i++) {
+            variables.put("x", new AstNode(sampleAt(i)));
+            temp += ExpressionManipulators.handleToDouble(env, node).getNumericValue();
+            variables.remove("x");
+        }
+        return (System.nanoTime() - start) / 1000;
+    }
+
+    public static long test2(long size) {
+        AstNode expression = AnalysisUtils.makeExpression(size);
+
+        // Compiling is part of the cost: 'plot' compiles once per call
+        long start = System.nanoTime();
+        CompiledExpression compiled = ExpressionCompiler.compile(expression, new AdaptiveDictionary<>(), "x");
+        double[] frame = new double[1];
+        double temp = 0.0;
+        for (int i = 0; i < NUM_SAMPLES; i++) {
+            frame[0] = sampleAt(i);
+            temp += compiled.evaluate(frame);
+        }
+        return (System.nanoTime() - start) / 1000;
+    }
+
+    public static long test3(long size) {
+        AstNode expression = AnalysisUtils.makeExpression(size);
+
+        // Generating and loading the class is part of the cost too
+        long start = System.nanoTime();
+        CompiledExpression compiled = BytecodeCompiler.compile(expression, new AdaptiveDictionary<>(), "x");
+        double[] frame = new double[1];
+        double temp = 0.0;
+        for (int i = 0; i < NUM_SAMPLES; i++) {
+            frame[0] = sampleAt(i);
+            temp += compiled.evaluate(frame);
+        }
+        return (System.nanoTime() - start) / 1000;
+    }
+
+    public static long test4(long size) {
+        AstNode expression = AnalysisUtils.makeExpression(size);
+
+        long start = System.nanoTime();
+        BatchExpression compiled = BatchCompiler.compile(expression, new AdaptiveDictionary<>(), "x");
+        double[] xs = new double[compiled.getCapacity()];
+        double[] ys = new double[compiled.getCapacity()];
+        double temp = 0.0;
+        for (int i = 0; i < NUM_SAMPLES; i += xs.length) {
+            int count = Math.min(xs.length, NUM_SAMPLES - i);
+            for (int j = 0; j < count; j++) {
+                xs[j] = sampleAt(i + j);
+            }
+            compiled.evaluate(xs, ys, count);
+            for (int j = 0; j < count; j++) {
+                temp += ys[j];
+            }
+        }
+        return (System.nanoTime() - start) / 1000;
+    }
+
+    private static double sampleAt(int i) {
+        return -1.0 + 2.0 * i / NUM_SAMPLES;
+    }
+}
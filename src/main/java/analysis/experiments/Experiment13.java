@@ -0,0 +1,53 @@
+package analysis.experiments;
+
+import analysis.utils.AnalysisUtils;
+import analysis.utils.CsvWriter;
+import calculator.interpreter.Calculator;
+import datastructures.interfaces.IList;
+
+public class Experiment13 {
+    // Compares running a loop with the interpreter against compiling it with 'run'. Both tests
+    // run a 'repeat' loop that goes around 'size' times, and a 'while' loop that does the same.
+    public static final int NUM_TRIALS = 5;
+    public static final long MAX_LOOP_COUNT = 20001;
+    public static final long STEP = 1000;
+
+    public static void main(String[] args) {
+        IList<Long> loopCounts = AnalysisUtils.makeDoubleLinkedList(1L, MAX_LOOP_COUNT, STEP);
+
+        System.out.println("Starting experiment 13, test 1");
+        IList<Long> test1Results = AnalysisUtils.runTrials(loopCounts, Experiment13::test1, NUM_TRIALS);
+
+        System.out.println("Starting experiment 13, test 2");
+        IList<Long> test2Results = AnalysisUtils.runTrials(loopCounts, Experiment13::test2, NUM_TRIALS);
+
+        System.out.println("Saving experiment 13 results to file");
+        CsvWriter writer = new CsvWriter();
+        writer.addColumn("InputLoopCount", loopCounts);
+        writer.addColumn("InterpretedMicros", test1Results);
+        writer.addColumn("VirtualMachineMicros", test2Results);
+        writer.writeToFile("experimentdata/experiment13.csv");
+
+        System.out.println("All done!");
+    }
+
+    public static long test1(long size) {
+        Calculator calc = new Calculator();
+        calc.evaluate("x := 0");
+
+        long start = System.nanoTime();
+        calc.evaluate("repeat(" + size + ", x * 3 - x * 2 + 1)");
+        calc.evaluate("while(sm(x, " + (2 * size) + "), x + 1, " + (2 * size) + ")");
+        return (System.nanoTime() - start) / 1000;
+    }
+
+    public static long test2(long size) {
+        Calculator calc = new Calculator();
+        calc.evaluate("x := 0");
+
+        long start = System.nanoTime();
+        calc.evaluate("run(repeat(" + size + ", x * 3 - x * 2 + 1))");
+        calc.evaluate("run(while(sm(x, " + (2 * size) + "), x + 1, " + (2 * size) + "))");
+        return (System.nanoTime() - start) / 1000;
+    }
+}
@@ -0,0 +1,140 @@
+package analysis.experiments;
+
+import analysis.utils.AnalysisUtils;
+import analysis.utils.CsvWriter;
+import calculator.ast.AstNode;
+import calculator.compiler.BatchCompiler;
+import calculator.compiler.BatchExpression;
+import calculator.compiler.CompiledExpression;
+import calculator.compiler.ExpressionCompiler;
+import calculator.compiler.ExpressionDag;
+import calculator.parser.Parser;
+import datastructures.concrete.dictionaries.AdaptiveDictionary;
+import datastructures.interfaces.IDictionary;
+import datastructures.interfaces.IList;
+
+public class Experiment14 {
+    // Measures common subexpression elimination on an expression made of 'size' terms that all
+    // repeat the same subexpressions, like "1 * (sin(x) ^ 2 + sin(x) * cos(x)) + 2 * (...)".
+    // Tests 1 and 2 count the nodes of the tree and the operations left after CSE. Test 3
+    // evaluates the tree as closures, which compute every copy of a subexpression; test 4
+    // evaluates the ExpressionDag, and test 5 the BatchExpression 'plot' uses.
+    public static final int NUM_TRIALS = 5;
+    public static final long MAX_NUM_TERMS = 201;
+    public static final long STEP = 10;
+    public static final int NUM_SAMPLES = 10000;
+
+    public static void main(String[] args) {
+        IList<Long> numTerms = AnalysisUtils.makeDoubleLinkedList(1L, MAX_NUM_TERMS, STEP);
+
+        System.out.println("Starting experiment 14, test 1");
+        IList<Long> test1Results = AnalysisUtils.runTrials(numTerms, Experiment14::test1, 1);
+
+        System.out.println("Starting experiment 14, test 2");
+        IList<Long> test2Results = AnalysisUtils.runTrials(numTerms, Experiment14::test2, 1);
+
+        System.out.println("Starting experiment 14, test 3");
+        IList<Long> test3Results = AnalysisUtils.runTrials(numTerms, Experiment14::test3, NUM_TRIALS);
+
+        System.out.println("Starting experiment 14, test 4");
+        IList<Long> test4Results = AnalysisUtils.runTrials(numTerms, Experiment14::test4, NUM_TRIALS);
+
+        System.out.println("Starting experiment 14, test 5");
+        IList<Long> test5Results = AnalysisUtils.runTrials(numTerms, Experiment14::test5, NUM_TRIALS);
+
+        System.out.println("Saving experiment 14 results to file");
+        CsvWriter writer = new CsvWriter();
+        writer.addColumn("InputNumTerms", numTerms);
+        writer.addColumn("TreeNodes", test1Results);
+        writer.addColumn("DagOperations", test2Results);
+        writer.addColumn("ClosureMicros", test3Results);
+        writer.addColumn("DagMicros", test4Results);
+        writer.addColumn("BatchMicros", test5Results);
+        writer.writeToFile("experimentdata/experiment14.csv");
+
+        System.out.println("All done!");
+    }
+
+    public static long test1(long size) {
+        return ExpressionDag.build(makeExpression(size), makeVariables(), "x").getTreeSize();
+    }
+
+    public static long test2(long size) {
+        return ExpressionDag.build(makeExpression(size), makeVariables(), "x").getNumOperations();
+    }
+
+    public static long test3(long size) {
+        AstNode expression = makeExpression(size);
+        IDictionary<String, AstNode> variables = makeVariables();
+
+        long start = System.nanoTime();
+        CompiledExpression compiled = ExpressionCompiler.compile(expression, variables, "x");
+        return timeEvaluations(compiled, start);
+    }
+
+    public static long test4(long size) {
+        AstNode expression = makeExpression(size);
+        IDictionary<String, AstNode> variables = makeVariables();
+
+        long start = System.nanoTime();
+        CompiledExpression compiled = ExpressionDag.build(expression, variables, "x");
+        return timeEvaluations(compiled, start);
+    }
+
+    public static long test5(long size) {
+        AstNode expression = makeExpression(size);
+        IDictionary<String, AstNode> variables = makeVariables();
+
+        long start = System.nanoTime();
+        BatchExpression compiled = BatchCompiler.compile(expression, variables, "x");
+        double[] xs = new double[compiled.getCapacity()];
+        double[] ys = new double[compiled.getCapacity()];
+        double temp = 0.0;
+        for (int i = 0; i < NUM_SAMPLES; i += xs.length) {
+            int count = Math.min(xs.length, NUM_SAMPLES - i);
+            for (int j = 0; j < count; j++) {
+                xs[j] = sampleAt(i + j);
+            }
+            compiled.evaluate(xs, ys, count);
+            for (int j = 0; j < count; j++) {
+                temp += ys[j];
+            }
+        }
+        return (System.nanoTime() - start) / 1000;
+    }
+
+    private static long timeEvaluations(CompiledExpression compiled, long start) {
+        double[] frame = new double[1];
+        double temp = 0.0;
+        for (int i = 0; i < NUM_SAMPLES; i++) {
+            frame[0] = sampleAt(i);
+            temp += compiled.evaluate(frame);
+        }
+        return (System.nanoTime() - start) / 1000;
+    }
+
+    // The terms read 'e' through a variable, the way a script would define it once and use it
+    // many times
+    private static IDictionary<String, AstNode> makeVariables() {
+        IDictionary<String, AstNode> variables = new AdaptiveDictionary<>();
+        variables.put("e", parse("sin(x) ^ 2 + sin(x) * cos(x)"));
+        return variables;
+    }
+
+    private static AstNode makeExpression(long numTerms) {
+        String expression = "1 * e";
+        for (long i = 2; i <= numTerms; i++) {
+            expression += " + " + i + " * e";
+        }
+        return parse(expression);
+    }
+
+    private static AstNode parse(String input) {
+        // The parser wraps every input in a 'block'
+        return new Parser().parse(input + "\n").getChild(0);
+    }
+
+    private static double sampleAt(int i) {
+        return -1.0 + 2.0 * i / NUM_SAMPLES;
+    }
+}
@@ -0,0 +1,138 @@
+package analysis.experiments;
+
+import analysis.utils.AnalysisUtils;
+import analysis.utils.CsvWriter;
+import calculator.ast.AstNode;
+import calculator.ast.ExpressionManipulators;
+import calculator.interpreter.Calculator;
+import calculator.interpreter.ResultCache;
+import calculator.interpreter.VariableStore;
+import calculator.parser.Parser;
+import datastructures.concrete.DoubleLinkedList;
+import datastructures.interfaces.IList;
+
+public class Experiment15 {
+    // Measures whether 'toDouble' gains from the ResultCache on an expression of 'size' terms like
+    // "sin(x * 1) ^ 2 / (c + 1) + sin(x * 2) ^ 2 / (c + 2) + ...", evaluated NUM_CALLS times while
+    // the variables stay the same. Test 1 evaluates the tree directly, without the cache. Test 2
+    // asks the cache about the same tree object every time, as the Calculator does when an input
+    // is entered again. Test 3 asks about a new but equal tree every time, which the cache has to
+    // intern before it finds the result: the worst case for a hit. Test 4 runs the whole input
+    // through Calculator.evaluate, cache included.
+    public static final int NUM_TRIALS = 5;
+    public static final long MAX_NUM_TERMS = 101;
+    public static final long STEP = 10;
+    public static final int NUM_CALLS = 1000;
+
+    public static void main(String[] args) {
+        IList<Long> numTerms = AnalysisUtils.makeDoubleLinkedList(1L, MAX_NUM_TERMS, STEP);
+
+        System.out.println("Starting experiment 15, test 1");
+        IList<Long> test1Results = AnalysisUtils.runTrials(numTerms, Experiment15::test1, NUM_TRIALS);
+
+        System.out.println("Starting experiment 15, test 2");
+        IList<Long> test2Results = AnalysisUtils.runTrials(numTerms, Experiment15::test2, NUM_TRIALS);
+
+        System.out.println("Starting experiment 15, test 3");
+        IList<Long> test3Results = AnalysisUtils.runTrials(numTerms, Experiment15::test3, NUM_TRIALS);
+
+        System.out.println("Starting experiment 15, test 4");
+        IList<Long> test4Results = AnalysisUtils.runTrials(numTerms, Experiment15::test4, NUM_TRIALS);
+
+        System.out.println("Saving experiment 15 results to file");
+        CsvWriter writer = new CsvWriter();
+        writer.addColumn("InputNumTerms", numTerms);
+        writer.addColumn("DirectMicros", test1Results);
+        writer.addColumn("SameTreeMicros", test2Results);
+        writer.addColumn("EqualTreeMicros", test3Results);
+        writer.addColumn("CalculatorMicros", test4Results);
+        writer.writeToFile("experimentdata/experiment15.csv");
+
+        System.out.println("All done!");
+    }
+
+    public static long test1(long size) {
+        VariableStore variables = makeVariables();
+        AstNode expression = parse(makeExpression(size));
+
+        long start = System.nanoTime();
+        double temp = 0.0;
+        for (int i = 0; i < NUM_CALLS; i++) {
+            temp += ExpressionManipulators.toDouble(variables, expression);
+        }
+        return (System.nanoTime() - start) / 1000;
+    }
+
+    public static long test2(long size) {
+        ResultCache cache = makeVariables().getResultCache();
+        AstNode expression = parse(makeExpression(size));
+
+        long start = System.nanoTime();
+        double temp = 0.0;
+        for (int i = 0; i < NUM_CALLS; i++) {
+            temp += cache.toDouble(expression);
+        }
+        return (System.nanoTime() - start) / 1000;
+    }
+
+    public static long test3(long size) {
+        ResultCache cache = makeVariables().getResultCache();
+        AstNode expression = parse(makeExpression(size));
+
+        // Only the calls are timed: the copies are built just before them, the way the
+        // interpreter builds the tree it hands to 'toDouble'
+        long time = 0;
+        double temp = 0.0;
+        for (int i = 0; i < NUM_CALLS; i++) {
+            AstNode copy = copy(expression);
+            long start = System.nanoTime();
+            temp += cache.toDouble(copy);
+            time += System.nanoTime() - start;
+        }
+        return time / 1000;
+    }
+
+    public static long test4(long size) {
+        Calculator calculator = new Calculator();
+        calculator.evaluate("x := 0.3");
+        calculator.evaluate("c := 4");
+        String input = "toDouble(" + makeExpression(size) + ")";
+
+        long start = System.nanoTime();
+        for (int i = 0; i < NUM_CALLS; i++) {
+            calculator.evaluate(input);
+        }
+        return (System.nanoTime() - start) / 1000;
+    }
+
+    private static VariableStore makeVariables() {
+        VariableStore variables = new VariableStore();
+        variables.put("x", new AstNode(0.3));
+        variables.put("c", new AstNode(4));
+        return variables;
+    }
+
+    private static AstNode copy(AstNode node) {
+        if (!node.isOperation()) {
+            return node.isNumber() ? new AstNode(node.getNumericValue()) : new AstNode(node.getName());
+        }
+        IList<AstNode> children = new DoubleLinkedList<>();
+        for (AstNode child : node.getChildren()) {
+            children.add(copy(child));
+        }
+        return new AstNode(node.getName(), children);
+    }
+
+    private static String makeExpression(long numTerms) {
+        String expression = "0";
+        for (long i = 1; i <= numTerms; i++) {
+            expression += " + sin(x * " + i + ") ^ 2 / (c + " + i + ")";
+        }
+        return expression;
+    }
+
+    private static AstNode parse(String input) {
+        // The parser wraps every input in a 'block'
+        return new Parser().parse(input + "\n").getChild(0);
+    }
+}
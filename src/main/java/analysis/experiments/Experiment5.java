@@ -0,0 +1,70 @@
+package analysis.experiments;
+
+import analysis.utils.AnalysisUtils;
+import analysis.utils.CsvWriter;
+import datastructures.concrete.dictionaries.ArrayDictionary;
+import datastructures.interfaces.IDictionary;
+import datastructures.interfaces.IList;
+
+public class Experiment5 {
+    // Compares how the different ArrayDictionary orderings cope with skewed lookups:
+    // a few keys are looked up very often while most keys are rarely touched.
+    public static final int NUM_TRIALS = 5;
+    public static final long MAX_DICTIONARY_SIZE = 5000;
+    public static final long STEP = 100;
+    public static final int NUM_LOOKUPS = 100000;
+    public static final double ZIPF_EXPONENT = 1.0;
+    public static final long SEED = 373L;
+
+    public static void main(String[] args) {
+        IList<Long> dictionarySizes = AnalysisUtils.makeDoubleLinkedList(0L, MAX_DICTIONARY_SIZE, STEP);
+
+        System.out.println("Starting experiment 5, test 1");
+        IList<Long> test1Results = AnalysisUtils.runTrials(dictionarySizes, Experiment5::test1, NUM_TRIALS);
+
+        System.out.println("Starting experiment 5, test 2");
+        IList<Long> test2Results = AnalysisUtils.runTrials(dictionarySizes, Experiment5::test2, NUM_TRIALS);
+
+        System.out.println("Starting experiment 5, test 3");
+        IList<Long> test3Results = AnalysisUtils.runTrials(dictionarySizes, Experiment5::test3, NUM_TRIALS);
+
+        System.out.println("Saving experiment 5 results to file");
+        CsvWriter writer = new CsvWriter();
+        writer.addColumn("InputDictionarySize", dictionarySizes);
+        writer.addColumn("Static", test1Results);
+        writer.addColumn("MoveToFront", test2Results);
+        writer.addColumn("Transpose", test3Results);
+        writer.writeToFile("experimentdata/experiment5.csv");
+
+        System.out.println("All done!");
+    }
+
+    public static long test1(long dictionarySize) {
+        return runLookups(dictionarySize, ArrayDictionary.Ordering.STATIC);
+    }
+
+    public static long test2(long dictionarySize) {
+        return runLookups(dictionarySize, ArrayDictionary.Ordering.MOVE_TO_FRONT);
+    }
+
+    public static long test3(long dictionarySize) {
+        return runLookups(dictionarySize, ArrayDictionary.Ordering.TRANSPOSE);
+    }
+
+    private static long runLookups(long dictionarySize, ArrayDictionary.Ordering ordering) {
+        // We don't include the cost of constructing the dictionary or picking the keys
+        IDictionary<Long, Long> dictionary = AnalysisUtils.makeArrayDictionary(dictionarySize, ordering);
+        long[] keys = AnalysisUtils.makeZipfKeys(dictionarySize, NUM_LOOKUPS, ZIPF_EXPONENT, SEED);
+        if (dictionarySize == 0) {
+            return 0L;
+        }
+
+        long start = System.currentTimeMillis();
+        long temp = 0L;
+        for (long key : keys) {
+            temp += dictionary.get(key);
+        }
+        // Returns time elapsed
+        return System.currentTimeMillis() - start;
+    }
+}
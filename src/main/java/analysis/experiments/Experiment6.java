@@ -0,0 +1,79 @@
+package analysis.experiments;
+
+import analysis.utils.AnalysisUtils;
+import analysis.utils.CsvWriter;
+import datastructures.concrete.dictionaries.AdaptiveDictionary;
+import datastructures.concrete.dictionaries.ArrayDictionary;
+import datastructures.interfaces.IDictionary;
+import datastructures.interfaces.IList;
+
+import java.util.Random;
+
+public class Experiment6 {
+    // Finds the crossover point where hashing starts to beat scanning an array,
+    // which is where AdaptiveDictionary's promote threshold should sit.
+    public static final int NUM_TRIALS = 5;
+    public static final long MAX_DICTIONARY_SIZE = 200;
+    public static final long STEP = 4;
+    public static final int NUM_LOOKUPS = 1000000;
+    public static final long SEED = 373L;
+
+    public static void main(String[] args) {
+        IList<Long> dictionarySizes = AnalysisUtils.makeDoubleLinkedList(0L, MAX_DICTIONARY_SIZE, STEP);
+
+        System.out.println("Starting experiment 6, test 1");
+        IList<Long> test1Results = AnalysisUtils.runTrials(dictionarySizes, Experiment6::test1, NUM_TRIALS);
+
+        System.out.println("Starting experiment 6, test 2");
+        IList<Long> test2Results = AnalysisUtils.runTrials(dictionarySizes, Experiment6::test2, NUM_TRIALS);
+
+        System.out.println("Starting experiment 6, test 3");
+        IList<Long> test3Results = AnalysisUtils.runTrials(dictionarySizes, Experiment6::test3, NUM_TRIALS);
+
+        System.out.println("Saving experiment 6 results to file");
+        CsvWriter writer = new CsvWriter();
+        writer.addColumn("InputDictionarySize", dictionarySizes);
+        writer.addColumn("ArrayMicros", test1Results);
+        writer.addColumn("HashedMicros", test2Results);
+        writer.addColumn("AdaptiveMicros", test3Results);
+        writer.writeToFile("experimentdata/experiment6.csv");
+
+        System.out.println("All done!");
+    }
+
+    public static long test1(long dictionarySize) {
+        return runLookups(new ArrayDictionary<>(), dictionarySize);
+    }
+
+    public static long test2(long dictionarySize) {
+        // A promote threshold of 0 means the dictionary is hashed from the start
+        return runLookups(new AdaptiveDictionary<>(0, 0), dictionarySize);
+    }
+
+    public static long test3(long dictionarySize) {
+        return runLookups(new AdaptiveDictionary<>(), dictionarySize);
+    }
+
+    private static long runLookups(IDictionary<Long, Long> dictionary, long dictionarySize) {
+        // We don't include the cost of constructing the dictionary or picking the keys
+        for (long i = 0; i < dictionarySize; i++) {
+            dictionary.put(i, -1L);
+        }
+        if (dictionarySize == 0) {
+            return 0L;
+        }
+        Random rand = new Random(SEED);
+        Long[] keys = new Long[NUM_LOOKUPS];
+        for (int i = 0; i < NUM_LOOKUPS; i++) {
+            keys[i] = (long) rand.nextInt((int) dictionarySize);
+        }
+
+        long start = System.nanoTime();
+        long temp = 0L;
+        for (Long key : keys) {
+            temp += dictionary.get(key);
+        }
+        // Returns time elapsed, in microseconds (a single lookup is too fast to time in milliseconds)
+        return (System.nanoTime() - start) / 1000;
+    }
+}
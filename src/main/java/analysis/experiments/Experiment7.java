@@ -0,0 +1,77 @@
+package analysis.experiments;
+
+import analysis.utils.AnalysisUtils;
+import analysis.utils.CsvWriter;
+import datastructures.concrete.DoubleLinkedList;
+import datastructures.concrete.dictionaries.ChainedHashDictionary;
+import datastructures.interfaces.IDictionary;
+import datastructures.interfaces.IList;
+
+import java.util.Arrays;
+
+public class Experiment7 {
+    // Measures how long each individual 'put' takes while a hash table grows, and reports the
+    // latency percentiles. Resizing all at once shows up as a few very slow puts; resizing
+    // incrementally should bring the worst case down.
+    public static final int NUM_TRIALS = 5;
+    public static final int NUM_PUTS = 2000000;
+
+    // The percentiles we report, multiplied by 100 (so 9990 means the 99.9th percentile)
+    public static final long[] PERCENTILES = {5000L, 9000L, 9900L, 9990L, 9999L, 10000L};
+
+    public static void main(String[] args) {
+        IList<Long> percentiles = new DoubleLinkedList<>();
+        for (long percentile : PERCENTILES) {
+            percentiles.add(percentile);
+        }
+
+        System.out.println("Starting experiment 7, test 1");
+        IList<Long> test1Results = runTrials(false);
+
+        System.out.println("Starting experiment 7, test 2");
+        IList<Long> test2Results = runTrials(true);
+
+        System.out.println("Saving experiment 7 results to file");
+        CsvWriter writer = new CsvWriter();
+        writer.addColumn("PercentileTimes100", percentiles);
+        writer.addColumn("StopTheWorldNanos", test1Results);
+        writer.addColumn("IncrementalNanos", test2Results);
+        writer.writeToFile("experimentdata/experiment7.csv");
+
+        System.out.println("All done!");
+    }
+
+    private static IList<Long> runTrials(boolean incrementalRehash) {
+        System.out.println("    Running preliminary trial to warm up caches (will discard result)");
+        test(incrementalRehash);
+
+        IList<IList<Long>> trials = new DoubleLinkedList<>();
+        for (int i = 0; i < NUM_TRIALS; i++) {
+            System.out.println("    Starting trial " + i);
+            trials.add(test(incrementalRehash));
+        }
+
+        System.out.println("    Averaging results");
+        return AnalysisUtils.average(trials);
+    }
+
+    public static IList<Long> test(boolean incrementalRehash) {
+        IDictionary<Long, Long> dictionary = new ChainedHashDictionary<>(incrementalRehash);
+        long[] latencies = new long[NUM_PUTS];
+
+        for (int i = 0; i < NUM_PUTS; i++) {
+            Long key = (long) i;
+            long start = System.nanoTime();
+            dictionary.put(key, -1L);
+            latencies[i] = System.nanoTime() - start;
+        }
+
+        Arrays.sort(latencies);
+        IList<Long> result = new DoubleLinkedList<>();
+        for (long percentile : PERCENTILES) {
+            int index = (int) Math.min(NUM_PUTS - 1, (long) NUM_PUTS * percentile / 10000L);
+            result.add(latencies[index]);
+        }
+        return result;
+    }
+}
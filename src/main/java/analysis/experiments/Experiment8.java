@@ -0,0 +1,98 @@
+package analysis.experiments;
+
+import analysis.utils.CsvWriter;
+import datastructures.concrete.DoubleLinkedList;
+import datastructures.concrete.dictionaries.BPlusTreeDictionary;
+import datastructures.interfaces.IList;
+
+import java.io.File;
+import java.util.Random;
+
+public class Experiment8 {
+    // Times random and sequential lookups in a disk-backed B+-tree holding NUM_KEYS keys,
+    // using page caches of different sizes. "Cold" means the page cache was just created;
+    // "warm" repeats the exact same lookups right afterwards.
+    //
+    // Note: the operating system may still have the file in its own cache, so a cold page cache
+    // measures the cost of decoding pages more than the cost of reading them from the disk.
+    public static final long NUM_KEYS = 10000000L;
+    public static final int NUM_LOOKUPS = 1000000;
+    public static final long[] CACHE_PAGES = {16L, 256L, 4096L, 32768L};
+    public static final long SEED = 373L;
+    public static final String FILE_NAME = "experimentdata/experiment8.db";
+
+    public static void main(String[] args) {
+        File file = new File(FILE_NAME);
+        if (file.exists() && !file.delete()) {
+            throw new IllegalStateException("could not delete old " + FILE_NAME);
+        }
+
+        System.out.println("Building a B+-tree with " + NUM_KEYS + " keys");
+        long start = System.currentTimeMillis();
+        try (BPlusTreeDictionary<Long, Long> dictionary = open(file, BPlusTreeDictionary.MIN_CACHE_PAGES)) {
+            for (long i = 0; i < NUM_KEYS; i++) {
+                dictionary.put(i, -1L);
+            }
+        }
+        System.out.println("    Took " + (System.currentTimeMillis() - start) + " ms");
+
+        IList<Long> cacheSizes = new DoubleLinkedList<>();
+        IList<Long> randomCold = new DoubleLinkedList<>();
+        IList<Long> randomWarm = new DoubleLinkedList<>();
+        IList<Long> sequentialCold = new DoubleLinkedList<>();
+        IList<Long> sequentialWarm = new DoubleLinkedList<>();
+
+        Random rand = new Random(SEED);
+        long[] randomKeys = new long[NUM_LOOKUPS];
+        for (int i = 0; i < NUM_LOOKUPS; i++) {
+            randomKeys[i] = (long) (rand.nextDouble() * NUM_KEYS);
+        }
+        long[] sequentialKeys = new long[NUM_LOOKUPS];
+        long first = (long) (rand.nextDouble() * (NUM_KEYS - NUM_LOOKUPS));
+        for (int i = 0; i < NUM_LOOKUPS; i++) {
+            sequentialKeys[i] = first + i;
+        }
+
+        for (long cachePages : CACHE_PAGES) {
+            System.out.println("Starting experiment 8 with " + cachePages + " cached pages");
+            cacheSizes.add(cachePages);
+            try (BPlusTreeDictionary<Long, Long> dictionary = open(file, (int) cachePages)) {
+                randomCold.add(test(dictionary, randomKeys));
+                randomWarm.add(test(dictionary, randomKeys));
+            }
+            try (BPlusTreeDictionary<Long, Long> dictionary = open(file, (int) cachePages)) {
+                sequentialCold.add(test(dictionary, sequentialKeys));
+                sequentialWarm.add(test(dictionary, sequentialKeys));
+            }
+        }
+
+        System.out.println("Saving experiment 8 results to file");
+        CsvWriter writer = new CsvWriter();
+        writer.addColumn("CachePages", cacheSizes);
+        writer.addColumn("RandomColdMillis", randomCold);
+        writer.addColumn("RandomWarmMillis", randomWarm);
+        writer.addColumn("SequentialColdMillis", sequentialCold);
+        writer.addColumn("SequentialWarmMillis", sequentialWarm);
+        writer.writeToFile("experimentdata/experiment8.csv");
+
+        if (!file.delete()) {
+            System.out.println("Could not delete " + FILE_NAME);
+        }
+        System.out.println("All done!");
+    }
+
+    private static BPlusTreeDictionary<Long, Long> open(File file, int cachePages) {
+        return new BPlusTreeDictionary<>(
+                file, BPlusTreeDictionary.LONG_CODEC, BPlusTreeDictionary.LONG_CODEC, cachePages);
+    }
+
+    public static long test(BPlusTreeDictionary<Long, Long> dictionary, long[] keys) {
+        long start = System.currentTimeMillis();
+        long temp = 0L;
+        for (long key : keys) {
+            temp += dictionary.get(key);
+        }
+        // Returns time elapsed
+        return System.currentTimeMillis() - start;
+    }
+}
@@ -0,0 +1,95 @@
+package analysis.experiments;
+
+import analysis.utils.AnalysisUtils;
+import analysis.utils.CsvWriter;
+import datastructures.concrete.DoubleLinkedList;
+import datastructures.concrete.dictionaries.ArrayDictionary;
+import datastructures.concrete.dictionaries.ChainedHashDictionary;
+import datastructures.concrete.dictionaries.EytzingerDictionary;
+import datastructures.interfaces.IDictionary;
+import datastructures.interfaces.IList;
+
+import java.util.Random;
+
+public class Experiment9 {
+    // Compares lookups in a read-only EytzingerDictionary against ArrayDictionary and
+    // ChainedHashDictionary, from tables that fit in the L1 cache to ones that spill out of L2.
+    // (Building an ArrayDictionary is quadratic, which is what caps the largest size.)
+    public static final int NUM_TRIALS = 5;
+    public static final long MIN_DICTIONARY_SIZE = 16;
+    public static final long MAX_DICTIONARY_SIZE = 65536;
+    public static final int NUM_LOOKUPS = 1000000;
+    // ArrayDictionary scans the whole table, so it gets fewer lookups on big tables
+    public static final long MAX_ARRAY_WORK = 200000000L;
+    public static final long SEED = 373L;
+
+    public static void main(String[] args) {
+        IList<Long> dictionarySizes = new DoubleLinkedList<>();
+        for (long size = MIN_DICTIONARY_SIZE; size <= MAX_DICTIONARY_SIZE; size *= 4) {
+            dictionarySizes.add(size);
+        }
+
+        System.out.println("Starting experiment 9, test 1");
+        IList<Long> test1Results = AnalysisUtils.runTrials(dictionarySizes, Experiment9::test1, NUM_TRIALS);
+
+        System.out.println("Starting experiment 9, test 2");
+        IList<Long> test2Results = AnalysisUtils.runTrials(dictionarySizes, Experiment9::test2, NUM_TRIALS);
+
+        System.out.println("Starting experiment 9, test 3");
+        IList<Long> test3Results = AnalysisUtils.runTrials(dictionarySizes, Experiment9::test3, NUM_TRIALS);
+
+        System.out.println("Saving experiment 9 results to file");
+        CsvWriter writer = new CsvWriter();
+        writer.addColumn("InputDictionarySize", dictionarySizes);
+        writer.addColumn("ArrayNanosPerLookup", test1Results);
+        writer.addColumn("HashNanosPerLookup", test2Results);
+        writer.addColumn("EytzingerNanosPerLookup", test3Results);
+        writer.writeToFile("experimentdata/experiment9.csv");
+
+        System.out.println("All done!");
+    }
+
+    public static long test1(long dictionarySize) {
+        IDictionary<Long, Long> dictionary = new ArrayDictionary<>();
+        for (long i = 0; i < dictionarySize; i++) {
+            dictionary.put(i, -1L);
+        }
+        int numLookups = (int) Math.min(NUM_LOOKUPS, MAX_ARRAY_WORK / dictionarySize);
+        return runLookups(dictionary, dictionarySize, numLookups);
+    }
+
+    public static long test2(long dictionarySize) {
+        IDictionary<Long, Long> dictionary = new ChainedHashDictionary<>();
+        for (long i = 0; i < dictionarySize; i++) {
+            dictionary.put(i, -1L);
+        }
+        return runLookups(dictionary, dictionarySize, NUM_LOOKUPS);
+    }
+
+    public static long test3(long dictionarySize) {
+        Long[] keys = new Long[(int) dictionarySize];
+        Long[] values = new Long[(int) dictionarySize];
+        for (int i = 0; i < dictionarySize; i++) {
+            keys[i] = (long) i;
+            values[i] = -1L;
+        }
+        return runLookups(new EytzingerDictionary<>(keys, values), dictionarySize, NUM_LOOKUPS);
+    }
+
+    private static long runLookups(IDictionary<Long, Long> dictionary, long dictionarySize, int numLookups) {
+        // We don't include the cost of constructing the dictionary or picking the keys
+        Random rand = new Random(SEED);
+        Long[] keys = new Long[numLookups];
+        for (int i = 0; i < numLookups; i++) {
+            keys[i] = (long) rand.nextInt((int) dictionarySize);
+        }
+
+        long start = System.nanoTime();
+        long temp = 0L;
+        for (Long key : keys) {
+            temp += dictionary.get(key);
+        }
+        // Returns the average time of a single lookup, in nanoseconds
+        return (System.nanoTime() - start) / numLookups;
+    }
+}
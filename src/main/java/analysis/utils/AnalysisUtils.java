@@ -1,11 +1,13 @@
 package analysis.utils;
 
+import calculator.ast.AstNode;
 import datastructures.concrete.DoubleLinkedList;
 import datastructures.concrete.dictionaries.ArrayDictionary;
 import datastructures.interfaces.IDictionary;
 import datastructures.interfaces.IList;
 import org.openjdk.jol.info.GraphLayout;
 
+import java.util.Random;
 import java.util.function.Function;
 
 /**
@@ -15,6 +17,8 @@ import java.util.function.Function;
  * what each method DOES.
  */
 public class AnalysisUtils {
+    private static final String[] EXPRESSION_OPERATIONS = {"+", "-", "*"};
+
     /**
      * Constructs a doubly-linked list of longs starting with 'size', going to 'end', in 'step' increments.
      */
@@ -37,6 +41,99 @@ public class AnalysisUtils {
         return dictionary;
     }
 
+    /**
+     * Constructs an array dictionary using the given ordering containing keys from 0 to 'size'
+     * (with dummy values)
+     */
+    public static IDictionary<Long, Long> makeArrayDictionary(long size, ArrayDictionary.Ordering ordering) {
+        IDictionary<Long, Long> dictionary = new ArrayDictionary<>(ordering);
+        for (long i = 0; i < size; i += 1) {
+            dictionary.put(i, -1L);
+        }
+        return dictionary;
+    }
+
+    /**
+     * Returns 'length' keys between 0 and 'numKeys' drawn from a Zipf distribution with the given
+     * exponent: the k-th most popular key is picked with probability proportional to 1 / k^exponent.
+     *
+     * Which key ends up being the k-th most popular one is shuffled, so the popular keys are
+     * not simply the ones that were inserted first. The same seed always produces the same keys.
+     */
+    public static long[] makeZipfKeys(long numKeys, int length, double exponent, long seed) {
+        long[] keys = new long[length];
+        if (numKeys <= 0) {
+            return keys;
+        }
+        int n = (int) numKeys;
+        Random rand = new Random(seed);
+
+        // cumulative[k] is the probability of picking one of the k + 1 most popular keys
+        double[] cumulative = new double[n];
+        double total = 0.0;
+        for (int k = 0; k < n; k++) {
+            total += 1.0 / Math.pow(k + 1, exponent);
+            cumulative[k] = total;
+        }
+
+        long[] keyOfRank = new long[n];
+        for (int k = 0; k < n; k++) {
+            keyOfRank[k] = k;
+        }
+        for (int k = n - 1; k > 0; k--) {
+            int other = rand.nextInt(k + 1);
+            long temp = keyOfRank[k];
+            keyOfRank[k] = keyOfRank[other];
+            keyOfRank[other] = temp;
+        }
+
+        for (int i = 0; i < length; i++) {
+            double target = rand.nextDouble() * total;
+            int low = 0;
+            int high = n - 1;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (cumulative[mid] < target) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            keys[i] = keyOfRank[low];
+        }
+        return keys;
+    }
+
+    /**
+     * Constructs a balanced arithmetic expression containing exactly 'numNodes' AstNodes.
+     *
+     * The leaves alternate between the variable 'x' and small numbers, and the inner nodes cycle
+     * through '+', '-' and '*' (a node that only has room for one child becomes 'negate').
+     */
+    public static AstNode makeExpression(long numNodes) {
+        if (numNodes <= 0) {
+            throw new IllegalArgumentException("An expression needs at least one node");
+        }
+        return makeExpression(numNodes, new int[] {0});
+    }
+
+    private static AstNode makeExpression(long numNodes, int[] counter) {
+        counter[0]++;
+        if (numNodes == 1) {
+            return counter[0] % 2 == 0 ? new AstNode(counter[0] % 10) : new AstNode("x");
+        }
+        long numLeft = numNodes / 2;
+        long numRight = numNodes - 1 - numLeft;
+        String name = EXPRESSION_OPERATIONS[counter[0] % EXPRESSION_OPERATIONS.length];
+        IList<AstNode> children = new DoubleLinkedList<>();
+        children.add(makeExpression(numLeft, counter));
+        if (numRight == 0) {
+            return new AstNode("negate", children);
+        }
+        children.add(makeExpression(numRight, counter));
+        return new AstNode(name, children);
+    }
+
     /**
      * Handles running a single experiment.
      *
@@ -0,0 +1,287 @@
+package calculator.ast;
+
+import datastructures.concrete.DoubleLinkedList;
+import datastructures.concrete.dictionaries.ChainedHashDictionary;
+import datastructures.interfaces.IDictionary;
+import datastructures.interfaces.IList;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+/**
+ * The rewrite rules behind 'rewrite', which shrink an expression using algebraic identities:
+ *
+ * - x + 0, x - 0, x * 1, x / 1 and x ^ 1 become x; x ^ 0 and 1 ^ x become 1; 0 * x and 0 / x
+ *   become 0; x - x becomes 0, x / x becomes 1, and --x becomes x.
+ * - A chain of + and - becomes one term per distinct subexpression, with the numbers summed
+ *   into a single constant at the end: 3 * x + 2 - x + 5 becomes 2 * x + 7.
+ * - A chain of * becomes a single constant followed by one power per distinct factor:
+ *   2 * x * 3 * x becomes 6 * x ^ 2.
+ * - A division of two numbers is folded only when the quotient is exact, so 6 / 3 becomes 2
+ *   but 1 / 3 stays as it is.
+ *
+ * These identities hold for real numbers, not for every double: x - x becomes 0 even though
+ * it is NaN when x is infinite, and so on. Coefficients are combined in floating point, so
+ * 0.1 * x + 0.2 * x becomes 0.30000000000000004 * x.
+ */
+public class AlgebraicRules {
+    /**
+     * Registers every rule in this class with the given rewriter.
+     */
+    public static void addTo(Rewriter rewriter) {
+        rewriter.addRule(Opcode.ADD, AlgebraicRules::collectTerms);
+        rewriter.addRule(Opcode.SUBTRACT, AlgebraicRules::collectTerms);
+        rewriter.addRule(Opcode.MULTIPLY, AlgebraicRules::collectFactors);
+        rewriter.addRule(Opcode.DIVIDE, AlgebraicRules::simplifyDivision);
+        rewriter.addRule(Opcode.POWER, AlgebraicRules::simplifyPower);
+        rewriter.addRule(Opcode.NEGATE, AlgebraicRules::simplifyNegation);
+    }
+
+    /**
+     * Rewrites a chain of + and - as the sum of its distinct terms, each with its coefficient,
+     * followed by the sum of its numbers.
+     */
+    public static AstNode collectTerms(AstNode node) {
+        Collection terms = new Collection(0.0);
+        addTerms(node, 1.0, terms);
+        return changedOrNull(node, terms.toSum());
+    }
+
+    /**
+     * Rewrites a chain of * as the product of its numbers followed by its distinct factors,
+     * each raised to the sum of its exponents.
+     */
+    public static AstNode collectFactors(AstNode node) {
+        Collection factors = new Collection(1.0);
+        addFactors(node, factors);
+        return changedOrNull(node, factors.toProduct());
+    }
+
+    public static AstNode simplifyDivision(AstNode node) {
+        AstNode left = node.getChild(0);
+        AstNode right = node.getChild(1);
+        if (left.isNumber() && right.isNumber()) {
+            double quotient = left.getNumericValue() / right.getNumericValue();
+            return isExact(left.getNumericValue(), right.getNumericValue(), quotient) ? new AstNode(quotient) : null;
+        } else if (isNumber(right, 1.0)) {
+            return left;
+        } else if (isNumber(left, 0.0)) {
+            return left;
+        } else if (left.equals(right)) {
+            return new AstNode(1.0);
+        }
+        return null;
+    }
+
+    public static AstNode simplifyPower(AstNode node) {
+        AstNode left = node.getChild(0);
+        AstNode right = node.getChild(1);
+        if (left.isNumber() && right.isNumber()) {
+            return new AstNode(Math.pow(left.getNumericValue(), right.getNumericValue()));
+        } else if (isNumber(right, 1.0)) {
+            return left;
+        } else if (isNumber(right, 0.0) || isNumber(left, 1.0)) {
+            return new AstNode(1.0);
+        }
+        return null;
+    }
+
+    public static AstNode simplifyNegation(AstNode node) {
+        AstNode child = node.getChild(0);
+        if (child.isNumber()) {
+            return new AstNode(-child.getNumericValue());
+        } else if (child.getOpcode() == Opcode.NEGATE) {
+            return child.getChild(0);
+        }
+        return null;
+    }
+
+    /*
+     * adds 'sign' times the given node to 'terms', splitting it into its own terms if it is a
+     * sum, and into a coefficient and a term if it is a product
+     */
+    private static void addTerms(AstNode node, double sign, Collection terms) {
+        switch (node.getOpcode()) {
+            case NUMBER:
+                terms.constant += sign * node.getNumericValue();
+                break;
+            case ADD:
+                addTerms(node.getChild(0), sign, terms);
+                addTerms(node.getChild(1), sign, terms);
+                break;
+            case SUBTRACT:
+                addTerms(node.getChild(0), sign, terms);
+                addTerms(node.getChild(1), -sign, terms);
+                break;
+            case NEGATE:
+                addTerms(node.getChild(0), -sign, terms);
+                break;
+            case MULTIPLY:
+                Collection factors = new Collection(1.0);
+                addFactors(node, factors);
+                double coefficient = factors.constant;
+                factors.constant = 1.0;
+                AstNode term = factors.toProduct();
+                if (term.isNumber()) {
+                    terms.constant += sign * coefficient * term.getNumericValue();
+                } else {
+                    terms.add(term, sign * coefficient);
+                }
+                break;
+            default:
+                terms.add(node, sign);
+                break;
+        }
+    }
+
+    /*
+     * multiplies 'factors' by the given node, splitting it into its own factors if it is a
+     * product
+     */
+    private static void addFactors(AstNode node, Collection factors) {
+        switch (node.getOpcode()) {
+            case NUMBER:
+                factors.constant *= node.getNumericValue();
+                break;
+            case MULTIPLY:
+                addFactors(node.getChild(0), factors);
+                addFactors(node.getChild(1), factors);
+                break;
+            case NEGATE:
+                factors.constant = -factors.constant;
+                addFactors(node.getChild(0), factors);
+                break;
+            case POWER:
+                if (node.getChild(1).isNumber()) {
+                    factors.add(node.getChild(0), node.getChild(1).getNumericValue());
+                } else {
+                    factors.add(node, 1.0);
+                }
+                break;
+            default:
+                factors.add(node, 1.0);
+                break;
+        }
+    }
+
+    /*
+     * returns 'true' if a / b is exactly 'quotient', with no rounding
+     */
+    private static boolean isExact(double a, double b, double quotient) {
+        if (!Double.isFinite(a) || !Double.isFinite(b) || !Double.isFinite(quotient)) {
+            return false;
+        }
+        return new BigDecimal(quotient).multiply(new BigDecimal(b)).compareTo(new BigDecimal(a)) == 0;
+    }
+
+    private static boolean isNumber(AstNode node, double value) {
+        return node.isNumber() && node.getNumericValue() == value;
+    }
+
+    private static AstNode changedOrNull(AstNode node, AstNode result) {
+        return result.equals(node) ? null : result;
+    }
+
+    private static AstNode operation(Opcode opcode, AstNode left, AstNode right) {
+        IList<AstNode> children = new DoubleLinkedList<>();
+        children.add(left);
+        if (right != null) {
+            children.add(right);
+        }
+        return new AstNode(opcode.getOperationName(), children);
+    }
+
+    /*
+     * the distinct terms of a sum or factors of a product, in the order they first appeared,
+     * each with its coefficient or exponent, and the sum or product of the numbers
+     */
+    private static class Collection {
+        public double constant;
+
+        private AstNode[] nodes;
+        private double[] weights;
+        private int size;
+        private final IDictionary<AstNode, Integer> indices;
+
+        public Collection(double constant) {
+            this.constant = constant;
+            this.nodes = new AstNode[4];
+            this.weights = new double[4];
+            this.size = 0;
+            this.indices = new ChainedHashDictionary<>();
+        }
+
+        public void add(AstNode node, double weight) {
+            Integer index = this.indices.getOrNull(node);
+            if (index != null) {
+                this.weights[index] += weight;
+                return;
+            }
+            if (this.size == this.nodes.length) {
+                this.nodes = Arrays.copyOf(this.nodes, 2 * this.size);
+                this.weights = Arrays.copyOf(this.weights, 2 * this.size);
+            }
+            this.nodes[this.size] = node;
+            this.weights[this.size] = weight;
+            this.indices.put(node, this.size);
+            this.size++;
+        }
+
+        public AstNode toSum() {
+            AstNode result = null;
+            for (int i = 0; i < this.size; i++) {
+                double weight = this.weights[i];
+                if (weight == 0.0) {
+                    continue;
+                }
+                if (result == null) {
+                    result = scale(weight, this.nodes[i]);
+                } else if (weight < 0.0) {
+                    result = operation(Opcode.SUBTRACT, result, scale(-weight, this.nodes[i]));
+                } else {
+                    result = operation(Opcode.ADD, result, scale(weight, this.nodes[i]));
+                }
+            }
+            if (result == null) {
+                return new AstNode(this.constant);
+            } else if (this.constant < 0.0) {
+                return operation(Opcode.SUBTRACT, result, new AstNode(-this.constant));
+            } else if (this.constant != 0.0) {
+                return operation(Opcode.ADD, result, new AstNode(this.constant));
+            }
+            return result;
+        }
+
+        public AstNode toProduct() {
+            if (this.constant == 0.0) {
+                return new AstNode(0.0);
+            }
+            boolean negate = this.constant == -1.0;
+            AstNode result = negate || this.constant == 1.0 ? null : new AstNode(this.constant);
+            for (int i = 0; i < this.size; i++) {
+                double weight = this.weights[i];
+                if (weight == 0.0) {
+                    continue;
+                }
+                AstNode factor = weight == 1.0
+                        ? this.nodes[i]
+                        : operation(Opcode.POWER, this.nodes[i], new AstNode(weight));
+                result = result == null ? factor : operation(Opcode.MULTIPLY, result, factor);
+            }
+            if (result == null) {
+                return new AstNode(this.constant);
+            }
+            return negate ? operation(Opcode.NEGATE, result, null) : result;
+        }
+
+        /*
+         * returns 'weight' times the given term, as a product in the same form 'toProduct'
+         * gives, so that collecting the result again doesn't change it
+         */
+        private static AstNode scale(double weight, AstNode term) {
+            Collection factors = new Collection(weight);
+            addFactors(term, factors);
+            return factors.toProduct();
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package calculator.ast;
+
+import datastructures.concrete.DoubleLinkedList;
+import datastructures.concrete.dictionaries.ChainedHashDictionary;
+import datastructures.interfaces.IDictionary;
+import datastructures.interfaces.IList;
+
+/**
+ * Builds AstNodes through a table of the nodes it has built before (a "hash-consing" factory),
+ * so structurally identical expressions are represented by one shared node.
+ *
+ * Every node returned by an interner is canonical: two nodes returned by the same interner are
+ * 'equals' exactly when they are the same object, so they can be compared with '==', and a
+ * subexpression that appears many times is only stored once. Canonical nodes make good keys for
+ * caches that remember something about an expression.
+ *
+ * An interner keeps every node it has returned alive until 'clear' is called.
+ */
+public class AstInterner {
+    private IDictionary<AstNode, AstNode> canonical;
+
+    public AstInterner() {
+        this.canonical = new ChainedHashDictionary<>();
+    }
+
+    /**
+     * Returns the canonical node representing the given number.
+     */
+    public AstNode number(double value) {
+        return this.lookup(new AstNode(value));
+    }
+
+    /**
+     * Returns the canonical node representing the variable with the given name.
+     */
+    public AstNode variable(String name) {
+        return this.lookup(new AstNode(name));
+    }
+
+    /**
+     * Returns the canonical node representing the given operation. The children are interned
+     * first if they are not canonical already.
+     */
+    public AstNode operation(String name, IList<AstNode> children) {
+        IList<AstNode> canonicalChildren = new DoubleLinkedList<>();
+        for (AstNode child : children) {
+            canonicalChildren.add(this.intern(child));
+        }
+        return this.lookup(new AstNode(name, canonicalChildren));
+    }
+
+    /**
+     * Returns the canonical node with the same structure as the given tree, adding the tree's
+     * nodes to this interner if they were not seen before.
+     */
+    public AstNode intern(AstNode node) {
+        if (!node.isOperation()) {
+            return this.lookup(node);
+        }
+        // Intern the children first, so the lookup below only ever compares canonical children,
+        // which are equal exactly when they are the same object. If every child already was
+        // canonical, the node itself can go into the table.
+        IList<AstNode> canonicalChildren = null;
+        for (int i = 0; i < node.getNumChildren(); i++) {
+            AstNode child = node.getChild(i);
+            AstNode canonicalChild = this.intern(child);
+            if (canonicalChild != child && canonicalChildren == null) {
+                canonicalChildren = new DoubleLinkedList<>();
+                for (int j = 0; j < i; j++) {
+                    canonicalChildren.add(node.getChild(j));
+                }
+            }
+            if (canonicalChildren != null) {
+                canonicalChildren.add(canonicalChild);
+            }
+        }
+        return this.lookup(canonicalChildren == null ? node : new AstNode(node.getName(), canonicalChildren));
+    }
+
+    /**
+     * Returns 'true' if the given node is canonical in this interner, and 'false' otherwise.
+     */
+    public boolean isCanonical(AstNode node) {
+        return this.canonical.getOrNull(node) == node;
+    }
+
+    /**
+     * Returns the number of distinct nodes in this interner.
+     */
+    public int size() {
+        return this.canonical.size();
+    }
+
+    /**
+     * Forgets every node built so far. Nodes built afterwards are not canonical with respect
+     * to the ones built before.
+     */
+    public void clear() {
+        this.canonical = new ChainedHashDictionary<>();
+    }
+
+    /*
+     * returns the node already in the table that is equal to the given one whose children
+     * are canonical, adding the given node if there is none
+     */
+    private AstNode lookup(AstNode node) {
+        AstNode existing = this.canonical.getOrNull(node);
+        if (existing != null) {
+            return existing;
+        }
+        this.canonical.put(node, node);
+        return node;
+    }
+}
@@ -1,31 +1,67 @@
 package calculator.ast;
 
 import calculator.errors.EvaluationError;
-import datastructures.concrete.DoubleLinkedList;
 import datastructures.interfaces.IList;
 
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
 /**
  * Represents a single node in an abstract syntax tree (AST).
  *
  * See spec for more details on what an AST is.
+ *
+ * Two nodes are 'equals' when they have the same structure. Each node computes its structural
+ * hash code once, when it is built, from the cached hash codes of its children; a node's
+ * children must therefore never be modified after the node is built. See AstInterner for a way
+ * to share structurally identical nodes.
  */
 public class AstNode {
+    private static final IList<AstNode> NO_CHILDREN = new FixedChildren(null, null, 0);
+
+    // 'name' is null for number nodes, which keep their value in 'number' instead so reading it
+    // never has to parse a string
     private String name;
+    private double number;
+    private Opcode opcode;
+
+    // The table that gave this variable its slot, and the slot; null and -1 if there is none
+    private SymbolTable symbols;
+    private int slot;
+
+    // Nodes with one or two children (almost every node that has any) keep them in 'child0' and
+    // 'child1'; only nodes with three or more children keep a list in 'children'
+    private AstNode child0;
+    private AstNode child1;
     private IList<AstNode> children;
-    private ExprType type;
+
+    private int hash;
 
     /**
      * Creates a leaf node representing a single number.
      */
     public AstNode(double number) {
-        this("" + number, new DoubleLinkedList<>(), ExprType.NUMBER);
+        this(null, NO_CHILDREN, Opcode.NUMBER);
+        this.number = number;
+        this.hash = Double.hashCode(number);
     }
 
     /**
      * Creates a leaf node representing a variable.
      */
     public AstNode(String name) {
-        this(name, new DoubleLinkedList<>(), ExprType.VARIABLE);
+        this(name, NO_CHILDREN, Opcode.VARIABLE);
+    }
+
+    /**
+     * Creates a leaf node representing a variable, whose slot in the given table is looked up
+     * (or handed out) now, so code using the same table can read the variable by its slot.
+     */
+    public AstNode(String name, SymbolTable symbols) {
+        this(name, NO_CHILDREN, Opcode.VARIABLE);
+        this.symbols = symbols;
+        this.slot = symbols.slotOf(name);
     }
 
     /**
@@ -48,27 +84,40 @@ public class AstNode {
      * function with no arguments.
      */
     public AstNode(String name, IList<AstNode> children) {
-        this(name, children, ExprType.OPERATION);
+        this(name, children, Opcode.forOperation(name));
     }
 
-    private AstNode(String name, IList<AstNode> children, ExprType type) {
+    private AstNode(String name, IList<AstNode> children, Opcode opcode) {
         this.name = name;
-        this.children = children;
-        this.type = type;
+        this.opcode = opcode;
+        this.slot = -1;
+        int size = children.size();
+        if (size > 2 || children.contains(null)) {
+            this.children = children;
+        } else if (size > 0) {
+            this.child0 = children.get(0);
+            this.child1 = size == 2 ? children.get(1) : null;
+        }
+
+        int result = 31 * this.opcode.ordinal() + Objects.hashCode(name);
+        for (int i = 0; i < size; i++) {
+            result = 31 * result + Objects.hashCode(this.getChild(i));
+        }
+        this.hash = result;
     }
 
     /**
      * Returns 'true' if this node represents a number, and 'false' otherwise.
      */
     public boolean isNumber() {
-        return this.type == ExprType.NUMBER;
+        return this.opcode == Opcode.NUMBER;
     }
 
     /**
      * Returns 'true' if this node represents a variable, and 'false' otherwise.
      */
     public boolean isVariable() {
-        return this.type == ExprType.VARIABLE;
+        return this.opcode == Opcode.VARIABLE;
     }
 
     /**
@@ -76,7 +125,15 @@ public class AstNode {
      * and 'false' otherwise.
      */
     public boolean isOperation() {
-        return this.type == ExprType.OPERATION;
+        return this.opcode != Opcode.NUMBER && this.opcode != Opcode.VARIABLE;
+    }
+
+    /**
+     * Returns this node's opcode. Operations whose name has no opcode of its own
+     * return Opcode.CALL.
+     */
+    public Opcode getOpcode() {
+        return this.opcode;
     }
 
     /**
@@ -91,6 +148,19 @@ public class AstNode {
         return this.name;
     }
 
+    /**
+     * Returns this variable's slot in the given table, or -1 if the node was not built with that
+     * table. Nodes with the same name built with the same table have the same slot.
+     *
+     * @throws EvaluationError  if this node is not a variable
+     */
+    public int getSlot(SymbolTable symbols) {
+        if (!this.isVariable()) {
+            throw new EvaluationError("Attempted to call 'getSlot()' on a number or operation AstNode");
+        }
+        return this.symbols == symbols ? this.slot : -1;
+    }
+
     /**
      * Returns the numeric value of this node.
      *
@@ -100,7 +170,7 @@ public class AstNode {
         if (!this.isNumber()) {
             throw new EvaluationError("Attempted to call 'getNumericValue()' on a variable or operation AstNode");
         }
-        return Double.parseDouble(this.name);
+        return this.number;
     }
 
     /**
@@ -108,14 +178,176 @@ public class AstNode {
      *
      * If this node represents a number or variable, the returned list
      * is guaranteed to be empty.
+     *
+     * Note: if this node has two or fewer children, the returned list is a
+     *       read-only view. Prefer 'getChild' and 'getNumChildren' on hot paths,
+     *       since they don't need to create that view.
      */
     public IList<AstNode> getChildren() {
-        return this.children;
+        if (this.children != null) {
+            return this.children;
+        } else if (this.child0 == null) {
+            return NO_CHILDREN;
+        }
+        return new FixedChildren(this.child0, this.child1, this.getNumChildren());
+    }
+
+    /**
+     * Returns the number of children this node has.
+     */
+    public int getNumChildren() {
+        if (this.children != null) {
+            return this.children.size();
+        } else if (this.child1 != null) {
+            return 2;
+        }
+        return this.child0 != null ? 1 : 0;
+    }
+
+    /**
+     * Returns the child at the given index.
+     *
+     * @throws IndexOutOfBoundsException  if the index is negative or not less than the
+     *                                    number of children
+     */
+    public AstNode getChild(int index) {
+        if (this.children != null) {
+            return this.children.get(index);
+        } else if (index == 0 && this.child0 != null) {
+            return this.child0;
+        } else if (index == 1 && this.child1 != null) {
+            return this.child1;
+        }
+        throw new IndexOutOfBoundsException("Index is not within the proper range");
     }
 
-    private enum ExprType {
-        NUMBER,
-        VARIABLE,
-        OPERATION,
+    /*
+     * return true if the given object is an AstNode with the same structure as this one: the
+     * same kind, name or number, and children that are equal in the same order
+     * @see java.lang.Object#equals(java.lang.Object)
+     */
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        } else if (!(other instanceof AstNode)) {
+            return false;
+        }
+        AstNode node = (AstNode) other;
+        if (this.hash != node.hash || this.opcode != node.opcode) {
+            return false;
+        } else if (this.isNumber()) {
+            return Double.doubleToLongBits(this.number) == Double.doubleToLongBits(node.number);
+        } else if (!Objects.equals(this.name, node.name)) {
+            return false;
+        }
+        int size = this.getNumChildren();
+        if (size != node.getNumChildren()) {
+            return false;
+        }
+        for (int i = 0; i < size; i++) {
+            if (!Objects.equals(this.getChild(i), node.getChild(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /*
+     * return the structural hash code computed when this node was built
+     * @see java.lang.Object#hashCode()
+     */
+    @Override
+    public int hashCode() {
+        return this.hash;
+    }
+
+    /*
+     * a read-only list of at most two children, handed out by 'getChildren'
+     */
+    private static class FixedChildren implements IList<AstNode> {
+        private final AstNode first;
+        private final AstNode second;
+        private final int size;
+
+        public FixedChildren(AstNode first, AstNode second, int size) {
+            this.first = first;
+            this.second = second;
+            this.size = size;
+        }
+
+        @Override
+        public AstNode get(int index) {
+            if (index < 0 || index >= this.size) {
+                throw new IndexOutOfBoundsException("Index is not within the proper range");
+            }
+            return index == 0 ? this.first : this.second;
+        }
+
+        @Override
+        public int indexOf(AstNode item) {
+            for (int i = 0; i < this.size; i++) {
+                if (Objects.equals(this.get(i), item)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        public boolean contains(AstNode other) {
+            return this.indexOf(other) != -1;
+        }
+
+        @Override
+        public int size() {
+            return this.size;
+        }
+
+        @Override
+        public Iterator<AstNode> iterator() {
+            return new Iterator<AstNode>() {
+                private int next = 0;
+
+                @Override
+                public boolean hasNext() {
+                    return this.next < FixedChildren.this.size;
+                }
+
+                @Override
+                public AstNode next() {
+                    if (!this.hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    this.next++;
+                    return FixedChildren.this.get(this.next - 1);
+                }
+            };
+        }
+
+        @Override
+        public void add(AstNode item) {
+            throw new UnsupportedOperationException("AST children cannot be modified");
+        }
+
+        @Override
+        public AstNode remove() {
+            throw new UnsupportedOperationException("AST children cannot be modified");
+        }
+
+        @Override
+        public void set(int index, AstNode item) {
+            throw new UnsupportedOperationException("AST children cannot be modified");
+        }
+
+        @Override
+        public void insert(int index, AstNode item) {
+            throw new UnsupportedOperationException("AST children cannot be modified");
+        }
+
+        @Override
+        public AstNode delete(int index) {
+            throw new UnsupportedOperationException("AST children cannot be modified");
+        }
     }
 }
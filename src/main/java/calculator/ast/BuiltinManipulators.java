@@ -56,7 +56,7 @@ public class BuiltinManipulators {
         IList<AstNode> children = wrapper.getChildren();
 
         // Parse children
-        AstNode var = children.get(0).getChildren().get(0);  // Unnest 'simplify'
+        AstNode var = children.get(0).getChild(0);  // Unnest 'simplify'
         AstNode expr = interp.evaluate(env, children.get(1));
 
         // Some sanity checking
@@ -83,12 +83,12 @@ public class BuiltinManipulators {
     private static void assertSignatureOk(String name, int numChildren, AstNode node) {
         boolean ok = node.isOperation()
                 && node.getName().equals(name)
-                && node.getChildren().size() == numChildren;
+                && node.getNumChildren() == numChildren;
         if (!ok) {
             String msg = String.format(
                     "Input ('%s' w/ %d) does not match expected ('%s' w/ %d)",
                     node.getName(),
-                    node.getChildren().size(),
+                    node.getNumChildren(),
                     name,
                     numChildren);
 
@@ -1,9 +1,13 @@
 package calculator.ast;
 
+import calculator.compiler.ExpressionCompiler;
+import calculator.compiler.Program;
+import calculator.compiler.ProgramCompiler;
 import calculator.errors.EvaluationError;
 import calculator.interpreter.Environment;
 import calculator.interpreter.Interpreter;
 import datastructures.concrete.DoubleLinkedList;
+import datastructures.interfaces.IDictionary;
 import datastructures.interfaces.IList;
 
 
@@ -30,8 +34,8 @@ public class ControlFlowManipulators {
      *   body2 with 50% probability. If body1 is interpreted, body2 is ignored completely and vice versa.
      */
     public static AstNode handleRandomlyPick(Environment env, AstNode wrapper) {
-        AstNode body1 = wrapper.getChildren().get(0);
-        AstNode body2 = wrapper.getChildren().get(1);
+        AstNode body1 = wrapper.getChild(0);
+        AstNode body2 = wrapper.getChild(1);
 
         Interpreter interp = env.getInterpreter();
         if (Math.random() < 0.5) {
@@ -66,12 +70,12 @@ public class ControlFlowManipulators {
 
         Interpreter interp = env.getInterpreter();
         
-        AstNode cond = wrapper.getChildren().get(0);
-        AstNode body = wrapper.getChildren().get(1);
-        AstNode other = wrapper.getChildren().get(2);
+        AstNode cond = wrapper.getChild(0);
+        AstNode body = wrapper.getChild(1);
+        AstNode other = wrapper.getChild(2);
         
         // cond does not need simplify syntax        
-        cond = checkCond(env, cond.getChildren().get(0)); 
+        cond = checkCond(env, cond.getChild(0)); 
         
         if (cond.getNumericValue() != 0.0) {
             return interp.evaluate(env, body);
@@ -86,15 +90,16 @@ public class ControlFlowManipulators {
      */
     private static AstNode checkCond(Environment env, AstNode cond) {
         Interpreter interp = env.getInterpreter();
+        if (!cond.isOperation()) {
+            throw new EvaluationError("condition must compare two expressions");
+        }
         
-        String condName = cond.getName();
-        
-        AstNode left = cond.getChildren().get(0); 
+        AstNode left = cond.getChild(0); 
         IList<AstNode> leftList = new DoubleLinkedList<>();
         leftList.add(left);
         left = new AstNode("toDouble", leftList); 
         
-        AstNode right = cond.getChildren().get(1); 
+        AstNode right = cond.getChild(1); 
         IList<AstNode> rightList = new DoubleLinkedList<>();
         rightList.add(right);
         right = new AstNode("toDouble", rightList); 
@@ -102,28 +107,28 @@ public class ControlFlowManipulators {
         double condLeft = interp.evaluate(env, left).getNumericValue();
         double condRight = interp.evaluate(env, right).getNumericValue();
         
-        if (condName.equals("gr")) {
-            if (condLeft > condRight) {
+        switch (cond.getOpcode()) {
+            case GREATER:
+                if (condLeft > condRight) {
+                    return new AstNode(condLeft - condRight);
+                } else {
+                    return new AstNode(0);
+                }
+            case SMALLER:
+                if (condLeft < condRight) {
+                    return new AstNode(condRight - condLeft);
+                } else {
+                    return new AstNode(0);
+                }
+            case EQUAL:
+                if (condLeft == condRight) {
+                    return new AstNode(1);
+                } else {
+                    return new AstNode(0);
+                }
+            default: // for not equal
                 return new AstNode(condLeft - condRight);
-            } else {
-                return new AstNode(0);
-            }            
-        } else if (condName.equals("sm")) {
-            if (condLeft < condRight) {
-                return new AstNode(condRight - condLeft);
-            } else {
-                return new AstNode(0);
-            }  
-        } else if (condName.equals("eq")) {
-            if (condLeft == condRight) {
-                return new AstNode(1);
-            } else {
-                return new AstNode(0);
-            }
-        } else { // for not equal
-            return new AstNode(condLeft - condRight);
         }
-        
     }
 
     /**
@@ -142,15 +147,15 @@ public class ControlFlowManipulators {
      * - Returns the result of interpreting 'body' for the final time.
      */
     public static AstNode handleRepeat(Environment env, AstNode wrapper) {        
-        AstNode times = wrapper.getChildren().get(0);
+        AstNode times = wrapper.getChild(0);
         Interpreter interp = env.getInterpreter();
         int loopNum = (int) interp.evaluate(env, times).getNumericValue();
         if (loopNum < 1.0) {
             throw new EvaluationError("invalid repitition");
         }
-        AstNode body = wrapper.getChildren().get(1);
+        AstNode body = wrapper.getChild(1);
         AstNode result = body; 
-        String var = findVar(env, body.getChildren().get(0)).getName(); 
+        String var = findVar(env, body.getChild(0)).getName(); 
         
         for (int i = 0; i < loopNum; i++) {
             result = interp.evaluate(env, body);
@@ -167,25 +172,33 @@ public class ControlFlowManipulators {
         } else if (body.isNumber()) {
             return null;
         } else {
-            String name = body.getName();
-            if (name.equals("+") || name.equals("-") || name.equals("*") || name.equals("/")
-                    || name.equals("^")) {
-                AstNode left = body.getChildren().get(0);
-                AstNode right = body.getChildren().get(1);
-                
-                left = findVar(env, left);
-                right =  findVar(env, right);
-                if (left != null) {
-                    return left;
-                } else if (right != null) {
-                    return right;
-                }
-                return null; 
-            } else if (name.equals("sin") || name.equals("cos") || name.equals("negate")
-                    || name.equals("sm") || name.equals("gr") || name.equals("eq") || name.equals("nq")) {
-                    return findVar(env, body.getChildren().get(0));
-            } else {
-                throw new EvaluationError("nope");
+            switch (body.getOpcode()) {
+                case ADD:
+                case SUBTRACT:
+                case MULTIPLY:
+                case DIVIDE:
+                case POWER:
+                    AstNode left = body.getChild(0);
+                    AstNode right = body.getChild(1);
+
+                    left = findVar(env, left);
+                    right =  findVar(env, right);
+                    if (left != null) {
+                        return left;
+                    } else if (right != null) {
+                        return right;
+                    }
+                    return null;
+                case SIN:
+                case COS:
+                case NEGATE:
+                case SMALLER:
+                case GREATER:
+                case EQUAL:
+                case NOT_EQUAL:
+                    return findVar(env, body.getChild(0));
+                default:
+                    throw new EvaluationError("nope");
             }
         }
     }
@@ -205,18 +218,18 @@ public class ControlFlowManipulators {
      * - returns the result of interpreting body after the cond becomes false. 
      */
     public static AstNode handleWhile(Environment env, AstNode wrapper) {
-        AstNode cond = wrapper.getChildren().get(0);
-        AstNode body = wrapper.getChildren().get(1);
+        AstNode cond = wrapper.getChild(0);
+        AstNode body = wrapper.getChild(1);
         Interpreter interp = env.getInterpreter();
-        String condVar = findVar(env, cond.getChildren().get(0)).getName();
+        String condVar = findVar(env, cond.getChild(0)).getName();
         
-        AstNode currentCond = checkCond(env, cond.getChildren().get(0));
+        AstNode currentCond = checkCond(env, cond.getChild(0));
         
-        double lim = interp.evaluate(env, wrapper.getChildren().get(2)).getNumericValue();
+        double lim = interp.evaluate(env, wrapper.getChild(2)).getNumericValue();
         
         int step = 0; 
         AstNode result = body;
-        String var = findVar(env, body.getChildren().get(0)).getName();
+        String var = findVar(env, body.getChild(0)).getName();
         
         while (currentCond.getNumericValue() != 0.0) {
             result = interp.evaluate(env, body); 
@@ -224,7 +237,7 @@ public class ControlFlowManipulators {
             if (step > lim) {
                 throw new EvaluationError("too long loop");
             }
-            currentCond = checkCond(env, cond.getChildren().get(0));            
+            currentCond = checkCond(env, cond.getChild(0));            
             if (!var.equals(condVar)) {
                 env.getVariables().put(condVar, currentCond); 
             }
@@ -232,6 +245,47 @@ public class ControlFlowManipulators {
         }
         return (AstNode) interp.evaluate(env, result);
     }
-    
-    
+
+    /**
+     * Handles AST nodes corresponding to "run(program)"
+     *
+     * Preconditions:
+     *
+     * - Receives an operation node with the name "run" and one child
+     * - The program may use arithmetic, sin, cos, negate, the comparisons gr, sm, eq and nq,
+     *   and if, repeat and while; every variable it uses must already be defined
+     *   -e.g) run(repeat(100000, x + 1)); when x is defined as 0 at first, it will return 100000
+     *
+     * Postcondition:
+     *
+     * - Compiles the program into a flat list of instructions (see ProgramCompiler) and runs it,
+     *   so loops run without building a new AST node for every step.
+     * - Works with numbers only, like toDouble: every variable is read as a number when the program
+     *   starts, and the variables the loops assign are set to numbers when it ends.
+     * - Returns the result of the program as a number.
+     */
+    public static AstNode handleRun(Environment env, AstNode wrapper) {
+        Program program = ProgramCompiler.compile(wrapper.getChild(0));
+        IDictionary<String, AstNode> variables = env.getVariables();
+
+        double[] slots = new double[program.getNumSlots()];
+        for (int i = 0; i < slots.length; i++) {
+            String name = program.getSlotName(i);
+            if (name != null) {
+                AstNode value = variables.getOrNull(name);
+                if (value == null) {
+                    throw new EvaluationError("variable not defined");
+                }
+                slots[i] = ExpressionCompiler.compile(value, variables).evaluate(null);
+            }
+        }
+
+        double result = program.run(slots);
+        for (int i = 0; i < slots.length; i++) {
+            if (program.getSlotName(i) != null && program.isAssigned(i)) {
+                variables.put(program.getSlotName(i), new AstNode(slots[i]));
+            }
+        }
+        return new AstNode(result);
+    }
 }
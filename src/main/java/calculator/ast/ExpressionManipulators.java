@@ -1,10 +1,23 @@
 package calculator.ast;
 
+import calculator.compiler.BatchCompiler;
+import calculator.compiler.BatchExpression;
+import calculator.compiler.CompiledExpression;
+import calculator.compiler.ExpressionCompiler;
+import calculator.gui.PixelColumnReducer;
 import calculator.interpreter.Environment;
+import calculator.interpreter.ResultCache;
+import calculator.interpreter.VariableStore;
 import calculator.errors.EvaluationError;
+import datastructures.concrete.ArrayHeap;
 import datastructures.concrete.DoubleLinkedList;
 import datastructures.interfaces.IDictionary;
 import datastructures.interfaces.IList;
+import datastructures.interfaces.IPriorityQueue;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 /**
  * All of the public static methods in this class are given the exact same
@@ -15,13 +28,25 @@ import datastructures.interfaces.IList;
  * public-private pairs in some cases.
  */
 public class ExpressionManipulators {
+    // Plots with more than this many samples per pixel of the image's width are reduced to a
+    // few samples per pixel column before they are drawn
+    private static final int MIN_SAMPLES_PER_PIXEL_TO_REDUCE = 2;
+    // Parallel plots give each task at least this many samples, so a task is worth scheduling
+    private static final int MIN_SAMPLES_PER_TASK = 16384;
+    // Adaptive plots start from this many evenly spaced intervals, and stop adding samples
+    // once there are this many per pixel of the image's width
+    private static final int ADAPTIVE_INITIAL_INTERVALS = 32;
+    private static final int ADAPTIVE_POINTS_PER_PIXEL = 4;
+    // The rules of 'rewrite'; a Rewriter keeps no state between calls, so one can be shared
+    private static final Rewriter REWRITER = Rewriter.algebraic();
+
     /**
      * Checks to make sure that the given node is an operation AstNode with the
      * expected name and number of children. Throws an EvaluationError otherwise.
      */
     private static void assertNodeMatches(AstNode node, String expectedName, int expectedNumChildren) {
         if (!node.isOperation() && !node.getName().equals(expectedName)
-                && node.getChildren().size() != expectedNumChildren) {
+                && node.getNumChildren() != expectedNumChildren) {
             throw new EvaluationError("Node is not valid " + expectedName + " node.");
         }
     }
@@ -47,6 +72,10 @@ public class ExpressionManipulators {
      * ^ (addition, subtraction, multiplication, division, and exponentiation,
      * respectively) and the following unary operations negate, sin, cos
      *
+     * If the variables are a VariableStore, the result comes from the store's ResultCache
+     * whenever the same expression was evaluated before and none of the variables it reads
+     * has changed since.
+     *
      * @throws EvaluationError
      *             if any of the expressions contains an undefined variable.
      * @throws EvaluationError
@@ -54,16 +83,63 @@ public class ExpressionManipulators {
      */
     public static AstNode handleToDouble(Environment env, AstNode node) {
         assertNodeMatches(node, "toDouble", 1);
-        AstNode exprToConvert = node.getChildren().get(0);
-        return new AstNode(toDoubleHelper(env.getVariables(), exprToConvert));
+        AstNode exprToConvert = node.getChild(0);
+        IDictionary<String, AstNode> variables = env.getVariables();
+        if (variables instanceof VariableStore && !exprToConvert.isNumber()) {
+            return new AstNode(((VariableStore) variables).getResultCache().toDouble(exprToConvert));
+        }
+        return new AstNode(toDoubleHelper(variables, exprToConvert));
+    }
+
+    /**
+     * Accepts a 'cacheHits()' AstNode and returns the number of times 'toDouble' was answered
+     * from the cache of results so far, or 0 if the variables have no cache.
+     */
+    public static AstNode handleCacheHits(Environment env, AstNode node) {
+        assertNodeMatches(node, "cacheHits", 0);
+        ResultCache cache = getResultCache(env);
+        return new AstNode(cache == null ? 0 : cache.getHits());
+    }
+
+    /**
+     * Accepts a 'cacheMisses()' AstNode and returns the number of times 'toDouble' had to
+     * evaluate its expression because the cache of results had no current result for it.
+     */
+    public static AstNode handleCacheMisses(Environment env, AstNode node) {
+        assertNodeMatches(node, "cacheMisses", 0);
+        ResultCache cache = getResultCache(env);
+        return new AstNode(cache == null ? 0 : cache.getMisses());
+    }
+
+    private static ResultCache getResultCache(Environment env) {
+        IDictionary<String, AstNode> variables = env.getVariables();
+        return variables instanceof VariableStore ? ((VariableStore) variables).getResultCache() : null;
+    }
+
+    /**
+     * Returns what 'toDouble' of the given expression gives with the given variables.
+     *
+     * If 'variables' is a VariableStore, the values of variables are taken from the store, which
+     * only computes them again after the variables they depend on have changed.
+     *
+     * @throws EvaluationError  if the expression contains an undefined variable
+     * @throws EvaluationError  if the expression uses an unknown operation
+     */
+    public static double toDouble(IDictionary<String, AstNode> variables, AstNode expression) {
+        return toDoubleHelper(variables, expression);
     }
 
     private static double toDoubleHelper(IDictionary<String, AstNode> variables, AstNode node) {
         if (node.isNumber()) {
             return node.getNumericValue();
         } else if (node.isVariable()) {
-            if (variables.containsKey(node.getName())) {
-                return toDoubleHelper(variables, variables.get(node.getName()));
+            if (variables instanceof VariableStore) {
+                VariableStore store = (VariableStore) variables;
+                return store.getNumericValue(store.slotOf(node));
+            }
+            AstNode value = variables.getOrNull(node.getName());
+            if (value != null) {
+                return toDoubleHelper(variables, value);
             }
             throw new EvaluationError("variable not defined");
         } else {
@@ -71,18 +147,24 @@ public class ExpressionManipulators {
             // If you wish to make your code more robust, you can also use the provided
             // "assertNodeMatches" method to verify the input is valid.
             String name = node.getName();
-            if (name.equals("sin") || name.equals("cos") || name.equals("negate")) {
-                assertNodeMatches(node, name, 1);
-                double value = toDoubleHelper(variables, node.getChildren().get(0));
-                return trigHelper(name, value);
-            } else if (name.equals("+") || name.equals("-") || name.equals("*") || name.equals("/")
-                    || name.equals("^")) {
-                assertNodeMatches(node, name, 2);
-                double valueLeft = toDoubleHelper(variables, node.getChildren().get(0));
-                double valueRight = toDoubleHelper(variables, node.getChildren().get(1));
-                return operationHelper(name, valueLeft, valueRight);
-            } else {
-                throw new EvaluationError("invalid operation");
+            switch (node.getOpcode()) {
+                case SIN:
+                case COS:
+                case NEGATE:
+                    assertNodeMatches(node, name, 1);
+                    double value = toDoubleHelper(variables, node.getChild(0));
+                    return trigHelper(node.getOpcode(), value);
+                case ADD:
+                case SUBTRACT:
+                case MULTIPLY:
+                case DIVIDE:
+                case POWER:
+                    assertNodeMatches(node, name, 2);
+                    double valueLeft = toDoubleHelper(variables, node.getChild(0));
+                    double valueRight = toDoubleHelper(variables, node.getChild(1));
+                    return operationHelper(node.getOpcode(), valueLeft, valueRight);
+                default:
+                    throw new EvaluationError("invalid operation");
             }
         }
 
@@ -91,13 +173,14 @@ public class ExpressionManipulators {
     /*
      * Returns the result of basic trigonometry operations sin and cos and negate
      */
-    private static double trigHelper(String name, double value) {
-        if (name.equals("sin")) {
-            return Math.sin(value);
-        } else if (name.equals("cos")) {
-            return Math.cos(value);
-        } else {// when name equals negate
-            return -value;
+    private static double trigHelper(Opcode opcode, double value) {
+        switch (opcode) {
+            case SIN:
+                return Math.sin(value);
+            case COS:
+                return Math.cos(value);
+            default: // when opcode is NEGATE
+                return -value;
         } // no statement for other op since spec says so
     }
 
@@ -106,17 +189,18 @@ public class ExpressionManipulators {
      * +, -, *, /, ^
      * addition, subtraction, multiplication, division, and exponential
      */
-    private static double operationHelper(String name, double left, double right) {
-        if (name.equals("+")) {
-            return left + right;
-        } else if (name.equals("-")) {
-            return left - right;
-        } else if (name.equals("*")) {
-            return left * right;
-        } else if (name.equals("/")) {
-            return left / right;
-        } else { // when name equals ^
-            return Math.pow(left, right);
+    private static double operationHelper(Opcode opcode, double left, double right) {
+        switch (opcode) {
+            case ADD:
+                return left + right;
+            case SUBTRACT:
+                return left - right;
+            case MULTIPLY:
+                return left * right;
+            case DIVIDE:
+                return left / right;
+            default: // when opcode is POWER
+                return Math.pow(left, right);
         } // no statement for other op since spec says so
     }
 
@@ -145,16 +229,29 @@ public class ExpressionManipulators {
      */
     public static AstNode handleSimplify(Environment env, AstNode node) {
         assertNodeMatches(node, "simplify", 1);
-        AstNode exprToConvert = node.getChildren().get(0);
+        AstNode exprToConvert = node.getChild(0);
         return simplifyHelper(env.getVariables(), exprToConvert);
     }
 
+    /**
+     * Accepts a 'rewrite(inner)' AstNode and returns the 'inner' AstNode simplified as above,
+     * then rewritten with the identities in AlgebraicRules until none of them applies.
+     *
+     * For example, "rewrite(x * 1 + 0 * y + x - x)" returns "x", and
+     * "rewrite(3 * x + 2 - x + 5)" returns "2 * x + 7". Unlike 'simplify', this may change what
+     * the expression evaluates to where it isn't a real number, such as when x is infinite.
+     */
+    public static AstNode handleRewrite(Environment env, AstNode node) {
+        assertNodeMatches(node, "rewrite", 1);
+        return REWRITER.rewrite(simplifyHelper(env.getVariables(), node.getChild(0)));
+    }
+
     private static AstNode simplifyHelper(IDictionary<String, AstNode> variables, AstNode node) {
         if (node.isNumber()) {
             return node;
         } else if (node.isVariable()) {
-            if (variables.containsKey(node.getName())) {
-                AstNode temp = variables.get(node.getName());
+            AstNode temp = VariableStore.lookup(variables, node);
+            if (temp != null) {
                 if (temp.isOperation()) {
                     return simplifyHelper(variables, temp);
                 } else {
@@ -164,16 +261,17 @@ public class ExpressionManipulators {
             return node;
         } else {
             String name = node.getName();
-            if (name.equals("sin") || name.equals("cos") || name.equals("negate")) {
-                AstNode child = simplifyHelper(variables, node.getChildren().get(0));
+            Opcode opcode = node.getOpcode();
+            if (opcode == Opcode.SIN || opcode == Opcode.COS || opcode == Opcode.NEGATE) {
+                AstNode child = simplifyHelper(variables, node.getChild(0));
                 IList<AstNode> children = new DoubleLinkedList<>();
                 children.add(child);
                 node = new AstNode(name, children);
             } else {
-                AstNode left = simplifyHelper(variables, node.getChildren().get(0));
-                AstNode right = simplifyHelper(variables, node.getChildren().get(1));
-                if (left.isNumber() && right.isNumber() && !name.equals("/")) {
-                    node = new AstNode(operationHelper(name, left.getNumericValue(), right.getNumericValue()));
+                AstNode left = simplifyHelper(variables, node.getChild(0));
+                AstNode right = simplifyHelper(variables, node.getChild(1));
+                if (left.isNumber() && right.isNumber() && opcode != Opcode.DIVIDE) {
+                    node = new AstNode(operationHelper(opcode, left.getNumericValue(), right.getNumericValue()));
                 } else {
                     IList<AstNode> list = new DoubleLinkedList<>();
                     list.add(left);
@@ -221,12 +319,324 @@ public class ExpressionManipulators {
      *             if 'step' is zero or negative
      */
     public static AstNode plot(Environment env, AstNode node) {
-        assertNodeMatches(node, "plot", 5);
-        testPlotError(env.getVariables(), node.getChildren().get(0), node.getChildren().get(1).getName());
-        
-        AstNode var = node.getChildren().get(1); 
+        double[] range = checkPlot(env, node, "plot");
+        double varMin = range[0];
+        double varMax = range[1];
+        double step = range[2];
+        AstNode var = node.getChild(1);
+
+        IList<Double> resultX = new DoubleLinkedList<>();
+        IList<Double> resultY = new DoubleLinkedList<>();
+
+        // The expression is compiled once, with 'var' as its only parameter, and then evaluated
+        // a column of samples at a time. Short plots get columns just long enough to hold them.
+        double numSamples = Math.floor((varMax - varMin) / step) + 1;
+        int capacity = (int) Math.max(1, Math.min(numSamples, BatchCompiler.DEFAULT_CAPACITY));
+        BatchExpression expression = BatchCompiler.compile(node.getChild(0), env.getVariables(),
+                var.getName(), capacity);
+        double[] xs = new double[capacity];
+        double[] ys = new double[capacity];
+
+        // Plots with many more samples than the image has pixel columns stream their samples
+        // through a reducer that keeps only the few each column can show
+        int width = env.getImageDrawer().getWidth();
+        PixelColumnReducer reducer = null;
+        if (numSamples > MIN_SAMPLES_PER_PIXEL_TO_REDUCE * width) {
+            reducer = new PixelColumnReducer(varMin, varMax, width);
+        }
+
+        double currentX = varMin;
+        while (currentX <= varMax) {
+            int count = 0;
+            while (count < capacity && currentX <= varMax) {
+                xs[count] = currentX;
+                count++;
+                currentX += step;
+            }
+            expression.evaluate(xs, ys, count);
+            if (reducer != null) {
+                reducer.add(xs, ys, count);
+            } else {
+                for (int i = 0; i < count; i++) {
+                    resultX.add(xs[i]);
+                    resultY.add(ys[i]);
+                }
+            }
+        }
+        if (reducer != null) {
+            reducer.addTo(resultX, resultY);
+        }
+        env.getImageDrawer().drawScatterPlot("", "", "", resultX, resultY);
         
-        if (env.getVariables().containsKey(var.getName())) {
+        return new AstNode(1);
+    }
+
+    /**
+     * Accepts an Environment variable and a 'plotParallel(exprToPlot, var, varMin, varMax,
+     * step)' AstNode and generates the same plot as 'plot', computing the samples on all
+     * available processors. Returns some arbitrary AstNode.
+     *
+     * The range is split into blocks of samples that are evaluated at the same time, each with
+     * its own copy of the compiled expression, and each block streams its samples through a
+     * PixelColumnReducer of its own. The reducers are merged in range order before drawing, so
+     * like 'plot', this needs memory proportional to the width of the image rather than to the
+     * number of samples. Since no block can wait for the one before it, sample i is at
+     * x = varMin + i * step instead of at the sum of 'step' i times, so its x value may differ
+     * from the one 'plot' uses in the last few bits.
+     *
+     * @throws EvaluationError
+     *             in the same cases as 'plot'
+     */
+    public static AstNode plotParallel(Environment env, AstNode node) {
+        double[] range = checkPlot(env, node, "plotParallel");
+        double varMin = range[0];
+        double varMax = range[1];
+        double step = range[2];
+        AstNode var = node.getChild(1);
+
+        double numSamples = Math.floor((varMax - varMin) / step) + 1;
+        long count = (long) numSamples;
+        while (count > 1 && varMin + (count - 1) * step > varMax) {
+            count--;
+        }
+
+        // Plots short enough to draw every sample get a column narrower than 'step' per sample,
+        // so their reducers keep every sample
+        int width = env.getImageDrawer().getWidth();
+        int numColumns = numSamples > MIN_SAMPLES_PER_PIXEL_TO_REDUCE * width ? width : (int) count;
+
+        BatchExpression expression = BatchCompiler.compile(node.getChild(0), env.getVariables(), var.getName());
+        PixelColumnReducer reducer = ForkJoinPool.commonPool().invoke(
+                new SampleTask(expression, varMin, varMax, step, numColumns, 0, count));
+
+        IList<Double> resultX = new DoubleLinkedList<>();
+        IList<Double> resultY = new DoubleLinkedList<>();
+        reducer.addTo(resultX, resultY);
+        env.getImageDrawer().drawScatterPlot("", "", "", resultX, resultY);
+
+        return new AstNode(1);
+    }
+
+    /*
+     * reduces samples 'from' (inclusive) to 'to' (exclusive) of a parallel plot, by splitting
+     * them in half until there are few enough to be worth a task of their own, and merging the
+     * halves' reducers in order
+     */
+    private static class SampleTask extends RecursiveTask<PixelColumnReducer> {
+        private static final long serialVersionUID = 1L;
+
+        private final BatchExpression expression;
+        private final double varMin;
+        private final double varMax;
+        private final double step;
+        private final int numColumns;
+        private final long from;
+        private final long to;
+
+        public SampleTask(BatchExpression expression, double varMin, double varMax, double step,
+                          int numColumns, long from, long to) {
+            this.expression = expression;
+            this.varMin = varMin;
+            this.varMax = varMax;
+            this.step = step;
+            this.numColumns = numColumns;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected PixelColumnReducer compute() {
+            if (this.to - this.from > MIN_SAMPLES_PER_TASK) {
+                long middle = (this.from + this.to) >>> 1;
+                SampleTask left = new SampleTask(this.expression, this.varMin, this.varMax, this.step,
+                        this.numColumns, this.from, middle);
+                SampleTask right = new SampleTask(this.expression, this.varMin, this.varMax, this.step,
+                        this.numColumns, middle, this.to);
+                left.fork();
+                PixelColumnReducer rightReducer = right.compute();
+                PixelColumnReducer leftReducer = left.join();
+                leftReducer.addAll(rightReducer);
+                return leftReducer;
+            }
+
+            // The columns of a BatchExpression belong to one thread at a time
+            BatchExpression local = this.expression.copy();
+            PixelColumnReducer reducer = new PixelColumnReducer(this.varMin, this.varMax, this.numColumns);
+            double[] columnX = new double[local.getCapacity()];
+            double[] columnY = new double[local.getCapacity()];
+            for (long start = this.from; start < this.to; start += columnX.length) {
+                int count = (int) Math.min(columnX.length, this.to - start);
+                for (int i = 0; i < count; i++) {
+                    columnX[i] = this.varMin + (start + i) * this.step;
+                }
+                local.evaluate(columnX, columnY, count);
+                reducer.add(columnX, columnY, count);
+            }
+            return reducer;
+        }
+    }
+
+    /**
+     * Accepts an Environment variable and a 'plotAdaptive(exprToPlot, var, varMin, varMax,
+     * step)' AstNode and draws the same curve as 'plot' with far fewer samples. Returns some
+     * arbitrary AstNode.
+     *
+     * The curve starts as a coarse grid of samples. The interval whose midpoint is furthest from
+     * the straight line between its ends is then split in two, again and again, until every
+     * midpoint is within one pixel of its line (measured against the height of the image and the
+     * range of y values found so far) or until there are about ADAPTIVE_POINTS_PER_PIXEL samples
+     * per pixel of the image's width. Nearly straight parts of the curve therefore get few
+     * samples, and sharp bends get many. No interval is split into parts narrower than 'step',
+     * so this never takes more samples than 'plot' would. The samples are drawn joined by
+     * straight lines, since that is the curve the error is measured against; drawn on their
+     * own, the few samples of a nearly straight part would be a row of far-apart dots.
+     *
+     * @throws EvaluationError
+     *             in the same cases as 'plot'
+     */
+    public static AstNode plotAdaptive(Environment env, AstNode node) {
+        double[] range = checkPlot(env, node, "plotAdaptive");
+        double varMin = range[0];
+        double varMax = range[1];
+        double step = range[2];
+        AstNode var = node.getChild(1);
+
+        CompiledExpression expression = ExpressionCompiler.compile(node.getChild(0), env.getVariables(),
+                var.getName());
+        double[] frame = new double[1];
+        int height = env.getImageDrawer().getHeight();
+        double uniformSamples = Math.floor((varMax - varMin) / step) + 1;
+        int budget = (int) Math.min(uniformSamples, ADAPTIVE_POINTS_PER_PIXEL * env.getImageDrawer().getWidth());
+
+        int numIntervals = (int) Math.max(1, Math.min(ADAPTIVE_INITIAL_INTERVALS, uniformSamples - 1));
+        IPriorityQueue<Interval> queue = new ArrayHeap<>();
+        IList<Interval> done = new DoubleLinkedList<>();
+        double yMin = Double.POSITIVE_INFINITY;
+        double yMax = Double.NEGATIVE_INFINITY;
+
+        double left = varMin;
+        frame[0] = left;
+        double leftY = expression.evaluate(frame);
+        for (int i = 1; i <= numIntervals; i++) {
+            double right = i == numIntervals ? varMax : varMin + i * (varMax - varMin) / numIntervals;
+            frame[0] = right;
+            double rightY = expression.evaluate(frame);
+            queue.add(new Interval(expression, frame, left, leftY, right, rightY));
+            if (Double.isFinite(leftY)) {
+                yMin = Math.min(yMin, leftY);
+                yMax = Math.max(yMax, leftY);
+            }
+            left = right;
+            leftY = rightY;
+        }
+        if (Double.isFinite(leftY)) {
+            yMin = Math.min(yMin, leftY);
+            yMax = Math.max(yMax, leftY);
+        }
+
+        int numPoints = numIntervals + 1;
+        while (numPoints < budget && !queue.isEmpty()) {
+            Interval worst = queue.removeMin();
+            double tolerance = yMax > yMin ? (yMax - yMin) / height : 0.0;
+            if (!(worst.error > tolerance)) {
+                // This is the worst interval left, so every interval is close enough
+                done.add(worst);
+                break;
+            } else if (worst.right - worst.left < 2 * step) {
+                done.add(worst);
+                continue;
+            }
+            queue.add(new Interval(expression, frame, worst.left, worst.leftY, worst.middle, worst.middleY));
+            queue.add(new Interval(expression, frame, worst.middle, worst.middleY, worst.right, worst.rightY));
+            numPoints++;
+            if (Double.isFinite(worst.middleY)) {
+                yMin = Math.min(yMin, worst.middleY);
+                yMax = Math.max(yMax, worst.middleY);
+            }
+        }
+        while (!queue.isEmpty()) {
+            done.add(queue.removeMin());
+        }
+
+        // The intervals cover the range without overlapping, so their left ends in order, and
+        // then varMax, are the samples
+        Interval[] intervals = new Interval[done.size()];
+        int index = 0;
+        for (Interval interval : done) {
+            intervals[index] = interval;
+            index++;
+        }
+        Arrays.sort(intervals, (a, b) -> Double.compare(a.left, b.left));
+
+        IList<Double> resultX = new DoubleLinkedList<>();
+        IList<Double> resultY = new DoubleLinkedList<>();
+        for (Interval interval : intervals) {
+            resultX.add(interval.left);
+            resultY.add(interval.leftY);
+        }
+        if (varMax > varMin) {
+            resultX.add(varMax);
+            resultY.add(intervals[intervals.length - 1].rightY);
+        }
+        env.getImageDrawer().drawLinePlot("", "", "", resultX, resultY);
+
+        return new AstNode(1);
+    }
+
+    /*
+     * a part of the x range of an adaptive plot, with the values of the expression at both ends
+     * and in the middle; intervals whose middle is further from the line through their ends
+     * come first
+     */
+    private static class Interval implements Comparable<Interval> {
+        private final double left;
+        private final double leftY;
+        private final double right;
+        private final double rightY;
+        private final double middle;
+        private final double middleY;
+        private final double error;
+
+        public Interval(CompiledExpression expression, double[] frame,
+                        double left, double leftY, double right, double rightY) {
+            this.left = left;
+            this.leftY = leftY;
+            this.right = right;
+            this.rightY = rightY;
+            this.middle = left + (right - left) / 2;
+            frame[0] = this.middle;
+            this.middleY = expression.evaluate(frame);
+
+            boolean leftFinite = Double.isFinite(leftY);
+            boolean rightFinite = Double.isFinite(rightY);
+            boolean middleFinite = Double.isFinite(this.middleY);
+            if (leftFinite && rightFinite && middleFinite) {
+                this.error = Math.abs(this.middleY - (leftY + rightY) / 2);
+            } else if (leftFinite || rightFinite || middleFinite) {
+                // The curve ends or blows up somewhere in here, so find out where
+                this.error = Double.POSITIVE_INFINITY;
+            } else {
+                // There is nothing to draw
+                this.error = 0.0;
+            }
+        }
+
+        @Override
+        public int compareTo(Interval other) {
+            return Double.compare(other.error, this.error);
+        }
+    }
+
+    /*
+     * checks the arguments of a 'plot', 'plotParallel' or 'plotAdaptive' node, and returns its
+     * varMin, varMax and step, in that order
+     */
+    private static double[] checkPlot(Environment env, AstNode node, String name) {
+        assertNodeMatches(node, name, 5);
+        AstNode var = node.getChild(1);
+        testPlotError(env.getVariables(), node.getChild(0), var.getName());
+
+        if (var.isVariable() && VariableStore.lookup(env.getVariables(), var) != null) {
             throw new EvaluationError("variable not defined");
         }
 
@@ -240,27 +650,7 @@ public class ExpressionManipulators {
         if (step <= 0.0) {
             throw new EvaluationError("step cannot be less than or equal to 0");
         }
-
-        IList<Double> resultX = new DoubleLinkedList<>();
-        IList<Double> resultY = new DoubleLinkedList<>();
-
-        double currentX = varMin;
-        double currentY;
-        
-        while (currentX <= varMax) {
-            env.getVariables().put(var.getName(), new AstNode(currentX));
-            IList<AstNode> list = new DoubleLinkedList<>();
-            list.add(node.getChildren().get(0));
-            AstNode doDouble = new AstNode("toDouble", list);
-            currentY = handleToDouble(env, doDouble).getNumericValue();
-            resultY.add(currentY);
-            resultX.add(currentX);
-            currentX += step;
-            env.getVariables().remove(var.getName());
-        }
-        env.getImageDrawer().drawScatterPlot("", "", "", resultX, resultY);
-        
-        return new AstNode(1);
+        return new double[] {varMin, varMax, step};
     }
 
     /* 
@@ -269,14 +659,15 @@ public class ExpressionManipulators {
      */
     private static double test(Environment env, AstNode node, int index) {
         double result = -1;
-        if (node.getChildren().get(index).isOperation()) {
-            result = toDoubleHelper(env.getVariables(), node.getChildren().get(index));
-        } else if (node.getChildren().get(index).isVariable()) {
-            if (env.getVariables().containsKey(node.getChildren().get(index).getName())) {
-                result = env.getVariables().get(node.getChildren().get(index).getName()).getNumericValue();
+        if (node.getChild(index).isOperation()) {
+            result = toDoubleHelper(env.getVariables(), node.getChild(index));
+        } else if (node.getChild(index).isVariable()) {
+            AstNode value = VariableStore.lookup(env.getVariables(), node.getChild(index));
+            if (value != null) {
+                result = value.getNumericValue();
             }
         } else {
-            result = node.getChildren().get(index).getNumericValue();
+            result = node.getChild(index).getNumericValue();
         }
         return result;
     }
@@ -289,21 +680,28 @@ public class ExpressionManipulators {
         if (node.isNumber()) {
             return;
         } else if (node.isVariable()) {
-            if (node.getName().equals(var) || variables.containsKey(node.getName())) {
+            if (node.getName().equals(var) || VariableStore.lookup(variables, node) != null) {
                 return;
             } else {
                 throw new EvaluationError("variable not defined");
             }
         } else {
-            String name = node.getName();
-            if (name.equals("+") || name.equals("-") || name.equals("*") || name.equals("/") || name.equals("^")) {
-                testPlotError(variables, node.getChildren().get(0), var);
-                testPlotError(variables, node.getChildren().get(1), var);
-            } else if (node.getName().equals("negate") || node.getName().equals("sin")
-                    || node.getName().equals("cos")) {
-                testPlotError(variables, node.getChildren().get(0), var);
-            } else {
-                throw new EvaluationError("not valid approach");
+            switch (node.getOpcode()) {
+                case ADD:
+                case SUBTRACT:
+                case MULTIPLY:
+                case DIVIDE:
+                case POWER:
+                    testPlotError(variables, node.getChild(0), var);
+                    testPlotError(variables, node.getChild(1), var);
+                    break;
+                case NEGATE:
+                case SIN:
+                case COS:
+                    testPlotError(variables, node.getChild(0), var);
+                    break;
+                default:
+                    throw new EvaluationError("not valid approach");
             }
         }
     }
@@ -0,0 +1,66 @@
+package calculator.ast;
+
+import datastructures.concrete.dictionaries.ChainedHashDictionary;
+import datastructures.interfaces.IDictionary;
+
+/**
+ * Identifies what kind of value or operation an AstNode represents.
+ *
+ * Every AstNode looks its opcode up once, when it is built, so code that walks a tree can
+ * 'switch' on the opcode instead of comparing the operation name against each known name.
+ */
+public enum Opcode {
+    // Leaves
+    NUMBER(null),
+    VARIABLE(null),
+
+    // Arithmetic
+    ADD("+"),
+    SUBTRACT("-"),
+    MULTIPLY("*"),
+    DIVIDE("/"),
+    POWER("^"),
+    NEGATE("negate"),
+    SIN("sin"),
+    COS("cos"),
+
+    // Comparisons used by the control flow functions
+    GREATER("gr"),
+    SMALLER("sm"),
+    EQUAL("eq"),
+    NOT_EQUAL("nq"),
+
+    // Any other operation or function call; use the node's name to tell these apart
+    CALL(null);
+
+    private static final IDictionary<String, Opcode> BY_NAME = new ChainedHashDictionary<>();
+
+    static {
+        for (Opcode opcode : values()) {
+            if (opcode.name != null) {
+                BY_NAME.put(opcode.name, opcode);
+            }
+        }
+    }
+
+    private final String name;
+
+    Opcode(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Returns the operation name this opcode stands for, or null for NUMBER, VARIABLE and CALL.
+     */
+    public String getOperationName() {
+        return this.name;
+    }
+
+    /**
+     * Returns the opcode of the operation with the given name, or CALL if the name is not one
+     * of the operations listed above.
+     */
+    public static Opcode forOperation(String name) {
+        return BY_NAME.getOrDefault(name, CALL);
+    }
+}
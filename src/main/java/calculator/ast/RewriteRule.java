@@ -0,0 +1,17 @@
+package calculator.ast;
+
+/**
+ * A single rewrite, such as "x * 1 becomes x", that a Rewriter applies to the nodes of a tree.
+ *
+ * See Rewriter.
+ */
+public interface RewriteRule {
+    /**
+     * Returns the node that should replace the given one, or null if this rule doesn't apply to
+     * it. The children of the given node have already been rewritten as far as they go.
+     *
+     * Whatever a rule returns is rewritten again, so a rule must never return a node equal to
+     * the one it was given; it should return null instead.
+     */
+    AstNode rewrite(AstNode node);
+}
@@ -0,0 +1,119 @@
+package calculator.ast;
+
+import datastructures.concrete.dictionaries.ChainedHashDictionary;
+import datastructures.concrete.DoubleLinkedList;
+import datastructures.interfaces.IDictionary;
+import datastructures.interfaces.IList;
+
+/**
+ * Rewrites trees with a set of RewriteRules until none of them applies anywhere.
+ *
+ * Each rule is registered for the opcode of the nodes it rewrites, so only the rules that can
+ * possibly apply to a node are ever tried on it. A tree is rewritten bottom-up: first the
+ * children of a node, then the node itself, and whenever a rule replaces a node, the
+ * replacement is rewritten in turn. The result is a tree where no rule applies to any node.
+ *
+ * Within one call to 'rewrite', every subtree is rewritten only once, however often it occurs:
+ * results are remembered by the structure of the subtree they came from.
+ */
+public class Rewriter {
+    // Guards against rule sets that never settle, such as one that rewrites x + y to y + x
+    private static final int MAX_REWRITES = 100000;
+
+    // The rules for each opcode, indexed by the opcode's ordinal
+    private final IList<RewriteRule>[] rules;
+
+    /**
+     * Creates a rewriter with no rules, which leaves every tree as it is.
+     */
+    @SuppressWarnings("unchecked")
+    public Rewriter() {
+        this.rules = (IList<RewriteRule>[]) new IList[Opcode.values().length];
+        for (int i = 0; i < this.rules.length; i++) {
+            this.rules[i] = new DoubleLinkedList<>();
+        }
+    }
+
+    /**
+     * Returns a rewriter with the rules in AlgebraicRules.
+     */
+    public static Rewriter algebraic() {
+        Rewriter rewriter = new Rewriter();
+        AlgebraicRules.addTo(rewriter);
+        return rewriter;
+    }
+
+    /**
+     * Registers a rule for nodes with the given opcode. Rules for the same opcode are tried in
+     * the order they were added.
+     */
+    public void addRule(Opcode opcode, RewriteRule rule) {
+        this.rules[opcode.ordinal()].add(rule);
+    }
+
+    /**
+     * Returns the given tree, rewritten until none of the rules applies to any of its nodes.
+     *
+     * If the rules keep applying to each other's results, rewriting stops after a fixed number
+     * of rewrites, and the tree is returned as far as it got.
+     */
+    public AstNode rewrite(AstNode node) {
+        return new Pass().rewrite(node);
+    }
+
+    /*
+     * the state of a single call to 'rewrite'
+     */
+    private class Pass {
+        private final IDictionary<AstNode, AstNode> done = new ChainedHashDictionary<>();
+        private int rewritesLeft = MAX_REWRITES;
+
+        public AstNode rewrite(AstNode node) {
+            AstNode known = this.done.getOrNull(node);
+            if (known != null) {
+                return known;
+            }
+
+            AstNode result = this.rewriteChildren(node);
+            AstNode replacement = this.applyRule(result);
+            while (replacement != null) {
+                result = this.rewriteChildren(replacement);
+                replacement = this.applyRule(result);
+            }
+            this.done.put(node, result);
+            return result;
+        }
+
+        /*
+         * returns what the first rule that applies to the node replaces it with, or null if
+         * none applies
+         */
+        private AstNode applyRule(AstNode node) {
+            if (this.rewritesLeft == 0) {
+                return null;
+            }
+            for (RewriteRule rule : Rewriter.this.rules[node.getOpcode().ordinal()]) {
+                AstNode replacement = rule.rewrite(node);
+                if (replacement != null) {
+                    this.rewritesLeft--;
+                    return replacement;
+                }
+            }
+            return null;
+        }
+
+        private AstNode rewriteChildren(AstNode node) {
+            if (!node.isOperation()) {
+                return node;
+            }
+            IList<AstNode> children = new DoubleLinkedList<>();
+            boolean changed = false;
+            for (AstNode child : node.getChildren()) {
+                AstNode newChild = this.rewrite(child);
+                changed |= newChild != child;
+                children.add(newChild);
+            }
+            return changed ? new AstNode(node.getName(), children) : node;
+        }
+    }
+}
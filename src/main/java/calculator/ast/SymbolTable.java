@@ -0,0 +1,53 @@
+package calculator.ast;
+
+import datastructures.concrete.dictionaries.AdaptiveDictionary;
+import datastructures.interfaces.IDictionary;
+
+/**
+ * Gives every variable name a small integer "slot", so code that reads variables can keep them
+ * in an array instead of looking each one up by name.
+ *
+ * Each Calculator has a table of its own, owned by its VariableStore and handed to its Parser.
+ * A name gets its slot the first time the parser reads a variable with that name, or the first
+ * time the variable is assigned, and keeps it from then on. Slots are numbered 0, 1, 2, ... in
+ * the order names are first seen, so an array with 'size()' elements has room for every slot
+ * handed out so far.
+ *
+ * Variable nodes built with a table remember their slot (see AstNode.getSlot), so reading them
+ * needs neither hashing nor comparing their name. A table is not thread-safe.
+ */
+public class SymbolTable {
+    private final IDictionary<String, Integer> slots;
+
+    public SymbolTable() {
+        this.slots = new AdaptiveDictionary<>();
+    }
+
+    /**
+     * Returns the slot of the given name, giving it the next free slot if it has none yet.
+     */
+    public int slotOf(String name) {
+        Integer slot = this.slots.getOrNull(name);
+        if (slot != null) {
+            return slot;
+        }
+        int newSlot = this.slots.size();
+        this.slots.put(name, newSlot);
+        return newSlot;
+    }
+
+    /**
+     * Returns the slot of the given name, or -1 if the name has none.
+     */
+    public int find(String name) {
+        Integer slot = this.slots.getOrNull(name);
+        return slot == null ? -1 : slot;
+    }
+
+    /**
+     * Returns the number of slots handed out so far.
+     */
+    public int size() {
+        return this.slots.size();
+    }
+}
@@ -0,0 +1,163 @@
+package calculator.compiler;
+
+import calculator.ast.AstNode;
+import calculator.errors.EvaluationError;
+import datastructures.interfaces.IDictionary;
+
+import java.util.Arrays;
+
+/**
+ * Compiles 'toDouble'-style expressions of one parameter into BatchExpressions, which evaluate
+ * the expression at a whole column of values of the parameter at once.
+ *
+ * Variables other than the parameter are replaced by their values, subtrees that don't depend
+ * on the parameter are folded, and repeated subexpressions are shared, exactly as ExpressionDag
+ * does. Each distinct remaining operation becomes one instruction over columns, so a repeated
+ * subexpression is computed once per column. Columns for intermediate results are reused as
+ * soon as the last instruction that reads them has run, so an expression needs only about as
+ * many of them as its tree is deep.
+ */
+public class BatchCompiler {
+    // 1024 doubles is 8 KB, so the handful of columns an expression needs stays in the cache
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private int[] code;
+    private int codeLength;
+
+    // Temporary column i is kept as -(i + 1) until the code is finished, and is renumbered by
+    // 'finish' to come after the constants
+    private int numTemporaries;
+    private int[] freeTemporaries;
+    private int numFree;
+
+    private BatchCompiler() {
+        this.code = new int[16];
+        this.freeTemporaries = new int[4];
+    }
+
+    /**
+     * Compiles the given expression, with DEFAULT_CAPACITY values per column. 'parameter' is
+     * the name of the variable whose values are the column; every other variable is looked up
+     * in 'variables' now.
+     *
+     * @throws EvaluationError  if the expression contains an undefined variable
+     * @throws EvaluationError  if the expression uses an unknown operation
+     */
+    public static BatchExpression compile(AstNode expression, IDictionary<String, AstNode> variables,
+                                          String parameter) {
+        return compile(expression, variables, parameter, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Compiles the given expression as above, with the given number of values per column.
+     *
+     * @throws IllegalArgumentException  if 'capacity' is not positive
+     */
+    public static BatchExpression compile(AstNode expression, IDictionary<String, AstNode> variables,
+                                          String parameter, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        ExpressionDag dag = ExpressionDag.build(expression, variables, parameter);
+
+        BatchCompiler compiler = new BatchCompiler();
+        int result = compiler.compileDag(dag);
+        if (compiler.codeLength > 0 && result == compiler.code[compiler.codeLength - 3]) {
+            // The last instruction computes the result, so it can write it straight to the output
+            compiler.code[compiler.codeLength - 3] = BatchExpression.OUTPUT;
+        } else {
+            compiler.emit(BatchExpression.COPY, BatchExpression.OUTPUT, result, BatchExpression.INPUT);
+        }
+        return compiler.finish(dag.getConstants(), capacity);
+    }
+
+    /*
+     * emits one instruction for each operation of the DAG, and returns the column that holds
+     * the DAG's result
+     */
+    private int compileDag(ExpressionDag dag) {
+        // The parameter is the input column, and constant i is column i + 2
+        int firstOperation = dag.getFirstOperation();
+        int numOperations = dag.getNumOperations();
+        int[] columns = new int[firstOperation + numOperations];
+        int[] usesLeft = new int[columns.length];
+        for (int value = 0; value < columns.length; value++) {
+            columns[value] = value < dag.getNumParameters() ? BatchExpression.INPUT : value + 1;
+            usesLeft[value] = dag.getUses(value);
+        }
+
+        for (int i = 0; i < numOperations; i++) {
+            int left = dag.getLeft(i);
+            int right = dag.getRight(i);
+            int leftColumn = columns[left];
+            int rightColumn = right == -1 ? BatchExpression.INPUT : columns[right];
+            // Every instruction reads element i of its operands before writing element i of its
+            // result, so the result can go in a temporary column that one of the operands used,
+            // as long as no later instruction reads that operand
+            if (right != -1) {
+                this.use(right, columns, usesLeft);
+            }
+            this.use(left, columns, usesLeft);
+            int result = this.temporary();
+            this.emit(dag.getOpcode(i), result, leftColumn, rightColumn);
+            columns[firstOperation + i] = result;
+        }
+        return columns[dag.getResult()];
+    }
+
+    /*
+     * records that an instruction has read the given value, and frees its column if no other
+     * instruction will
+     */
+    private void use(int value, int[] columns, int[] usesLeft) {
+        usesLeft[value]--;
+        if (usesLeft[value] == 0) {
+            this.release(columns[value]);
+        }
+    }
+
+    private int temporary() {
+        if (this.numFree > 0) {
+            this.numFree--;
+            return this.freeTemporaries[this.numFree];
+        }
+        this.numTemporaries++;
+        return -this.numTemporaries;
+    }
+
+    private void release(int column) {
+        if (column < 0) {
+            if (this.numFree == this.freeTemporaries.length) {
+                this.freeTemporaries = Arrays.copyOf(this.freeTemporaries, 2 * this.numFree);
+            }
+            this.freeTemporaries[this.numFree] = column;
+            this.numFree++;
+        }
+    }
+
+    private void emit(int instruction, int result, int left, int right) {
+        if (this.codeLength + 4 > this.code.length) {
+            this.code = Arrays.copyOf(this.code, 2 * this.code.length);
+        }
+        this.code[this.codeLength] = instruction;
+        this.code[this.codeLength + 1] = result;
+        this.code[this.codeLength + 2] = left;
+        this.code[this.codeLength + 3] = right;
+        this.codeLength += 4;
+    }
+
+    /*
+     * gives the temporary columns their final numbers, after the constants
+     */
+    private BatchExpression finish(double[] constants, int capacity) {
+        int[] code = Arrays.copyOf(this.code, this.codeLength);
+        for (int k = 0; k < code.length; k += 4) {
+            for (int j = k + 1; j < k + 4; j++) {
+                if (code[j] < 0) {
+                    code[j] = 1 + constants.length - code[j];
+                }
+            }
+        }
+        return new BatchExpression(code, constants, this.numTemporaries, capacity);
+    }
+}
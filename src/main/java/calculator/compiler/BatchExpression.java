@@ -0,0 +1,144 @@
+package calculator.compiler;
+
+import java.util.Arrays;
+
+/**
+ * An expression that has been compiled by BatchCompiler, ready to be evaluated at a whole column
+ * of values of its parameter at once.
+ *
+ * Instead of walking the expression once per value, 'evaluate' runs each operation over the
+ * whole column before moving on to the next operation. Each operation is then a short counted
+ * loop over arrays, which the JIT turns into vector instructions where the processor has them
+ * (for + - * / and negate), and the cost of dispatching on the operation is paid once per
+ * column instead of once per value.
+ *
+ * Intermediate results are kept in columns owned by this object, so a BatchExpression must not
+ * be used by more than one thread at a time; see 'copy'.
+ */
+public class BatchExpression {
+    // Each instruction is four ints: an opcode, the column it writes, and the one or two columns
+    // it reads (the fourth int is unused by unary instructions)
+    static final int ADD = 0;
+    static final int SUBTRACT = 1;
+    static final int MULTIPLY = 2;
+    static final int DIVIDE = 3;
+    static final int POWER = 4;
+    static final int NEGATE = 5;
+    static final int SIN = 6;
+    static final int COS = 7;
+    static final int COPY = 8;
+
+    // Column 0 is the parameter and column 1 is the result; both are the caller's arrays
+    static final int INPUT = 0;
+    static final int OUTPUT = 1;
+
+    private final int[] code;
+    private final double[] constants;
+    private final int numTemporaries;
+    private final double[][] columns;
+    private final int capacity;
+
+    /*
+     * columns 2 and up hold the given constants, one per column, followed by 'numTemporaries'
+     * columns for intermediate results
+     */
+    BatchExpression(int[] code, double[] constants, int numTemporaries, int capacity) {
+        this.code = code;
+        this.constants = constants;
+        this.numTemporaries = numTemporaries;
+        this.capacity = capacity;
+        this.columns = new double[2 + constants.length + numTemporaries][];
+        for (int i = 2; i < this.columns.length; i++) {
+            this.columns[i] = new double[capacity];
+        }
+        for (int i = 0; i < constants.length; i++) {
+            Arrays.fill(this.columns[i + 2], constants[i]);
+        }
+    }
+
+    /**
+     * Returns a new BatchExpression for the same expression, with columns of its own, so each
+     * thread that evaluates the expression can use its own copy.
+     */
+    public BatchExpression copy() {
+        return new BatchExpression(this.code, this.constants, this.numTemporaries, this.capacity);
+    }
+
+    /**
+     * Returns the greatest number of values one call to 'evaluate' can handle.
+     */
+    public int getCapacity() {
+        return this.capacity;
+    }
+
+    /**
+     * Sets ys[i] to the value of the expression when its parameter is xs[i], for every i less
+     * than 'count'. Each ys[i] is bit-for-bit the value 'toDouble' would give. 'xs' and 'ys'
+     * must be different arrays.
+     *
+     * @throws IllegalArgumentException  if 'count' is greater than the capacity or either
+     *                                   array is shorter than 'count'
+     */
+    public void evaluate(double[] xs, double[] ys, int count) {
+        if (count > this.capacity || xs.length < count || ys.length < count) {
+            throw new IllegalArgumentException("columns must hold 'count' values, at most the capacity");
+        }
+        double[][] columns = this.columns;
+        columns[INPUT] = xs;
+        columns[OUTPUT] = ys;
+        int[] code = this.code;
+        for (int k = 0; k < code.length; k += 4) {
+            double[] result = columns[code[k + 1]];
+            double[] left = columns[code[k + 2]];
+            double[] right = columns[code[k + 3]];
+            switch (code[k]) {
+                case ADD:
+                    for (int i = 0; i < count; i++) {
+                        result[i] = left[i] + right[i];
+                    }
+                    break;
+                case SUBTRACT:
+                    for (int i = 0; i < count; i++) {
+                        result[i] = left[i] - right[i];
+                    }
+                    break;
+                case MULTIPLY:
+                    for (int i = 0; i < count; i++) {
+                        result[i] = left[i] * right[i];
+                    }
+                    break;
+                case DIVIDE:
+                    for (int i = 0; i < count; i++) {
+                        result[i] = left[i] / right[i];
+                    }
+                    break;
+                case POWER:
+                    for (int i = 0; i < count; i++) {
+                        result[i] = Math.pow(left[i], right[i]);
+                    }
+                    break;
+                case NEGATE:
+                    for (int i = 0; i < count; i++) {
+                        result[i] = -left[i];
+                    }
+                    break;
+                case SIN:
+                    for (int i = 0; i < count; i++) {
+                        result[i] = Math.sin(left[i]);
+                    }
+                    break;
+                case COS:
+                    for (int i = 0; i < count; i++) {
+                        result[i] = Math.cos(left[i]);
+                    }
+                    break;
+                default: // when opcode is COPY
+                    System.arraycopy(left, 0, result, 0, count);
+                    break;
+            }
+        }
+        // Don't keep the caller's arrays alive
+        columns[INPUT] = null;
+        columns[OUTPUT] = null;
+    }
+}
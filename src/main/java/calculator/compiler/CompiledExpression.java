@@ -0,0 +1,14 @@
+package calculator.compiler;
+
+/**
+ * An expression that has been compiled by ExpressionCompiler, ready to be evaluated many times.
+ *
+ * The expression reads its parameters from a "frame": parameter i of the compilation is
+ * frame[i]. Everything else the expression refers to was resolved when it was compiled.
+ */
+public interface CompiledExpression {
+    /**
+     * Returns the value of this expression when its parameters have the values in 'frame'.
+     */
+    double evaluate(double[] frame);
+}
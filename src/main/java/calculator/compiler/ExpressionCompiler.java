@@ -0,0 +1,227 @@
+package calculator.compiler;
+
+import calculator.ast.AstNode;
+import calculator.errors.EvaluationError;
+import calculator.interpreter.VariableStore;
+import datastructures.concrete.DoubleLinkedList;
+import datastructures.interfaces.IDictionary;
+import datastructures.interfaces.IList;
+
+/**
+ * Turns 'toDouble'-style expressions into trees of closures.
+ *
+ * Evaluating an AstNode directly means comparing operation names and looking variables up in a
+ * dictionary at every node, every time. Compiling does that work once: each operation becomes
+ * a closure that already knows which arithmetic to do and which closures compute its operands,
+ * and each variable becomes either a read from the frame (for the parameters) or the compiled
+ * form of the variable's value.
+ *
+ * Parts of the expression that don't depend on any parameter are computed once while compiling.
+ * The compiled expression always produces exactly the same double that 'toDouble' would.
+ */
+public class ExpressionCompiler {
+    /**
+     * Compiles the given expression. Parameter i is read from frame[i] when the result is
+     * evaluated; every other variable is looked up in 'variables' now, so later changes to
+     * 'variables' don't affect the compiled expression.
+     *
+     * @throws EvaluationError  if the expression contains an undefined variable
+     * @throws EvaluationError  if the expression uses an unknown operation
+     */
+    public static CompiledExpression compile(AstNode expression, IDictionary<String, AstNode> variables,
+                                             String... parameters) {
+        return compileHelper(expression, variables, parameters);
+    }
+
+    /**
+     * Returns the expression with every variable other than the parameters replaced by its
+     * value, and every subtree that doesn't depend on a parameter replaced by the number it
+     * evaluates to.
+     *
+     * @throws EvaluationError  if the expression contains an undefined variable
+     * @throws EvaluationError  if the expression uses an unknown operation
+     */
+    public static AstNode fold(AstNode node, IDictionary<String, AstNode> variables, String[] parameters) {
+        if (node.isNumber()) {
+            return node;
+        } else if (node.isVariable()) {
+            if (isParameter(parameters, node.getName())) {
+                return node;
+            }
+            AstNode value = VariableStore.lookup(variables, node);
+            if (value == null) {
+                throw new EvaluationError("variable not defined");
+            }
+            return fold(value, variables, parameters);
+        }
+
+        int arity;
+        switch (node.getOpcode()) {
+            case SIN:
+            case COS:
+            case NEGATE:
+                arity = 1;
+                break;
+            case ADD:
+            case SUBTRACT:
+            case MULTIPLY:
+            case DIVIDE:
+            case POWER:
+                arity = 2;
+                break;
+            default:
+                throw new EvaluationError("invalid operation");
+        }
+
+        IList<AstNode> children = new DoubleLinkedList<>();
+        boolean constant = true;
+        for (int i = 0; i < arity; i++) {
+            AstNode child = fold(node.getChild(i), variables, parameters);
+            constant = constant && child.isNumber();
+            children.add(child);
+        }
+        AstNode result = new AstNode(node.getName(), children);
+        if (constant) {
+            // Every operand is a number, so these closures are evaluated right away
+            return new AstNode(compile(result, variables).evaluate(null));
+        }
+        return result;
+    }
+
+    private static boolean isParameter(String[] parameters, String name) {
+        for (String parameter : parameters) {
+            if (parameter.equals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static CompiledExpression compileHelper(AstNode node, IDictionary<String, AstNode> variables,
+                                                    String[] parameters) {
+        if (node.isNumber()) {
+            return new Constant(node.getNumericValue());
+        } else if (node.isVariable()) {
+            String name = node.getName();
+            for (int i = 0; i < parameters.length; i++) {
+                if (parameters[i].equals(name)) {
+                    int slot = i;
+                    return frame -> frame[slot];
+                }
+            }
+            AstNode value = VariableStore.lookup(variables, node);
+            if (value == null) {
+                throw new EvaluationError("variable not defined");
+            }
+            return compileHelper(value, variables, parameters);
+        }
+
+        switch (node.getOpcode()) {
+            case SIN:
+            case COS:
+            case NEGATE:
+                return compileUnary(node, compileHelper(node.getChild(0), variables, parameters));
+            case ADD:
+            case SUBTRACT:
+            case MULTIPLY:
+            case DIVIDE:
+            case POWER:
+                return compileBinary(node,
+                        compileHelper(node.getChild(0), variables, parameters),
+                        compileHelper(node.getChild(1), variables, parameters));
+            default:
+                throw new EvaluationError("invalid operation");
+        }
+    }
+
+    private static CompiledExpression compileUnary(AstNode node, CompiledExpression operand) {
+        CompiledExpression result;
+        switch (node.getOpcode()) {
+            case SIN:
+                result = frame -> Math.sin(operand.evaluate(frame));
+                break;
+            case COS:
+                result = frame -> Math.cos(operand.evaluate(frame));
+                break;
+            default: // when opcode is NEGATE
+                result = frame -> -operand.evaluate(frame);
+                break;
+        }
+        return operand instanceof Constant ? new Constant(result.evaluate(null)) : result;
+    }
+
+    private static CompiledExpression compileBinary(AstNode node, CompiledExpression left,
+                                                    CompiledExpression right) {
+        if (left instanceof Constant && right instanceof Constant) {
+            double value = compileBinary(node, left, (Constant) right).evaluate(null);
+            return new Constant(value);
+        } else if (right instanceof Constant) {
+            return compileBinary(node, left, (Constant) right);
+        } else if (left instanceof Constant) {
+            return compileBinary(node, (Constant) left, right);
+        }
+        switch (node.getOpcode()) {
+            case ADD:
+                return frame -> left.evaluate(frame) + right.evaluate(frame);
+            case SUBTRACT:
+                return frame -> left.evaluate(frame) - right.evaluate(frame);
+            case MULTIPLY:
+                return frame -> left.evaluate(frame) * right.evaluate(frame);
+            case DIVIDE:
+                return frame -> left.evaluate(frame) / right.evaluate(frame);
+            default: // when opcode is POWER
+                return frame -> Math.pow(left.evaluate(frame), right.evaluate(frame));
+        }
+    }
+
+    // The two versions below fold a constant operand into the closure itself, which saves a
+    // call per evaluation for expressions like 'x ^ 2' and '3 * x'
+
+    private static CompiledExpression compileBinary(AstNode node, CompiledExpression left, Constant right) {
+        double value = right.value;
+        switch (node.getOpcode()) {
+            case ADD:
+                return frame -> left.evaluate(frame) + value;
+            case SUBTRACT:
+                return frame -> left.evaluate(frame) - value;
+            case MULTIPLY:
+                return frame -> left.evaluate(frame) * value;
+            case DIVIDE:
+                return frame -> left.evaluate(frame) / value;
+            default: // when opcode is POWER
+                return frame -> Math.pow(left.evaluate(frame), value);
+        }
+    }
+
+    private static CompiledExpression compileBinary(AstNode node, Constant left, CompiledExpression right) {
+        double value = left.value;
+        switch (node.getOpcode()) {
+            case ADD:
+                return frame -> value + right.evaluate(frame);
+            case SUBTRACT:
+                return frame -> value - right.evaluate(frame);
+            case MULTIPLY:
+                return frame -> value * right.evaluate(frame);
+            case DIVIDE:
+                return frame -> value / right.evaluate(frame);
+            default: // when opcode is POWER
+                return frame -> Math.pow(value, right.evaluate(frame));
+        }
+    }
+
+    /*
+     * an expression that doesn't depend on the frame at all
+     */
+    private static class Constant implements CompiledExpression {
+        private final double value;
+
+        public Constant(double value) {
+            this.value = value;
+        }
+
+        @Override
+        public double evaluate(double[] frame) {
+            return this.value;
+        }
+    }
+}
@@ -0,0 +1,318 @@
+package calculator.compiler;
+
+import calculator.ast.AstInterner;
+import calculator.ast.AstNode;
+import calculator.errors.EvaluationError;
+import datastructures.concrete.dictionaries.ChainedHashDictionary;
+import datastructures.interfaces.IDictionary;
+
+import java.util.Arrays;
+
+/**
+ * A 'toDouble'-style expression with its common subexpressions eliminated: every distinct
+ * subexpression is computed once per evaluation, however many times it appears in the tree.
+ *
+ * The expression is first folded (see ExpressionCompiler.fold), then interned, which turns
+ * the tree into a DAG where equal subtrees are one shared node. Each node of the DAG is given a
+ * number, and each operation becomes one instruction that computes its numbered value from the
+ * values of its operands. Values 0 to numParameters - 1 are the parameters, followed by the
+ * constants, followed by the operations in an order where every operation comes after its
+ * operands.
+ *
+ * 'evaluate' runs the instructions over an array of values, so a subexpression such as sin(x)
+ * in "sin(x) ^ 2 + sin(x) * cos(x)" is computed once, and read twice. BatchCompiler compiles
+ * from this same numbering, so plots get the same saving.
+ */
+public class ExpressionDag implements CompiledExpression {
+    private final int numParameters;
+    private final double[] constants;
+
+    // Each instruction is three ints: the operation, as one of BatchExpression's opcodes, and
+    // the values of its one or two operands (unary operations repeat their operand).
+    // Instruction i computes value 'firstOperation + i'.
+    private final int[] code;
+    private final int firstOperation;
+    private final int result;
+
+    // For each value, the number of instructions that read it
+    private final int[] uses;
+    private final int treeSize;
+
+    private ExpressionDag(int numParameters, double[] constants, int[] code, int result,
+                          int[] uses, int treeSize) {
+        this.numParameters = numParameters;
+        this.constants = constants;
+        this.code = code;
+        this.firstOperation = numParameters + constants.length;
+        this.result = result;
+        this.uses = uses;
+        this.treeSize = treeSize;
+    }
+
+    /**
+     * Builds the DAG of the given expression, with the same meaning for 'variables' and
+     * 'parameters' as ExpressionCompiler.compile.
+     *
+     * @throws EvaluationError  if the expression contains an undefined variable
+     * @throws EvaluationError  if the expression uses an unknown operation
+     */
+    public static ExpressionDag build(AstNode expression, IDictionary<String, AstNode> variables,
+                                      String... parameters) {
+        AstNode folded = ExpressionCompiler.fold(expression, variables, parameters);
+        return new Builder(parameters).build(folded);
+    }
+
+    /**
+     * Returns the number of nodes in the expression's tree, after folding.
+     */
+    public int getTreeSize() {
+        return this.treeSize;
+    }
+
+    /**
+     * Returns the number of distinct values the expression computes or reads: one for each
+     * parameter, constant and operation.
+     */
+    public int getNumValues() {
+        return this.firstOperation + this.getNumOperations();
+    }
+
+    /**
+     * Returns the number of operations one evaluation performs.
+     */
+    public int getNumOperations() {
+        return this.code.length / 3;
+    }
+
+    /**
+     * Returns the number of operations whose value is read by more than one other operation.
+     */
+    public int getNumShared() {
+        int count = 0;
+        for (int value = this.firstOperation; value < this.uses.length; value++) {
+            if (this.uses[value] > 1) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /*
+     * returns the value of the expression, computing each distinct subexpression once;
+     * bit-for-bit the value 'toDouble' would give
+     * @see calculator.compiler.CompiledExpression#evaluate(double[])
+     */
+    @Override
+    public double evaluate(double[] frame) {
+        double[] values = new double[this.uses.length];
+        System.arraycopy(frame, 0, values, 0, this.numParameters);
+        System.arraycopy(this.constants, 0, values, this.numParameters, this.constants.length);
+        int[] code = this.code;
+        int value = this.firstOperation;
+        for (int k = 0; k < code.length; k += 3) {
+            double left = values[code[k + 1]];
+            double right = values[code[k + 2]];
+            double out;
+            switch (code[k]) {
+                case BatchExpression.ADD:
+                    out = left + right;
+                    break;
+                case BatchExpression.SUBTRACT:
+                    out = left - right;
+                    break;
+                case BatchExpression.MULTIPLY:
+                    out = left * right;
+                    break;
+                case BatchExpression.DIVIDE:
+                    out = left / right;
+                    break;
+                case BatchExpression.POWER:
+                    out = Math.pow(left, right);
+                    break;
+                case BatchExpression.NEGATE:
+                    out = -left;
+                    break;
+                case BatchExpression.SIN:
+                    out = Math.sin(left);
+                    break;
+                default: // when opcode is COS
+                    out = Math.cos(left);
+                    break;
+            }
+            values[value] = out;
+            value++;
+        }
+        return values[this.result];
+    }
+
+    /*
+     * package-private views for BatchCompiler
+     */
+
+    int getNumParameters() {
+        return this.numParameters;
+    }
+
+    double[] getConstants() {
+        return this.constants;
+    }
+
+    int getFirstOperation() {
+        return this.firstOperation;
+    }
+
+    int getResult() {
+        return this.result;
+    }
+
+    int getOpcode(int operation) {
+        return this.code[3 * operation];
+    }
+
+    int getLeft(int operation) {
+        return this.code[3 * operation + 1];
+    }
+
+    /*
+     * returns the right operand of the operation, or -1 if the operation is unary
+     */
+    int getRight(int operation) {
+        return isUnary(this.code[3 * operation]) ? -1 : this.code[3 * operation + 2];
+    }
+
+    int getUses(int value) {
+        return this.uses[value];
+    }
+
+    private static boolean isUnary(int opcode) {
+        return opcode == BatchExpression.NEGATE || opcode == BatchExpression.SIN || opcode == BatchExpression.COS;
+    }
+
+    /*
+     * numbers the nodes of a folded tree
+     */
+    private static class Builder {
+        private final String[] parameters;
+        private final AstInterner interner;
+        private final IDictionary<AstNode, Integer> numbers;
+
+        private double[] constants;
+        private int numConstants;
+
+        // Operations are numbered -(i + 1) until the number of constants is known, and are
+        // renumbered by 'build'
+        private int[] code;
+        private int codeLength;
+
+        public Builder(String[] parameters) {
+            this.parameters = parameters;
+            this.interner = new AstInterner();
+            this.numbers = new ChainedHashDictionary<>();
+            this.constants = new double[4];
+            this.code = new int[12];
+        }
+
+        public ExpressionDag build(AstNode folded) {
+            int result = this.number(this.interner.intern(folded));
+            int treeSize = countNodes(folded);
+            int numParameters = this.parameters.length;
+            int firstOperation = numParameters + this.numConstants;
+            int[] code = Arrays.copyOf(this.code, this.codeLength);
+            int[] uses = new int[firstOperation + this.codeLength / 3];
+            for (int k = 0; k < code.length; k += 3) {
+                for (int j = k + 1; j < k + 3; j++) {
+                    code[j] = renumber(code[j], firstOperation);
+                }
+                uses[code[k + 1]]++;
+                if (isUnary(code[k])) {
+                    code[k + 2] = code[k + 1];
+                } else {
+                    uses[code[k + 2]]++;
+                }
+            }
+            return new ExpressionDag(numParameters, Arrays.copyOf(this.constants, this.numConstants), code,
+                    renumber(result, firstOperation), uses, treeSize);
+        }
+
+        /*
+         * returns the number of the given canonical node, numbering it and everything below it
+         * that wasn't numbered yet
+         */
+        private int number(AstNode node) {
+            Integer known = this.numbers.getOrNull(node);
+            if (known != null) {
+                return known;
+            }
+
+            int number;
+            if (node.isNumber()) {
+                number = this.constant(node.getNumericValue());
+            } else if (node.isVariable()) {
+                // 'fold' leaves only parameters as variables
+                number = Arrays.asList(this.parameters).indexOf(node.getName());
+            } else {
+                int left = this.number(node.getChild(0));
+                int right = node.getNumChildren() == 2 ? this.number(node.getChild(1)) : 0;
+                number = this.emit(opcodeOf(node), left, right);
+            }
+            this.numbers.put(node, number);
+            return number;
+        }
+
+        private int constant(double value) {
+            if (this.numConstants == this.constants.length) {
+                this.constants = Arrays.copyOf(this.constants, 2 * this.numConstants);
+            }
+            this.constants[this.numConstants] = value;
+            this.numConstants++;
+            return this.parameters.length + this.numConstants - 1;
+        }
+
+        private int emit(int opcode, int left, int right) {
+            if (this.codeLength + 3 > this.code.length) {
+                this.code = Arrays.copyOf(this.code, 2 * this.code.length);
+            }
+            this.code[this.codeLength] = opcode;
+            this.code[this.codeLength + 1] = left;
+            this.code[this.codeLength + 2] = right;
+            this.codeLength += 3;
+            return -(this.codeLength / 3);
+        }
+
+        private static int renumber(int number, int firstOperation) {
+            return number < 0 ? firstOperation - number - 1 : number;
+        }
+
+        private static int countNodes(AstNode node) {
+            int count = 1;
+            for (AstNode child : node.getChildren()) {
+                count += countNodes(child);
+            }
+            return count;
+        }
+
+        private static int opcodeOf(AstNode node) {
+            switch (node.getOpcode()) {
+                case ADD:
+                    return BatchExpression.ADD;
+                case SUBTRACT:
+                    return BatchExpression.SUBTRACT;
+                case MULTIPLY:
+                    return BatchExpression.MULTIPLY;
+                case DIVIDE:
+                    return BatchExpression.DIVIDE;
+                case POWER:
+                    return BatchExpression.POWER;
+                case NEGATE:
+                    return BatchExpression.NEGATE;
+                case SIN:
+                    return BatchExpression.SIN;
+                case COS:
+                    return BatchExpression.COS;
+                default:
+                    // 'fold' rejects every other operation
+                    throw new EvaluationError("invalid operation");
+            }
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package calculator.compiler;
+
+import calculator.errors.EvaluationError;
+
+/**
+ * A calculator program compiled by ProgramCompiler into a flat array of instructions.
+ *
+ * Each instruction is an opcode followed by its operands, all stored in one int array. Numbers
+ * are pushed from a table of constants, and variables live in numbered "slots": running the
+ * program reads and writes a double array with one entry per slot instead of looking names up
+ * in a dictionary. Intermediate results go on a stack whose greatest depth is known when the
+ * program is compiled, so the stack is allocated once per run and no step of a run allocates
+ * anything, however deep the expression or however many times a loop goes around.
+ */
+public class Program {
+    // push constants[operand]
+    static final int CONST = 0;
+    // push slots[operand]
+    static final int LOAD = 1;
+    // pop a value into slots[operand]
+    static final int STORE = 2;
+    // push another copy of the top of the stack
+    static final int DUP = 3;
+
+    // pop the right operand, then the left one, and push the result
+    static final int ADD = 4;
+    static final int SUBTRACT = 5;
+    static final int MULTIPLY = 6;
+    static final int DIVIDE = 7;
+    static final int POWER = 8;
+
+    // replace the top of the stack with the result
+    static final int NEGATE = 9;
+    static final int SIN = 10;
+    static final int COS = 11;
+
+    // comparisons, which push the same values the 'if' and 'while' conditions produce
+    static final int GREATER = 12;
+    static final int SMALLER = 13;
+    static final int EQUAL = 14;
+    static final int NOT_EQUAL = 15;
+
+    // continue at the instruction at index operand (if the popped value is, or isn't, 0)
+    static final int JUMP = 16;
+    static final int JUMP_IF_ZERO = 17;
+    static final int JUMP_IF_NOT_ZERO = 18;
+
+    // pop a repetition count into slots[operand], failing if it is less than 1
+    static final int COUNT = 19;
+    // subtract 1 from slots[operand0] and continue at operand1 if the result is positive
+    static final int LOOP = 20;
+    // fail if slots[operand0] (a step number) is greater than slots[operand1] (a limit)
+    static final int CHECK_LIMIT = 21;
+    // add 1 to slots[operand]
+    static final int INCREMENT = 22;
+    // pop the result of the program and stop
+    static final int RETURN = 23;
+
+    private final int[] code;
+    private final double[] constants;
+    private final String[] slotNames;
+    private final boolean[] assigned;
+    private final int maxStack;
+
+    Program(int[] code, double[] constants, String[] slotNames, boolean[] assigned, int maxStack) {
+        this.code = code;
+        this.constants = constants;
+        this.slotNames = slotNames;
+        this.assigned = assigned;
+        this.maxStack = maxStack;
+    }
+
+    /**
+     * Returns the number of slots a frame for this program needs.
+     */
+    public int getNumSlots() {
+        return this.slotNames.length;
+    }
+
+    /**
+     * Returns the name of the variable kept in the given slot, or null if the slot is used by
+     * the program itself (for example, as a loop counter) and needs no initial value.
+     */
+    public String getSlotName(int slot) {
+        return this.slotNames[slot];
+    }
+
+    /**
+     * Returns 'true' if running the program may change the value in the given variable slot.
+     */
+    public boolean isAssigned(int slot) {
+        return this.assigned[slot];
+    }
+
+    /**
+     * Returns the number of ints in this program's instruction array.
+     */
+    public int getCodeLength() {
+        return this.code.length;
+    }
+
+    /**
+     * Runs the program. 'slots' must have getNumSlots() entries, with the value of every named
+     * variable in its slot; the variables the program assigns are updated in place.
+     *
+     * @throws EvaluationError  if a 'repeat' count is less than 1
+     * @throws EvaluationError  if a 'while' loop goes around more times than its limit allows
+     */
+    public double run(double[] slots) {
+        int[] code = this.code;
+        double[] constants = this.constants;
+        double[] stack = new double[this.maxStack];
+        int top = -1;
+        int pc = 0;
+        while (true) {
+            switch (code[pc]) {
+                case CONST:
+                    stack[++top] = constants[code[pc + 1]];
+                    pc += 2;
+                    break;
+                case LOAD:
+                    stack[++top] = slots[code[pc + 1]];
+                    pc += 2;
+                    break;
+                case STORE:
+                    slots[code[pc + 1]] = stack[top--];
+                    pc += 2;
+                    break;
+                case DUP:
+                    stack[top + 1] = stack[top];
+                    top++;
+                    pc++;
+                    break;
+                case ADD:
+                    top--;
+                    stack[top] = stack[top] + stack[top + 1];
+                    pc++;
+                    break;
+                case SUBTRACT:
+                    top--;
+                    stack[top] = stack[top] - stack[top + 1];
+                    pc++;
+                    break;
+                case MULTIPLY:
+                    top--;
+                    stack[top] = stack[top] * stack[top + 1];
+                    pc++;
+                    break;
+                case DIVIDE:
+                    top--;
+                    stack[top] = stack[top] / stack[top + 1];
+                    pc++;
+                    break;
+                case POWER:
+                    top--;
+                    stack[top] = Math.pow(stack[top], stack[top + 1]);
+                    pc++;
+                    break;
+                case NEGATE:
+                    stack[top] = -stack[top];
+                    pc++;
+                    break;
+                case SIN:
+                    stack[top] = Math.sin(stack[top]);
+                    pc++;
+                    break;
+                case COS:
+                    stack[top] = Math.cos(stack[top]);
+                    pc++;
+                    break;
+                case GREATER:
+                    top--;
+                    stack[top] = stack[top] > stack[top + 1] ? stack[top] - stack[top + 1] : 0;
+                    pc++;
+                    break;
+                case SMALLER:
+                    top--;
+                    stack[top] = stack[top] < stack[top + 1] ? stack[top + 1] - stack[top] : 0;
+                    pc++;
+                    break;
+                case EQUAL:
+                    top--;
+                    stack[top] = stack[top] == stack[top + 1] ? 1 : 0;
+                    pc++;
+                    break;
+                case NOT_EQUAL:
+                    top--;
+                    stack[top] = stack[top] - stack[top + 1];
+                    pc++;
+                    break;
+                case JUMP:
+                    pc = code[pc + 1];
+                    break;
+                case JUMP_IF_ZERO:
+                    pc = stack[top--] == 0.0 ? code[pc + 1] : pc + 2;
+                    break;
+                case JUMP_IF_NOT_ZERO:
+                    pc = stack[top--] != 0.0 ? code[pc + 1] : pc + 2;
+                    break;
+                case COUNT:
+                    int count = (int) stack[top--];
+                    if (count < 1) {
+                        throw new EvaluationError("invalid repitition");
+                    }
+                    slots[code[pc + 1]] = count;
+                    pc += 2;
+                    break;
+                case LOOP:
+                    slots[code[pc + 1]]--;
+                    pc = slots[code[pc + 1]] > 0 ? code[pc + 2] : pc + 3;
+                    break;
+                case CHECK_LIMIT:
+                    if (slots[code[pc + 1]] > slots[code[pc + 2]]) {
+                        throw new EvaluationError("too long loop");
+                    }
+                    pc += 3;
+                    break;
+                case INCREMENT:
+                    slots[code[pc + 1]]++;
+                    pc += 2;
+                    break;
+                default: // when opcode is RETURN
+                    return stack[top];
+            }
+        }
+    }
+}
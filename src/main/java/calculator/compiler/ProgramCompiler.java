@@ -0,0 +1,375 @@
+package calculator.compiler;
+
+import calculator.ast.AstNode;
+import calculator.ast.Opcode;
+import calculator.errors.EvaluationError;
+import datastructures.concrete.dictionaries.ChainedHashDictionary;
+import datastructures.interfaces.IDictionary;
+
+import java.util.Arrays;
+
+/**
+ * Compiles calculator programs into Programs: flat instruction arrays run by a single loop.
+ *
+ * A program may use numbers, variables, arithmetic, 'sin', 'cos', 'negate', the comparisons
+ * 'gr', 'sm', 'eq' and 'nq', and the control flow functions 'if', 'repeat' and 'while'. Every
+ * value is a double, as with 'toDouble'. The control flow functions behave exactly like their
+ * handlers in ControlFlowManipulators: 'repeat' and 'while' assign each result of their body to
+ * the leftmost variable of the body, and 'while' assigns each new value of its condition to
+ * the leftmost variable of the condition. Calls to 'simplify' and 'toDouble' are compiled as
+ * the expression they contain, since both leave a number unchanged.
+ */
+public class ProgramCompiler {
+    private int[] code;
+    private int codeLength;
+    private double[] constants;
+    private int numConstants;
+    private IDictionary<String, Integer> slots;
+    private String[] slotNames;
+    private boolean[] assigned;
+    private int numSlots;
+    private int depth;
+    private int maxDepth;
+
+    private ProgramCompiler() {
+        this.code = new int[16];
+        this.constants = new double[4];
+        this.slots = new ChainedHashDictionary<>();
+        this.slotNames = new String[4];
+        this.assigned = new boolean[4];
+    }
+
+    /**
+     * Compiles the given program.
+     *
+     * @throws EvaluationError  if the program uses an operation or function listed as unsupported
+     *                          above, or a loop whose body or condition has no variable to assign
+     */
+    public static Program compile(AstNode program) {
+        ProgramCompiler compiler = new ProgramCompiler();
+        compiler.compileNode(program);
+        compiler.emit(Program.RETURN);
+        return new Program(
+                Arrays.copyOf(compiler.code, compiler.codeLength),
+                Arrays.copyOf(compiler.constants, compiler.numConstants),
+                Arrays.copyOf(compiler.slotNames, compiler.numSlots),
+                Arrays.copyOf(compiler.assigned, compiler.numSlots),
+                compiler.maxDepth);
+    }
+
+    /*
+     * emits the instructions that push the value of the given node
+     */
+    private void compileNode(AstNode node) {
+        node = unwrap(node);
+        if (node.isNumber()) {
+            this.emit(Program.CONST, this.constant(node.getNumericValue()));
+            this.push(1);
+            return;
+        } else if (node.isVariable()) {
+            this.emit(Program.LOAD, this.slot(node.getName()));
+            this.push(1);
+            return;
+        }
+
+        switch (node.getOpcode()) {
+            case SIN:
+            case COS:
+            case NEGATE:
+                this.compileNode(node.getChild(0));
+                this.emit(unaryInstruction(node.getOpcode()));
+                break;
+            case ADD:
+            case SUBTRACT:
+            case MULTIPLY:
+            case DIVIDE:
+            case POWER:
+            case GREATER:
+            case SMALLER:
+            case EQUAL:
+            case NOT_EQUAL:
+                this.compileNode(node.getChild(0));
+                this.compileNode(node.getChild(1));
+                this.emit(binaryInstruction(node.getOpcode()));
+                this.push(-1);
+                break;
+            case CALL:
+                this.compileCall(node);
+                break;
+            default:
+                throw new EvaluationError("cannot run '" + node.getName() + "'");
+        }
+    }
+
+    private void compileCall(AstNode node) {
+        String name = node.getName();
+        if (name.equals("if") && node.getNumChildren() == 3) {
+            this.compileIf(node);
+        } else if (name.equals("repeat") && node.getNumChildren() == 2) {
+            this.compileRepeat(node);
+        } else if (name.equals("while") && node.getNumChildren() == 3) {
+            this.compileWhile(node);
+        } else {
+            throw new EvaluationError("cannot run '" + name + "'");
+        }
+    }
+
+    /*
+     *     <cond>; JUMP_IF_ZERO else; <body>; JUMP end; else: <other>; end:
+     */
+    private void compileIf(AstNode node) {
+        this.compileCondition(node.getChild(0));
+        int toElse = this.emitJump(Program.JUMP_IF_ZERO);
+        this.push(-1);
+
+        this.compileNode(node.getChild(1));
+        int toEnd = this.emitJump(Program.JUMP);
+        this.push(-1);
+
+        this.patch(toElse);
+        this.compileNode(node.getChild(2));
+        this.patch(toEnd);
+    }
+
+    /*
+     *     <times>; COUNT counter; start: <body>; STORE var; LOOP counter start; LOAD var
+     */
+    private void compileRepeat(AstNode node) {
+        AstNode body = unwrap(node.getChild(1));
+        int var = this.assignedSlot(body);
+        int counter = this.hiddenSlot();
+
+        this.compileNode(node.getChild(0));
+        this.emit(Program.COUNT, counter);
+        this.push(-1);
+
+        int start = this.codeLength;
+        this.compileNode(body);
+        this.emit(Program.STORE, var);
+        this.push(-1);
+        this.emit(Program.LOOP, counter, start);
+
+        this.emit(Program.LOAD, var);
+        this.push(1);
+    }
+
+    /*
+     *     <cond>; <lim>; STORE lim; CONST 0; STORE step; JUMP_IF_ZERO empty
+     *     start: <body>; STORE var; CHECK_LIMIT step lim
+     *            <cond>; (DUP; STORE condVar); INCREMENT step; JUMP_IF_NOT_ZERO start
+     *     LOAD var; JUMP end
+     *     empty: <body>
+     *     end:
+     *
+     * When the loop never runs, 'handleWhile' returns the body evaluated once more without
+     * assigning it, which is what 'empty' does.
+     */
+    private void compileWhile(AstNode node) {
+        AstNode cond = unwrap(node.getChild(0));
+        AstNode body = unwrap(node.getChild(1));
+        int condVar = this.assignedSlot(cond);
+        int var = this.assignedSlot(body);
+        int step = this.hiddenSlot();
+        int limit = this.hiddenSlot();
+
+        this.compileCondition(cond);
+        this.compileNode(node.getChild(2));
+        this.emit(Program.STORE, limit);
+        this.push(-1);
+        this.emit(Program.CONST, this.constant(0.0));
+        this.push(1);
+        this.emit(Program.STORE, step);
+        this.push(-1);
+        int toEmpty = this.emitJump(Program.JUMP_IF_ZERO);
+        this.push(-1);
+
+        int start = this.codeLength;
+        this.compileNode(body);
+        this.emit(Program.STORE, var);
+        this.push(-1);
+        this.emit(Program.CHECK_LIMIT, step, limit);
+        this.compileCondition(cond);
+        if (condVar != var) {
+            this.emit(Program.DUP);
+            this.push(1);
+            this.emit(Program.STORE, condVar);
+            this.push(-1);
+        }
+        this.emit(Program.INCREMENT, step);
+        this.emit(Program.JUMP_IF_NOT_ZERO, start);
+        this.push(-1);
+
+        this.emit(Program.LOAD, var);
+        this.push(1);
+        int toEnd = this.emitJump(Program.JUMP);
+        this.push(-1);
+
+        this.patch(toEmpty);
+        this.compileNode(body);
+        this.patch(toEnd);
+    }
+
+    private void compileCondition(AstNode cond) {
+        cond = unwrap(cond);
+        switch (cond.getOpcode()) {
+            case GREATER:
+            case SMALLER:
+            case EQUAL:
+            case NOT_EQUAL:
+                this.compileNode(cond);
+                break;
+            default:
+                throw new EvaluationError("condition must compare two expressions");
+        }
+    }
+
+    /*
+     * returns the slot of the variable a loop assigns to: the leftmost variable of the given
+     * node, found the same way 'findVar' in ControlFlowManipulators finds it
+     */
+    private int assignedSlot(AstNode node) {
+        AstNode var = findVar(node);
+        if (var == null) {
+            throw new EvaluationError("loop must use a variable");
+        }
+        int slot = this.slot(var.getName());
+        this.assigned[slot] = true;
+        return slot;
+    }
+
+    private static AstNode findVar(AstNode node) {
+        node = unwrap(node);
+        if (node.isVariable()) {
+            return node;
+        } else if (node.isNumber()) {
+            return null;
+        }
+        switch (node.getOpcode()) {
+            case ADD:
+            case SUBTRACT:
+            case MULTIPLY:
+            case DIVIDE:
+            case POWER:
+                AstNode left = findVar(node.getChild(0));
+                return left != null ? left : findVar(node.getChild(1));
+            case SIN:
+            case COS:
+            case NEGATE:
+            case GREATER:
+            case SMALLER:
+            case EQUAL:
+            case NOT_EQUAL:
+                return findVar(node.getChild(0));
+            default:
+                throw new EvaluationError("cannot find the variable of '" + node.getName() + "'");
+        }
+    }
+
+    /*
+     * skips over any 'simplify' and 'toDouble' calls around the given node
+     */
+    private static AstNode unwrap(AstNode node) {
+        while (node.getOpcode() == Opcode.CALL && node.getNumChildren() == 1
+                && (node.getName().equals("simplify") || node.getName().equals("toDouble"))) {
+            node = node.getChild(0);
+        }
+        return node;
+    }
+
+    private static int unaryInstruction(Opcode opcode) {
+        switch (opcode) {
+            case SIN:
+                return Program.SIN;
+            case COS:
+                return Program.COS;
+            default: // when opcode is NEGATE
+                return Program.NEGATE;
+        }
+    }
+
+    private static int binaryInstruction(Opcode opcode) {
+        switch (opcode) {
+            case ADD:
+                return Program.ADD;
+            case SUBTRACT:
+                return Program.SUBTRACT;
+            case MULTIPLY:
+                return Program.MULTIPLY;
+            case DIVIDE:
+                return Program.DIVIDE;
+            case POWER:
+                return Program.POWER;
+            case GREATER:
+                return Program.GREATER;
+            case SMALLER:
+                return Program.SMALLER;
+            case EQUAL:
+                return Program.EQUAL;
+            default: // when opcode is NOT_EQUAL
+                return Program.NOT_EQUAL;
+        }
+    }
+
+    private int slot(String name) {
+        Integer slot = this.slots.getOrNull(name);
+        if (slot == null) {
+            slot = this.hiddenSlot();
+            this.slotNames[slot] = name;
+            this.slots.put(name, slot);
+        }
+        return slot;
+    }
+
+    private int hiddenSlot() {
+        if (this.numSlots == this.slotNames.length) {
+            this.slotNames = Arrays.copyOf(this.slotNames, 2 * this.numSlots);
+            this.assigned = Arrays.copyOf(this.assigned, 2 * this.numSlots);
+        }
+        this.numSlots++;
+        return this.numSlots - 1;
+    }
+
+    private int constant(double value) {
+        for (int i = 0; i < this.numConstants; i++) {
+            if (Double.doubleToLongBits(this.constants[i]) == Double.doubleToLongBits(value)) {
+                return i;
+            }
+        }
+        if (this.numConstants == this.constants.length) {
+            this.constants = Arrays.copyOf(this.constants, 2 * this.numConstants);
+        }
+        this.constants[this.numConstants] = value;
+        this.numConstants++;
+        return this.numConstants - 1;
+    }
+
+    /*
+     * emits a jump whose target is filled in by 'patch'; returns the position of the target
+     */
+    private int emitJump(int instruction) {
+        this.emit(instruction, -1);
+        return this.codeLength - 1;
+    }
+
+    /*
+     * makes the jump whose target is at the given position continue at the next instruction
+     */
+    private void patch(int position) {
+        this.code[position] = this.codeLength;
+    }
+
+    private void emit(int... instruction) {
+        if (this.codeLength + instruction.length > this.code.length) {
+            this.code = Arrays.copyOf(this.code, 2 * this.code.length + instruction.length);
+        }
+        for (int value : instruction) {
+            this.code[this.codeLength] = value;
+            this.codeLength++;
+        }
+    }
+
+    private void push(int count) {
+        this.depth += count;
+        this.maxDepth = Math.max(this.maxDepth, this.depth);
+    }
+}
@@ -136,6 +136,79 @@ public class ImageDrawer implements ImageObserver {
             throw new IllegalArgumentException("Number of 'x' values and 'y' values are not the same.");
         }
 
+        // Finally, we create our chart. We hide the legend mostly because
+        // it's sort of pointless if we only ever plot one series at a time.
+        JFreeChart chart = ChartFactory.createScatterPlot(
+                title,
+                xAxisLabel,
+                yAxisLabel,
+                toSeriesCollection(xValues, yValues));
+        chart.removeLegend();
+
+        // We then draw this chart using the underlying Graphics object.
+        Graphics2D g2 = (Graphics2D) this.getGraphics();
+        chart.draw(g2, drawRegion);
+    }
+
+    /**
+     * Draws a line plot that occupies the entire window.
+     *
+     * This works like 'drawScatterPlot', except that each point is joined to the next one by a
+     * straight line, and the points themselves are not marked. The points should be in order
+     * of increasing x.
+     *
+     * @param title       The title of the line plot. To hide the title, pass in the empty string.
+     * @param xAxisLabel  The label for the x axis
+     * @param yAxisLabel  The label for the y axis
+     * @param xValues     The x coordinate values to plot
+     * @param yValues     The y coordinate values to plot
+     */
+    public void drawLinePlot(String title, String xAxisLabel, String yAxisLabel,
+                             IList<Double> xValues, IList<Double> yValues) {
+        if (this.width == UNKNOWN_DIMENSION || this.height == UNKNOWN_DIMENSION) {
+            throw new IllegalStateException("Unexpected fatal error: Image width or height unknown");
+        }
+        this.drawLinePlot(
+                title, xAxisLabel, yAxisLabel, xValues, yValues,
+                new Rectangle2D.Double(0, 0, this.width, this.height));
+    }
+
+    /**
+     * Draws a line plot that occupies the given portion of the window.
+     *
+     * This works like 'drawScatterPlot', except that each point is joined to the next one by a
+     * straight line, and the points themselves are not marked. The points should be in order
+     * of increasing x.
+     *
+     * @param title       The title of the line plot. To hide the title, pass in the empty string.
+     * @param xAxisLabel  The label for the x axis
+     * @param yAxisLabel  The label for the y axis
+     * @param xValues     The x coordinate values to plot
+     * @param yValues     The y coordinate values to plot
+     * @param drawRegion  The region on the image to draw the chart on
+     */
+    public void drawLinePlot(String title, String xAxisLabel, String yAxisLabel,
+                             IList<Double> xValues, IList<Double> yValues,
+                             Rectangle2D drawRegion) {
+        if (xValues.size() != yValues.size()) {
+            throw new IllegalArgumentException("Number of 'x' values and 'y' values are not the same.");
+        }
+
+        JFreeChart chart = ChartFactory.createXYLineChart(
+                title,
+                xAxisLabel,
+                yAxisLabel,
+                toSeriesCollection(xValues, yValues));
+        chart.removeLegend();
+
+        Graphics2D g2 = (Graphics2D) this.getGraphics();
+        chart.draw(g2, drawRegion);
+    }
+
+    /*
+     * pairs up the x and y values into the single series of a new collection
+     */
+    private static XYSeriesCollection toSeriesCollection(IList<Double> xValues, IList<Double> yValues) {
         Iterator<Double> xIter = xValues.iterator();
         Iterator<Double> yIter = yValues.iterator();
 
@@ -152,19 +225,7 @@ public class ImageDrawer implements ImageObserver {
         // datasets on the same chart. We don't do this, however.
         XYSeriesCollection seriesCollection = new XYSeriesCollection();
         seriesCollection.addSeries(series);
-
-        // Finally, we create our chart. We hide the legend mostly because
-        // it's sort of pointless if we only ever plot one series at a time.
-        JFreeChart chart = ChartFactory.createScatterPlot(
-                title,
-                xAxisLabel,
-                yAxisLabel,
-                seriesCollection);
-        chart.removeLegend();
-
-        // We then draw this chart using the underlying Graphics object.
-        Graphics2D g2 = (Graphics2D) this.getGraphics();
-        chart.draw(g2, drawRegion);
+        return seriesCollection;
     }
 
     @Override
@@ -0,0 +1,201 @@
+package calculator.gui;
+
+import datastructures.interfaces.IList;
+
+import java.util.Arrays;
+
+/**
+ * Reduces a stream of samples to the few that can be told apart on a plot of a given width.
+ *
+ * The x range of the plot is divided into one column per pixel. For each column the reducer
+ * keeps only four samples: the first and last samples that fell into the column, and the ones
+ * with the smallest and largest y. Those four are enough to draw everything a column of the
+ * plot can show: how far up and down the curve reaches within the pixel, and where it enters
+ * and leaves it. However many samples are added, the reducer uses memory proportional to the
+ * number of columns, and draws at most four points per column.
+ *
+ * Samples whose y is NaN are skipped, since they wouldn't be drawn anyway.
+ */
+public class PixelColumnReducer {
+    private final double xMin;
+    private final double columnsPerUnit;
+    private final int numColumns;
+
+    // For each column, the x and y of the first, last, lowest and highest samples, or NaN in
+    // 'firstX' if the column has no samples yet
+    private final double[] firstX;
+    private final double[] firstY;
+    private final double[] lastX;
+    private final double[] lastY;
+    private final double[] lowX;
+    private final double[] lowY;
+    private final double[] highX;
+    private final double[] highY;
+
+    private long numSamples;
+
+    /**
+     * Creates a reducer for samples with x between xMin and xMax, drawn 'numColumns' pixels wide.
+     * Samples outside of that range are counted in the first or last column.
+     *
+     * @throws IllegalArgumentException  if numColumns is not positive or xMin > xMax
+     */
+    public PixelColumnReducer(double xMin, double xMax, int numColumns) {
+        if (numColumns <= 0) {
+            throw new IllegalArgumentException("there must be at least one column");
+        } else if (xMin > xMax) {
+            throw new IllegalArgumentException("xMin > xMax");
+        }
+        this.xMin = xMin;
+        this.columnsPerUnit = xMax > xMin ? numColumns / (xMax - xMin) : 0.0;
+        this.numColumns = numColumns;
+        this.firstX = new double[numColumns];
+        this.firstY = new double[numColumns];
+        this.lastX = new double[numColumns];
+        this.lastY = new double[numColumns];
+        this.lowX = new double[numColumns];
+        this.lowY = new double[numColumns];
+        this.highX = new double[numColumns];
+        this.highY = new double[numColumns];
+        Arrays.fill(this.firstX, Double.NaN);
+        this.numSamples = 0;
+    }
+
+    /**
+     * Adds a sample.
+     */
+    public void add(double x, double y) {
+        if (Double.isNaN(y)) {
+            return;
+        }
+        this.numSamples++;
+        int column = this.columnOf(x);
+        if (Double.isNaN(this.firstX[column])) {
+            this.firstX[column] = x;
+            this.firstY[column] = y;
+            this.lowX[column] = x;
+            this.lowY[column] = y;
+            this.highX[column] = x;
+            this.highY[column] = y;
+        } else if (y < this.lowY[column]) {
+            this.lowX[column] = x;
+            this.lowY[column] = y;
+        } else if (y > this.highY[column]) {
+            this.highX[column] = x;
+            this.highY[column] = y;
+        }
+        this.lastX[column] = x;
+        this.lastY[column] = y;
+    }
+
+    /**
+     * Adds the samples (xs[i], ys[i]) for every i less than 'count'.
+     */
+    public void add(double[] xs, double[] ys, int count) {
+        for (int i = 0; i < count; i++) {
+            this.add(xs[i], ys[i]);
+        }
+    }
+
+    /**
+     * Adds every sample kept by another reducer, as if the samples added to it had been added
+     * to this one instead. The other reducer must cover the same range with the same number of
+     * columns, and for 'addTo' to keep its order, its samples must all come after the ones
+     * added to this one.
+     *
+     * @throws IllegalArgumentException  if the other reducer has a different range or number of
+     *                                   columns
+     */
+    public void addAll(PixelColumnReducer other) {
+        if (other.xMin != this.xMin || other.columnsPerUnit != this.columnsPerUnit
+                || other.numColumns != this.numColumns) {
+            throw new IllegalArgumentException("the reducers have different columns");
+        }
+        for (int column = 0; column < this.numColumns; column++) {
+            if (Double.isNaN(other.firstX[column])) {
+                continue;
+            }
+            if (Double.isNaN(this.firstX[column])) {
+                this.firstX[column] = other.firstX[column];
+                this.firstY[column] = other.firstY[column];
+                this.lowX[column] = other.lowX[column];
+                this.lowY[column] = other.lowY[column];
+                this.highX[column] = other.highX[column];
+                this.highY[column] = other.highY[column];
+            } else {
+                if (other.lowY[column] < this.lowY[column]) {
+                    this.lowX[column] = other.lowX[column];
+                    this.lowY[column] = other.lowY[column];
+                }
+                if (other.highY[column] > this.highY[column]) {
+                    this.highX[column] = other.highX[column];
+                    this.highY[column] = other.highY[column];
+                }
+            }
+            this.lastX[column] = other.lastX[column];
+            this.lastY[column] = other.lastY[column];
+        }
+        this.numSamples += other.numSamples;
+    }
+
+    /**
+     * Returns the number of samples added so far, not counting the ones that were skipped.
+     */
+    public long getNumSamples() {
+        return this.numSamples;
+    }
+
+    /**
+     * Adds the samples this reducer kept to the ends of the given lists, in the order they were
+     * added to the reducer, provided they were added in order of increasing x.
+     */
+    public void addTo(IList<Double> xValues, IList<Double> yValues) {
+        double[] xs = new double[4];
+        double[] ys = new double[4];
+        for (int column = 0; column < this.numColumns; column++) {
+            if (Double.isNaN(this.firstX[column])) {
+                continue;
+            }
+            int count = 0;
+            count = keep(xs, ys, count, this.firstX[column], this.firstY[column]);
+            count = keep(xs, ys, count, this.lowX[column], this.lowY[column]);
+            count = keep(xs, ys, count, this.highX[column], this.highY[column]);
+            count = keep(xs, ys, count, this.lastX[column], this.lastY[column]);
+            for (int i = 0; i < count; i++) {
+                xValues.add(xs[i]);
+                yValues.add(ys[i]);
+            }
+        }
+    }
+
+    /*
+     * inserts the sample into the first 'count' entries of the arrays, which are sorted by x,
+     * unless a sample with the same x is already there; returns the new count
+     */
+    private static int keep(double[] xs, double[] ys, int count, double x, double y) {
+        int index = count;
+        while (index > 0 && xs[index - 1] > x) {
+            index--;
+        }
+        if (index > 0 && xs[index - 1] == x) {
+            return count;
+        }
+        for (int i = count; i > index; i--) {
+            xs[i] = xs[i - 1];
+            ys[i] = ys[i - 1];
+        }
+        xs[index] = x;
+        ys[index] = y;
+        return count + 1;
+    }
+
+    private int columnOf(double x) {
+        double column = (x - this.xMin) * this.columnsPerUnit;
+        if (!(column > 0)) {
+            return 0;
+        } else if (column >= this.numColumns) {
+            return this.numColumns - 1;
+        }
+        return (int) column;
+    }
+}
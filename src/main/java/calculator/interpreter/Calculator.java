@@ -9,6 +9,7 @@ import calculator.gui.ImageDrawer;
 import calculator.parser.Parser;
 import datastructures.concrete.DoubleLinkedList;
 import datastructures.concrete.dictionaries.ArrayDictionary;
+import datastructures.concrete.dictionaries.LruCacheDictionary;
 import datastructures.interfaces.IDictionary;
 import datastructures.interfaces.IList;
 
@@ -27,29 +28,38 @@ public class Calculator {
     private IDictionary<String, AstManipulator> customFunctions;
     private IDictionary<String, AstManipulator> specialFunctions;
     private IDictionary<String, Integer> precedenceMap;
+    private IDictionary<String, AstNode> parseCache;
 
     private static final int STRONGEST_PRECEDENCE = 0;
     private static final int WEAKEST_PRECEDENCE = Integer.MAX_VALUE;
+    private static final int PARSE_CACHE_CAPACITY = 64;
 
     public Calculator() {
         this(null);
     }
 
     public Calculator(ImageDrawer imageDrawer) {
-        this.parser = new Parser();
+        VariableStore variables = new VariableStore();
+        this.variables = variables;
+        this.parser = new Parser(variables.getSymbols());
         this.interpreter = new Interpreter();
 
-        this.variables = new ArrayDictionary<>();
         this.imageDrawer = imageDrawer;
 
         this.customFunctions = new ArrayDictionary<>();
         this.specialFunctions = new ArrayDictionary<>();
         this.precedenceMap = new ArrayDictionary<>();
+        this.parseCache = new LruCacheDictionary<>(PARSE_CACHE_CAPACITY);
 
         // Your functions
         this.customFunctions.put("simplify", ExpressionManipulators::handleSimplify);
+        this.customFunctions.put("rewrite", ExpressionManipulators::handleRewrite);
         this.customFunctions.put("toDouble", ExpressionManipulators::handleToDouble);
+        this.customFunctions.put("cacheHits", ExpressionManipulators::handleCacheHits);
+        this.customFunctions.put("cacheMisses", ExpressionManipulators::handleCacheMisses);
         this.customFunctions.put("plot", ExpressionManipulators::plot);
+        this.customFunctions.put("plotParallel", ExpressionManipulators::plotParallel);
+        this.customFunctions.put("plotAdaptive", ExpressionManipulators::plotAdaptive);
 
         // Internal functions (that need to manipulate control flow or the environment somehow)
         this.specialFunctions.put("block", BuiltinManipulators::handleBlock);
@@ -63,6 +73,7 @@ public class Calculator {
         this.specialFunctions.put("if", ControlFlowManipulators::handleIf);
         this.specialFunctions.put("repeat", ControlFlowManipulators::handleRepeat);
         this.specialFunctions.put("while", ControlFlowManipulators::handleWhile);
+        this.specialFunctions.put("run", ControlFlowManipulators::handleRun);
 
         this.precedenceMap.put("^", 1);
         this.precedenceMap.put("negate", 2);
@@ -81,7 +92,8 @@ public class Calculator {
             return "";
         }
         Environment env = this.prepareEnvironment();
-        AstNode ast = this.parser.parse(input + "\n");
+        // Parsed trees are never modified, so inputs that are entered again can reuse them
+        AstNode ast = this.parseCache.computeIfAbsent(input, line -> this.parser.parse(line + "\n"));
         AstNode normalizedAst = injectSimplify(env, ast);
         AstNode output = this.interpreter.evaluate(env, normalizedAst);
         return this.convertToString(output);
@@ -107,8 +119,11 @@ public class Calculator {
             return node;
         } else {
             IList<AstNode> newChildren = new DoubleLinkedList<>();
+            boolean changed = false;
             for (AstNode oldChild : node.getChildren()) {
-                newChildren.add(injectSimplifyHelper(env, oldChild));
+                AstNode newChild = injectSimplifyHelper(env, oldChild);
+                changed = changed || newChild != oldChild;
+                newChildren.add(newChild);
             }
 
             if (env.getSpecialFunctions().containsKey(node.getName())) {
@@ -117,8 +132,10 @@ public class Calculator {
                 }
 
                 return wrapSimplifyFunc(new AstNode(node.getName(), newChildren));
-            } else {
+            } else if (changed) {
                 return new AstNode(node.getName(), newChildren);
+            } else {
+                return node;
             }
         }
     }
@@ -155,8 +172,9 @@ public class Calculator {
         } else {
             String name = node.getName();
 
-            boolean hasPrecedence = this.precedenceMap.containsKey(name);
-            int currPrecedenceLevel = hasPrecedence ? this.precedenceMap.get(name) : STRONGEST_PRECEDENCE;
+            Integer precedence = this.precedenceMap.getOrNull(name);
+            boolean hasPrecedence = precedence != null;
+            int currPrecedenceLevel = hasPrecedence ? precedence : STRONGEST_PRECEDENCE;
             int childPrecedenceLevel = hasPrecedence ? currPrecedenceLevel : WEAKEST_PRECEDENCE;
 
             IList<String> children = new DoubleLinkedList<>();
@@ -1,5 +1,6 @@
 package calculator.interpreter;
 
+import calculator.ast.AstManipulator;
 import calculator.ast.AstNode;
 import datastructures.concrete.DoubleLinkedList;
 import datastructures.interfaces.IList;
@@ -12,21 +13,29 @@ public class Interpreter {
             return node;
         } else if (node.isOperation()) {
             String nodeName = node.getName();
-            if (env.getSpecialFunctions().containsKey(nodeName)) {
+            AstManipulator special = env.getSpecialFunctions().getOrNull(nodeName);
+            if (special != null) {
                 // Special functions take complete control
-                return env.getSpecialFunctions().get(nodeName).manipulate(env, node);
+                return special.manipulate(env, node);
             } else {
                 // Regular, custom functions are executed normally:
                 // we first execute the children before handing control back
                 // to the regular function (if one exists)
                 IList<AstNode> children = new DoubleLinkedList<>();
+                boolean changed = false;
                 for (AstNode oldChild : node.getChildren()) {
-                    children.add(evaluate(env, oldChild));
+                    AstNode newChild = evaluate(env, oldChild);
+                    changed = changed || newChild != oldChild;
+                    children.add(newChild);
                 }
 
-                AstNode output = new AstNode(node.getName(), children);
-                if (env.getCustomFunctions().containsKey(nodeName)) {
-                    output = env.getCustomFunctions().get(nodeName).manipulate(env, output);
+                // Nodes are never modified, so if every child evaluated to itself the node can
+                // be handed on as it is; entering the same input again then gives functions
+                // like 'toDouble' the very same tree, which ResultCache can match by identity
+                AstNode output = changed ? new AstNode(node.getName(), children) : node;
+                AstManipulator custom = env.getCustomFunctions().getOrNull(nodeName);
+                if (custom != null) {
+                    output = custom.manipulate(env, output);
                 }
                 return output;
             }
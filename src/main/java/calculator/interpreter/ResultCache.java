@@ -0,0 +1,190 @@
+package calculator.interpreter;
+
+import calculator.ast.AstInterner;
+import calculator.ast.AstNode;
+import calculator.ast.ExpressionManipulators;
+import datastructures.concrete.dictionaries.LruCacheDictionary;
+
+import java.util.Arrays;
+
+/**
+ * Remembers the results of 'toDouble' for the most recently used expressions, so evaluating the
+ * same expression again while its variables stay the same costs a lookup.
+ *
+ * A result is kept together with the version of each variable the expression reads, as it was
+ * when the result was computed. The VariableStore gives a variable a new version whenever its
+ * value may have changed, directly or through the variables it reads in turn, so a kept result
+ * is still correct exactly when every version still matches. Assigning a variable therefore
+ * never has to look through the cache: results that read it simply stop matching, and are
+ * replaced the next time they are asked for or evicted once they are the least recently used.
+ *
+ * Expressions are matched by structure: every expression is interned first (see AstInterner),
+ * so equal trees come out as the same canonical node however they were built, and the results
+ * can be looked up by that node's identity. Interning only compares each node with canonical
+ * children, which are equal exactly when they are the same object, so it never walks two whole
+ * trees the way comparing them directly would. Interning still visits every node, so the
+ * canonical nodes of the most recently used tree objects are remembered as well: the Calculator
+ * hands 'toDouble' the same tree each time an input is entered again, and that tree is found
+ * without interning it at all. To keep the interner from holding on to every expression ever
+ * seen, it is cleared together with the results once it holds more than MAX_NODES_PER_RESULT
+ * nodes per result the cache can keep.
+ */
+public class ResultCache {
+    public static final int DEFAULT_CAPACITY = 256;
+    public static final int MAX_NODES_PER_RESULT = 64;
+
+    private final VariableStore variables;
+    private final LruCacheDictionary<Key, Result> results;
+    // The canonical node of each recently used tree object
+    private final LruCacheDictionary<Key, AstNode> canonicalNodes;
+    private final AstInterner interner;
+    private final long maxNodes;
+    private long hits;
+    private long misses;
+
+    public ResultCache(VariableStore variables) {
+        this(variables, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a cache for expressions over the given variables that keeps at most 'capacity'
+     * results.
+     *
+     * @throws IllegalArgumentException  if the capacity is not positive
+     */
+    public ResultCache(VariableStore variables, int capacity) {
+        this.variables = variables;
+        this.results = new LruCacheDictionary<>(capacity);
+        this.canonicalNodes = new LruCacheDictionary<>(capacity);
+        this.interner = new AstInterner();
+        this.maxNodes = (long) MAX_NODES_PER_RESULT * capacity;
+        this.hits = 0;
+        this.misses = 0;
+    }
+
+    /**
+     * Returns what 'toDouble' of the given expression gives with the cache's variables.
+     *
+     * @throws EvaluationError  if the expression contains an undefined variable
+     * @throws EvaluationError  if the expression uses an unknown operation
+     */
+    public double toDouble(AstNode expression) {
+        Key key = new Key(expression);
+        AstNode canonical = this.canonicalNodes.getOrNull(key);
+        if (canonical == null) {
+            canonical = this.interner.intern(expression);
+            this.canonicalNodes.put(key, canonical);
+        }
+        Result result = this.results.getOrNull(new Key(canonical));
+        if (result != null && result.isCurrent(this.variables)) {
+            this.hits++;
+            return result.value;
+        }
+        this.misses++;
+        double value = ExpressionManipulators.toDouble(this.variables, canonical);
+        if (this.interner.size() > this.maxNodes) {
+            // Start over with just this expression. Its nodes become canonical again as they
+            // are, so the next equal expression still finds the result kept below.
+            this.interner.clear();
+            this.results.clear();
+            this.canonicalNodes.clear();
+            canonical = this.interner.intern(canonical);
+            this.canonicalNodes.put(key, canonical);
+        }
+        // Only expressions that evaluated without an error get here, so every variable they
+        // read is defined and its version is the one the value was computed with
+        this.results.put(new Key(canonical), new Result(value, canonical, this.variables));
+        return value;
+    }
+
+    /**
+     * Returns the number of calls to 'toDouble' that were answered from the cache.
+     */
+    public long getHits() {
+        return this.hits;
+    }
+
+    /**
+     * Returns the number of calls to 'toDouble' that had to evaluate the expression.
+     */
+    public long getMisses() {
+        return this.misses;
+    }
+
+    /**
+     * Returns the number of results in the cache, including ones that are out of date.
+     */
+    public int size() {
+        return this.results.size();
+    }
+
+    /*
+     * a key that is equal only to a key for the same AstNode object; for canonical nodes, this
+     * is the same as comparing their structure
+     */
+    private static class Key {
+        private final AstNode node;
+
+        public Key(AstNode node) {
+            this.node = node;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Key && ((Key) other).node == this.node;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(this.node);
+        }
+    }
+
+    private static class Result {
+        public final double value;
+
+        // The slots of the distinct variables the expression reads, and their versions
+        private int[] slots;
+        private final long[] versions;
+        private int numSlots;
+
+        public Result(double value, AstNode expression, VariableStore variables) {
+            this.value = value;
+            this.slots = new int[4];
+            this.numSlots = 0;
+            this.addVariables(expression, variables);
+            this.versions = new long[this.numSlots];
+            for (int i = 0; i < this.numSlots; i++) {
+                this.versions[i] = variables.getVersion(this.slots[i]);
+            }
+        }
+
+        public boolean isCurrent(VariableStore variables) {
+            for (int i = 0; i < this.numSlots; i++) {
+                if (variables.getVersion(this.slots[i]) != this.versions[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void addVariables(AstNode node, VariableStore variables) {
+            if (node.isVariable()) {
+                int slot = variables.slotOf(node);
+                for (int i = 0; i < this.numSlots; i++) {
+                    if (this.slots[i] == slot) {
+                        return;
+                    }
+                }
+                if (this.numSlots == this.slots.length) {
+                    this.slots = Arrays.copyOf(this.slots, 2 * this.slots.length);
+                }
+                this.slots[this.numSlots] = slot;
+                this.numSlots++;
+            }
+            for (int i = 0; i < node.getNumChildren(); i++) {
+                this.addVariables(node.getChild(i), variables);
+            }
+        }
+    }
+}
@@ -0,0 +1,338 @@
+package calculator.interpreter;
+
+import calculator.ast.AstNode;
+import calculator.ast.ExpressionManipulators;
+import calculator.ast.SymbolTable;
+import calculator.errors.EvaluationError;
+import datastructures.concrete.DoubleLinkedList;
+import datastructures.interfaces.IDictionary;
+import datastructures.interfaces.IList;
+import misc.exceptions.NoSuchKeyException;
+
+/**
+ * The calculator's variables, which also remember the numeric value of each variable the way a
+ * spreadsheet remembers the value of each cell.
+ *
+ * As a dictionary, a VariableStore maps each variable's name to the expression it was assigned,
+ * like any other. In addition, 'getNumericValue' returns what 'toDouble' of a variable gives, and
+ * keeps the result: asking again costs a single lookup, however long the chain of variables the
+ * value was computed from.
+ *
+ * To know when a kept value is out of date, the store records which variables each expression
+ * reads. Assigning or removing a variable marks it and every variable that depends on it,
+ * directly or through others, as out of date; their values are computed again the next time
+ * they are asked for, and not before. Variables that don't depend on the one assigned keep
+ * their values.
+ *
+ * Each variable also has a version, which changes whenever the variable is assigned or
+ * removed, and whenever its numeric value goes out of date. The store's ResultCache relies on
+ * it to tell whether a result it kept is still correct.
+ *
+ * The variables are kept in an array indexed by the slot the store's SymbolTable gave each name.
+ * Variable nodes parsed with that table (see getSymbols) already know their slot, so 'slotOf'
+ * finds it without hashing or comparing the name, and the methods that take a slot reach the
+ * variable with a single array access.
+ */
+public class VariableStore implements IDictionary<String, AstNode> {
+    private static final int INIT_SIZE = 16;
+
+    // One entry for each variable that is defined or that a defined variable reads, at the
+    // variable's slot; null everywhere else
+    private Entry[] slots;
+    private final SymbolTable symbols;
+    private int size;
+
+    // The last version given to any variable
+    private long lastVersion;
+    private final ResultCache results;
+
+    public VariableStore() {
+        this.slots = new Entry[INIT_SIZE];
+        this.symbols = new SymbolTable();
+        this.size = 0;
+        this.lastVersion = 0;
+        this.results = new ResultCache(this);
+    }
+
+    /**
+     * Returns the value of the given variable as a double, exactly as 'toDouble' computes it,
+     * computing it only if it has not been computed since the variables it depends on changed.
+     *
+     * @throws EvaluationError  if the variable, or any variable it depends on, is not defined
+     * @throws EvaluationError  if the variable's expression uses an unknown operation
+     * @throws EvaluationError  if the variable's value depends on the variable itself
+     */
+    public double getNumericValue(String name) {
+        return this.getNumericValue(this.symbols.find(name));
+    }
+
+    /**
+     * Returns the value of the variable with the given slot as a double, exactly as
+     * 'getNumericValue' does for the variable's name.
+     *
+     * @throws EvaluationError  if the variable, or any variable it depends on, is not defined
+     * @throws EvaluationError  if the variable's expression uses an unknown operation
+     * @throws EvaluationError  if the variable's value depends on the variable itself
+     */
+    public double getNumericValue(int slot) {
+        Entry entry = this.entryAt(slot);
+        if (entry == null || entry.expression == null) {
+            throw new EvaluationError("variable not defined");
+        } else if (entry.upToDate) {
+            return entry.number;
+        } else if (entry.computing) {
+            throw new EvaluationError("variable depends on itself");
+        }
+        entry.computing = true;
+        try {
+            entry.number = ExpressionManipulators.toDouble(this, entry.expression);
+        } finally {
+            entry.computing = false;
+        }
+        entry.upToDate = true;
+        return entry.number;
+    }
+
+    /**
+     * Returns 'true' if the numeric value of the given variable is known and up to date, and
+     * 'false' otherwise.
+     */
+    public boolean isUpToDate(String name) {
+        Entry entry = this.find(name);
+        return entry != null && entry.upToDate;
+    }
+
+    /**
+     * Returns the current version of the given variable. Two calls return the same version only
+     * if the variable's value can't have changed in between. Variables that were never defined
+     * have version 0.
+     */
+    public long getVersion(String name) {
+        return this.getVersion(this.symbols.find(name));
+    }
+
+    /**
+     * Returns the current version of the variable with the given slot, as 'getVersion' does for
+     * the variable's name.
+     */
+    public long getVersion(int slot) {
+        Entry entry = this.entryAt(slot);
+        return entry == null ? 0 : entry.version;
+    }
+
+    /**
+     * Returns the expression assigned to the variable with the given slot, or null if it is not
+     * defined.
+     */
+    public AstNode getOrNull(int slot) {
+        Entry entry = this.entryAt(slot);
+        return entry == null ? null : entry.expression;
+    }
+
+    /**
+     * Returns the table that gives this store's variables their slots. Parsers that build
+     * expressions for this store should use it, so their variable nodes carry their slot.
+     */
+    public SymbolTable getSymbols() {
+        return this.symbols;
+    }
+
+    /**
+     * Returns the slot of the given variable node, or -1 if its name has no slot in this store's
+     * table, in which case the variable is not defined.
+     */
+    public int slotOf(AstNode variable) {
+        int slot = variable.getSlot(this.symbols);
+        return slot >= 0 ? slot : this.symbols.find(variable.getName());
+    }
+
+    /**
+     * Returns the expression assigned to the given variable node, or null if it is not defined.
+     * A VariableStore finds it by the node's slot; any other dictionary by the node's name.
+     */
+    public static AstNode lookup(IDictionary<String, AstNode> variables, AstNode variable) {
+        if (variables instanceof VariableStore) {
+            VariableStore store = (VariableStore) variables;
+            return store.getOrNull(store.slotOf(variable));
+        }
+        return variables.getOrNull(variable.getName());
+    }
+
+    /**
+     * Returns the cache that remembers the results of 'toDouble' over these variables.
+     */
+    public ResultCache getResultCache() {
+        return this.results;
+    }
+
+    /*
+     * returns the expression assigned to the given variable
+     * @throws NoSuchKeyException if the variable is not defined
+     * @see datastructures.interfaces.IDictionary#get(java.lang.Object)
+     */
+    @Override
+    public AstNode get(String name) {
+        AstNode expression = this.getOrNull(name);
+        if (expression == null) {
+            throw new NoSuchKeyException();
+        }
+        return expression;
+    }
+
+    /*
+     * returns the expression assigned to the given variable, or null if it is not defined
+     * @see datastructures.interfaces.IDictionary#getOrNull(java.lang.Object)
+     */
+    @Override
+    public AstNode getOrNull(String name) {
+        return this.getOrNull(this.symbols.find(name));
+    }
+
+    /*
+     * assigns the given expression to the given variable, and marks the variable and every
+     * variable that depends on it as out of date
+     * @see datastructures.interfaces.IDictionary#put(java.lang.Object, java.lang.Object)
+     */
+    @Override
+    public void put(String name, AstNode expression) {
+        Entry entry = this.entry(this.symbols.slotOf(name));
+        if (entry.expression == null) {
+            this.size++;
+        }
+        this.forgetDependencies(entry);
+        entry.expression = expression;
+        this.addDependencies(entry, expression);
+        this.invalidate(entry);
+        entry.version = this.newVersion();
+    }
+
+    /*
+     * removes the given variable, and marks every variable that depends on it as out of date
+     * @throws NoSuchKeyException if the variable is not defined
+     * @see datastructures.interfaces.IDictionary#remove(java.lang.Object)
+     */
+    @Override
+    public AstNode remove(String name) {
+        AstNode expression = this.get(name);
+        Entry entry = this.find(name);
+        this.forgetDependencies(entry);
+        entry.expression = null;
+        this.invalidate(entry);
+        entry.version = this.newVersion();
+        if (entry.dependents.isEmpty()) {
+            this.slots[entry.slot] = null;
+        }
+        this.size--;
+        return expression;
+    }
+
+    /*
+     * returns true if the given variable is defined
+     * @see datastructures.interfaces.IDictionary#containsKey(java.lang.Object)
+     */
+    @Override
+    public boolean containsKey(String name) {
+        return this.getOrNull(name) != null;
+    }
+
+    /*
+     * returns the number of defined variables
+     * @see datastructures.interfaces.IDictionary#size()
+     */
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    private Entry find(String name) {
+        return this.entryAt(this.symbols.find(name));
+    }
+
+    private Entry entryAt(int slot) {
+        return slot >= 0 && slot < this.slots.length ? this.slots[slot] : null;
+    }
+
+    /*
+     * returns the entry at the given slot, creating it if there is none
+     */
+    private Entry entry(int slot) {
+        if (slot >= this.slots.length) {
+            Entry[] newSlots = new Entry[Math.max(2 * this.slots.length, slot + 1)];
+            System.arraycopy(this.slots, 0, newSlots, 0, this.slots.length);
+            this.slots = newSlots;
+        }
+        if (this.slots[slot] == null) {
+            this.slots[slot] = new Entry(slot);
+        }
+        return this.slots[slot];
+    }
+
+    /*
+     * records that 'entry' reads every variable in the given expression
+     */
+    private void addDependencies(Entry entry, AstNode expression) {
+        if (expression.isVariable()) {
+            int slot = expression.getSlot(this.symbols);
+            Entry dependency = this.entry(slot >= 0 ? slot : this.symbols.slotOf(expression.getName()));
+            if (!entry.dependencies.contains(dependency)) {
+                entry.dependencies.add(dependency);
+                dependency.dependents.add(entry);
+            }
+        }
+        for (AstNode child : expression.getChildren()) {
+            this.addDependencies(entry, child);
+        }
+    }
+
+    private void forgetDependencies(Entry entry) {
+        for (Entry dependency : entry.dependencies) {
+            dependency.dependents.delete(dependency.dependents.indexOf(entry));
+            if (dependency.expression == null && dependency.dependents.isEmpty()) {
+                this.slots[dependency.slot] = null;
+            }
+        }
+        entry.dependencies = new DoubleLinkedList<>();
+    }
+
+    /*
+     * marks the entry and everything that depends on it as out of date; whatever depends on an
+     * entry that is out of date already is out of date too, so the walk stops there
+     */
+    private void invalidate(Entry entry) {
+        if (!entry.upToDate) {
+            return;
+        }
+        entry.upToDate = false;
+        entry.version = this.newVersion();
+        for (Entry dependent : entry.dependents) {
+            this.invalidate(dependent);
+        }
+    }
+
+    private long newVersion() {
+        this.lastVersion++;
+        return this.lastVersion;
+    }
+
+    private static class Entry {
+        public final int slot;
+
+        // Null if the variable is not defined, but some defined variable reads it
+        public AstNode expression;
+
+        // The variables the expression reads, and the variables whose expressions read this one
+        public IList<Entry> dependencies;
+        public IList<Entry> dependents;
+
+        public long version;
+        public double number;
+        public boolean upToDate;
+        public boolean computing;
+
+        public Entry(int slot) {
+            this.slot = slot;
+            this.dependencies = new DoubleLinkedList<>();
+            this.dependents = new DoubleLinkedList<>();
+        }
+    }
+}
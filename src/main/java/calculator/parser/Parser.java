@@ -1,6 +1,7 @@
 package calculator.parser;
 
 import calculator.ast.AstNode;
+import calculator.ast.SymbolTable;
 import calculator.errors.IncompleteInputError;
 import calculator.errors.ParseError;
 import calculator.parser.grammar.CalculatorGrammarLexer;
@@ -14,6 +15,20 @@ import java.io.IOException;
 import java.io.StringReader;
 
 public class Parser {
+    private final SymbolTable symbols;
+
+    public Parser() {
+        this(null);
+    }
+
+    /**
+     * Creates a parser whose variable nodes get their slots from the given table (see
+     * SymbolTable), or no slots if the table is null.
+     */
+    public Parser(SymbolTable symbols) {
+        this.symbols = symbols;
+    }
+
     public AstNode parse(String rawInput) {
         CharStream input;
         try {
@@ -35,7 +50,7 @@ public class Parser {
         parser.addErrorListener(new ThrowingErrorListener());
 
         CalculatorGrammarParser.ProgramContext entryPoint = parser.program();
-        return new AstConverter().visitProgram(entryPoint);
+        return new AstConverter(this.symbols).visitProgram(entryPoint);
     }
 
     public CommonTokenStream ensureIsComplete(CommonTokenStream stream) {
@@ -84,6 +99,12 @@ public class Parser {
     }
 
     private static class AstConverter extends CalculatorGrammarParserBaseVisitor<AstNode> {
+        private final SymbolTable symbols;
+
+        public AstConverter(SymbolTable symbols) {
+            this.symbols = symbols;
+        }
+
         private IList<AstNode> asList(AstNode... nodes) {
             IList<AstNode> list = new DoubleLinkedList<>();
             for (AstNode node : nodes) {
@@ -106,7 +127,7 @@ public class Parser {
             return new AstNode(
                     "assign",
                     this.asList(
-                            new AstNode(ctx.varName.getText()),
+                            this.variable(ctx.varName.getText()),
                             this.visit(ctx.expr)));
         }
 
@@ -173,7 +194,11 @@ public class Parser {
 
         @Override
         public AstNode visitVariable(CalculatorGrammarParser.VariableContext ctx) {
-            return new AstNode(ctx.getText());
+            return this.variable(ctx.getText());
+        }
+
+        private AstNode variable(String name) {
+            return this.symbols == null ? new AstNode(name) : new AstNode(name, this.symbols);
         }
 
         @Override
@@ -0,0 +1,131 @@
+package datastructures.concrete;
+
+import datastructures.interfaces.IPriorityQueue;
+import misc.exceptions.EmptyContainerException;
+
+/**
+ * A priority queue kept as a 4-ary min-heap in an array.
+ *
+ * The children of the element at index i are at indices 4i + 1 through 4i + 4. A 4-ary heap is
+ * half as deep as a binary one, and the four children a percolation compares sit next to each
+ * other in the array.
+ */
+public class ArrayHeap<T extends Comparable<T>> implements IPriorityQueue<T> {
+    private static final int NUM_CHILDREN = 4;
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private T[] heap;
+    private int size;
+
+    public ArrayHeap() {
+        this.heap = makeArrayOfT(DEFAULT_CAPACITY);
+        this.size = 0;
+    }
+
+    /*
+     * This method will return a new, empty array of the given size
+     * that can contain elements of type T.
+     */
+    @SuppressWarnings("unchecked")
+    private T[] makeArrayOfT(int size) {
+        return (T[]) (new Comparable[size]);
+    }
+
+    /*
+     * removes and returns the smallest element
+     * @throws EmptyContainerException if the heap is empty
+     * @see datastructures.interfaces.IPriorityQueue#removeMin()
+     */
+    @Override
+    public T removeMin() {
+        T min = this.peekMin();
+        this.size--;
+        T last = this.heap[this.size];
+        this.heap[this.size] = null;
+        if (this.size > 0) {
+            this.percolateDown(0, last);
+        }
+        return min;
+    }
+
+    /*
+     * returns the smallest element without removing it
+     * @throws EmptyContainerException if the heap is empty
+     * @see datastructures.interfaces.IPriorityQueue#peekMin()
+     */
+    @Override
+    public T peekMin() {
+        if (this.size == 0) {
+            throw new EmptyContainerException();
+        }
+        return this.heap[0];
+    }
+
+    /*
+     * inserts the given item
+     * @throws IllegalArgumentException if the item is null
+     * @see datastructures.interfaces.IPriorityQueue#add(java.lang.Comparable)
+     */
+    @Override
+    public void add(T item) {
+        if (item == null) {
+            throw new IllegalArgumentException("cannot add null to a heap");
+        }
+        if (this.size == this.heap.length) {
+            T[] bigger = makeArrayOfT(2 * this.heap.length);
+            System.arraycopy(this.heap, 0, bigger, 0, this.size);
+            this.heap = bigger;
+        }
+        this.size++;
+        this.percolateUp(this.size - 1, item);
+    }
+
+    /*
+     * return the number of elements in the heap
+     * @see datastructures.interfaces.IPriorityQueue#size()
+     */
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    /*
+     * places 'item' at 'index' or above it, moving larger parents down into the hole
+     */
+    private void percolateUp(int index, T item) {
+        while (index > 0) {
+            int parent = (index - 1) / NUM_CHILDREN;
+            if (this.heap[parent].compareTo(item) <= 0) {
+                break;
+            }
+            this.heap[index] = this.heap[parent];
+            index = parent;
+        }
+        this.heap[index] = item;
+    }
+
+    /*
+     * places 'item' at 'index' or below it, moving smaller children up into the hole
+     */
+    private void percolateDown(int index, T item) {
+        while (true) {
+            int first = NUM_CHILDREN * index + 1;
+            if (first >= this.size) {
+                break;
+            }
+            int smallest = first;
+            int end = Math.min(first + NUM_CHILDREN, this.size);
+            for (int child = first + 1; child < end; child++) {
+                if (this.heap[child].compareTo(this.heap[smallest]) < 0) {
+                    smallest = child;
+                }
+            }
+            if (this.heap[smallest].compareTo(item) >= 0) {
+                break;
+            }
+            this.heap[index] = this.heap[smallest];
+            index = smallest;
+        }
+        this.heap[index] = item;
+    }
+}
@@ -0,0 +1,289 @@
+package datastructures.concrete.dictionaries;
+
+import datastructures.interfaces.IDictionary;
+import misc.exceptions.NoSuchKeyException;
+
+/**
+ * A dictionary that behaves like an ArrayDictionary while it is small and like a hash
+ * table once it grows large.
+ *
+ * The pairs always live in three compact, parallel arrays (keys, values and key hash codes).
+ * While the dictionary holds at most 'promoteThreshold' pairs, a lookup simply scans those
+ * arrays, which is the fastest option for a handful of keys and needs no extra memory. Once the
+ * dictionary grows past the threshold, it builds an open-addressing hash index that maps each
+ * key's hash code to its position in the arrays, so lookups take O(1) time on average. If the
+ * dictionary later shrinks below 'demoteThreshold' pairs, the index is thrown away again.
+ */
+public class AdaptiveDictionary<K, V> implements IDictionary<K, V> {
+    public static final int DEFAULT_PROMOTE_THRESHOLD = 8;
+    public static final int DEFAULT_DEMOTE_THRESHOLD = 4;
+
+    private static final int INIT_SIZE = 4;
+    private static final int EMPTY = 0;
+
+    private K[] keys;
+    private V[] values;
+    private int[] hashes;
+    private int size;
+
+    // Either null (we scan the arrays) or a linear-probing table that stores
+    // 1 + the position of a pair in the arrays, with EMPTY marking unused slots.
+    private int[] index;
+
+    private final int promoteThreshold;
+    private final int demoteThreshold;
+
+    public AdaptiveDictionary() {
+        this(DEFAULT_PROMOTE_THRESHOLD, DEFAULT_DEMOTE_THRESHOLD);
+    }
+
+    /**
+     * Creates an empty dictionary that builds its hash index once it holds more than
+     * 'promoteThreshold' pairs and drops it again once it holds fewer than 'demoteThreshold' pairs.
+     *
+     * A promote threshold of 0 means the dictionary is always hashed.
+     *
+     * @throws IllegalArgumentException  if demoteThreshold < 0 or demoteThreshold > promoteThreshold
+     */
+    public AdaptiveDictionary(int promoteThreshold, int demoteThreshold) {
+        if (demoteThreshold < 0 || demoteThreshold > promoteThreshold) {
+            throw new IllegalArgumentException(
+                    "thresholds must satisfy 0 <= demoteThreshold <= promoteThreshold");
+        }
+        this.promoteThreshold = promoteThreshold;
+        this.demoteThreshold = demoteThreshold;
+        this.keys = makeArray(INIT_SIZE);
+        this.values = makeArray(INIT_SIZE);
+        this.hashes = new int[INIT_SIZE];
+        this.size = 0;
+        this.index = null;
+        if (promoteThreshold == 0) {
+            this.buildIndex();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T[] makeArray(int arraySize) {
+        return (T[]) (new Object[arraySize]);
+    }
+
+    /**
+     * Returns 'true' if this dictionary currently uses its hash index, and 'false' if it
+     * is scanning its arrays.
+     */
+    public boolean isHashed() {
+        return this.index != null;
+    }
+
+    /*
+     * @see datastructures.interfaces.IDictionary#get(java.lang.Object)
+     */
+    @Override
+    public V get(K key) {
+        int position = this.positionOf(key, hashOf(key));
+        if (position == -1) {
+            throw new NoSuchKeyException("dictionary does not contain key");
+        }
+        return this.values[position];
+    }
+
+    /*
+     * @see datastructures.interfaces.IDictionary#getOrDefault(java.lang.Object, java.lang.Object)
+     */
+    @Override
+    public V getOrDefault(K key, V defaultValue) {
+        int position = this.positionOf(key, hashOf(key));
+        return position == -1 ? defaultValue : this.values[position];
+    }
+
+    /*
+     * @see datastructures.interfaces.IDictionary#put(java.lang.Object, java.lang.Object)
+     */
+    @Override
+    public void put(K key, V value) {
+        int hash = hashOf(key);
+        int position = this.positionOf(key, hash);
+        if (position != -1) {
+            this.values[position] = value;
+            return;
+        }
+
+        if (this.size == this.keys.length) {
+            this.resize(this.keys.length * 2);
+        }
+        this.keys[this.size] = key;
+        this.values[this.size] = value;
+        this.hashes[this.size] = hash;
+        this.size++;
+
+        if (this.index == null) {
+            if (this.size > this.promoteThreshold) {
+                this.buildIndex();
+            }
+        } else if (this.size * 2 > this.index.length) {
+            this.buildIndex();
+        } else {
+            this.insertIntoIndex(hash, this.size - 1);
+        }
+    }
+
+    /*
+     * removes the pair by moving the last pair into its position
+     * @see datastructures.interfaces.IDictionary#remove(java.lang.Object)
+     */
+    @Override
+    public V remove(K key) {
+        int hash = hashOf(key);
+        int position = this.positionOf(key, hash);
+        if (position == -1) {
+            throw new NoSuchKeyException("dictionary does not contain key");
+        }
+        V value = this.values[position];
+        int last = this.size - 1;
+
+        if (this.index != null) {
+            this.removeFromIndex(this.slotOf(hash, position));
+            if (position != last) {
+                this.index[this.slotOf(this.hashes[last], last)] = position + 1;
+            }
+        }
+        this.keys[position] = this.keys[last];
+        this.values[position] = this.values[last];
+        this.hashes[position] = this.hashes[last];
+        this.keys[last] = null;
+        this.values[last] = null;
+        this.size--;
+
+        if (this.index != null && this.size < this.demoteThreshold) {
+            this.index = null;
+        }
+        return value;
+    }
+
+    /*
+     * @see datastructures.interfaces.IDictionary#containsKey(java.lang.Object)
+     */
+    @Override
+    public boolean containsKey(K key) {
+        return this.positionOf(key, hashOf(key)) != -1;
+    }
+
+    /*
+     * @see datastructures.interfaces.IDictionary#size()
+     */
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    /*
+     * returns the hash code used for the given key; null keys hash to 0
+     */
+    private static int hashOf(Object key) {
+        int hash = key == null ? 0 : key.hashCode();
+        // Spread the high bits down, since the index only uses the low bits
+        return hash ^ (hash >>> 16);
+    }
+
+    /*
+     * returns the position of the given key in the arrays, or -1 if it is not there
+     */
+    private int positionOf(K key, int hash) {
+        if (this.index == null) {
+            for (int i = 0; i < this.size; i++) {
+                if (this.matches(i, key, hash)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        int mask = this.index.length - 1;
+        for (int slot = hash & mask; this.index[slot] != EMPTY; slot = (slot + 1) & mask) {
+            int position = this.index[slot] - 1;
+            if (this.matches(position, key, hash)) {
+                return position;
+            }
+        }
+        return -1;
+    }
+
+    private boolean matches(int position, K key, int hash) {
+        return this.hashes[position] == hash && (this.keys[position] == key
+                || (this.keys[position] != null && this.keys[position].equals(key)));
+    }
+
+    /*
+     * returns the index slot that refers to the given position
+     */
+    private int slotOf(int hash, int position) {
+        int mask = this.index.length - 1;
+        int slot = hash & mask;
+        while (this.index[slot] != position + 1) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /*
+     * (re)builds the hash index so it is at most half full
+     */
+    private void buildIndex() {
+        int length = INIT_SIZE * 2;
+        while (length < this.size * 4) {
+            length *= 2;
+        }
+        this.index = new int[length];
+        for (int i = 0; i < this.size; i++) {
+            this.insertIntoIndex(this.hashes[i], i);
+        }
+    }
+
+    private void insertIntoIndex(int hash, int position) {
+        int mask = this.index.length - 1;
+        int slot = hash & mask;
+        while (this.index[slot] != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+        this.index[slot] = position + 1;
+    }
+
+    /*
+     * empties the given slot, shifting later entries of the same probe run backwards
+     * so that no lookup ever stops early at the hole
+     */
+    private void removeFromIndex(int slot) {
+        int mask = this.index.length - 1;
+        int hole = slot;
+        int current = (hole + 1) & mask;
+        while (this.index[current] != EMPTY) {
+            int home = this.hashes[this.index[current] - 1] & mask;
+            // The entry may move into the hole only if its home slot is not
+            // cyclically within (hole, current]
+            boolean homeAfterHole = hole <= current
+                    ? (home > hole && home <= current)
+                    : (home > hole || home <= current);
+            if (!homeAfterHole) {
+                this.index[hole] = this.index[current];
+                hole = current;
+            }
+            current = (current + 1) & mask;
+        }
+        this.index[hole] = EMPTY;
+    }
+
+    /*
+     * copies every pair into new arrays of the given capacity
+     */
+    private void resize(int capacity) {
+        K[] newKeys = makeArray(capacity);
+        V[] newValues = makeArray(capacity);
+        int[] newHashes = new int[capacity];
+        System.arraycopy(this.keys, 0, newKeys, 0, this.size);
+        System.arraycopy(this.values, 0, newValues, 0, this.size);
+        System.arraycopy(this.hashes, 0, newHashes, 0, this.size);
+        this.keys = newKeys;
+        this.values = newValues;
+        this.hashes = newHashes;
+    }
+}
@@ -3,29 +3,62 @@ package datastructures.concrete.dictionaries;
 import datastructures.interfaces.IDictionary;
 import misc.exceptions.NoSuchKeyException;
 
+import java.util.function.BiFunction;
+import java.util.function.Function;
 
+
+/**
+ * A dictionary that stores its mappings in three parallel arrays: the keys, the values,
+ * and the hash code of each key.
+ *
+ * A lookup scans the hash codes first and only calls 'equals' on a key whose hash code
+ * matches, so most probes never have to load the key object at all.
+ */
 public class ArrayDictionary<K, V> implements IDictionary<K, V> {
 
-    private Pair<K, V>[] pairs;
+    private K[] keys;
+    private V[] values;
+    private int[] hashes;
 
     private int size;
+    private Ordering ordering;
     private static final int INIT_SIZE = 10;
     
     public ArrayDictionary() {
-        this.pairs = makeArrayOfPairs(INIT_SIZE);
+        this(Ordering.STATIC);
+    }
+
+    /**
+     * Creates an empty dictionary that reorders its pairs on every successful lookup
+     * according to the given ordering.
+     */
+    public ArrayDictionary(Ordering ordering) {
+        if (ordering == null) {
+            throw new IllegalArgumentException("ordering cannot be null");
+        }
+        this.keys = makeArray(INIT_SIZE);
+        this.values = makeArray(INIT_SIZE);
+        this.hashes = new int[INIT_SIZE];
         this.size = 0;
+        this.ordering = ordering;
     }
 
     /**
      * This method will return a new, empty array of the given size
-     * that can contain Pair<K, V> objects.
+     * that can contain either keys or values.
      *
      * Note that each element in the array will initially be null.
      */
     @SuppressWarnings("unchecked")
-    private Pair<K, V>[] makeArrayOfPairs(int arraySize) {
-        return (Pair<K, V>[]) (new Pair[arraySize]);
+    private static <T> T[] makeArray(int arraySize) {
+        return (T[]) (new Object[arraySize]);
+    }
 
+    /**
+     * Returns the strategy this dictionary uses to reorder its pairs after a lookup.
+     */
+    public Ordering getOrdering() {
+        return this.ordering;
     }
     
     /*
@@ -35,15 +68,25 @@ public class ArrayDictionary<K, V> implements IDictionary<K, V> {
      */
     @Override
     public V get(K key) {
-        int index = this.indexOf(key);
+        int index = this.find(key);
         this.checkKey(index);
-        if (this.pairs[index].key == key || (this.pairs[index].key != null &&
-                this.pairs[index].key.equals(key))) {
-            return (V) this.pairs[index].value;
-        }
-        return null; 
+        return this.values[index];
     }
     
+    /*
+     * return the value that is matching with the given key, or the given default value
+     * if there is no such key
+     * @see datastructures.interfaces.IDictionary#getOrDefault(java.lang.Object, java.lang.Object)
+     */
+    @Override
+    public V getOrDefault(K key, V defaultValue) {
+        int index = this.find(key);
+        if (index == -1) {
+            return defaultValue;
+        }
+        return this.values[index];
+    }
+
     /*
      * @throws NoSuchKeyException if there is no key that matches with the key
      * passed in as a parameter
@@ -61,55 +104,136 @@ public class ArrayDictionary<K, V> implements IDictionary<K, V> {
      */
     @Override
     public void put(K key, V value) {
-        int index = this.indexOf(key);
+        int hash = hashOf(key);
+        int index = this.find(key, hash);
         if (index == -1) {
-            if (this.size < this.pairs.length) {
-                this.pairs[this.size] = new Pair<>(key, value);
-            } else {
-                Pair<K, V>[] result = makeArrayOfPairs(this.pairs.length * 2);
-                for (int i = 0; i < this.size; i++) {
-                    result[i] = this.pairs[i];
-                }
-                result[this.size] = new Pair<>(key, value);
-                this.pairs = result;
-            }
-            this.size++;
+            this.append(key, value, hash);
         } else {
-            if (this.pairs[index].key == key || (this.pairs[index].key != null && 
-                    this.pairs[index].key.equals(key))) {
-                this.pairs[index] = new Pair<>(key, value);
-            }
+            this.values[index] = value;
+        }
+    }
+
+    /*
+     * adds the pair if the key is not in the dictionary yet, and returns the existing
+     * value (or null if the pair was added)
+     * @see datastructures.interfaces.IDictionary#putIfAbsent(java.lang.Object, java.lang.Object)
+     */
+    @Override
+    public V putIfAbsent(K key, V value) {
+        int hash = hashOf(key);
+        int index = this.find(key, hash);
+        if (index == -1) {
+            this.append(key, value, hash);
+            return null;
+        }
+        return this.values[index];
+    }
+
+    /*
+     * returns the value of the given key, computing and adding it with the given function
+     * first if the key is not in the dictionary yet
+     * @see datastructures.interfaces.IDictionary#computeIfAbsent(java.lang.Object, java.util.function.Function)
+     */
+    @Override
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        int hash = hashOf(key);
+        int index = this.find(key, hash);
+        if (index == -1) {
+            V value = mappingFunction.apply(key);
+            this.append(key, value, hash);
+            return value;
+        }
+        return this.values[index];
+    }
+
+    /*
+     * replaces the value of the given key with the result of the given function
+     * @see datastructures.interfaces.IDictionary#compute(java.lang.Object, java.util.function.BiFunction)
+     */
+    @Override
+    public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        int hash = hashOf(key);
+        int index = this.find(key, hash);
+        if (index == -1) {
+            V value = remappingFunction.apply(key, null);
+            this.append(key, value, hash);
+            return value;
         }
+        V value = remappingFunction.apply(key, this.values[index]);
+        this.values[index] = value;
+        return value;
+    }
+
+    /*
+     * adds the pair if the key is not in the dictionary yet, otherwise combines the existing
+     * value with the given one using the given function
+     * @see datastructures.interfaces.IDictionary#merge(java.lang.Object, java.lang.Object, java.util.function.BiFunction)
+     */
+    @Override
+    public V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        int hash = hashOf(key);
+        int index = this.find(key, hash);
+        if (index == -1) {
+            this.append(key, value, hash);
+            return value;
+        }
+        V newValue = remappingFunction.apply(this.values[index], value);
+        this.values[index] = newValue;
+        return newValue;
+    }
+
+    /*
+     * adds a pair whose key is known not to be in the dictionary yet to the end of the arrays
+     */
+    private void append(K key, V value, int hash) {
+        if (this.size == this.keys.length) {
+            this.resize(this.keys.length * 2);
+        }
+        this.keys[this.size] = key;
+        this.values[this.size] = value;
+        this.hashes[this.size] = hash;
+        this.size++;
+    }
+
+    /*
+     * copies every pair into new arrays of the given capacity
+     */
+    private void resize(int capacity) {
+        K[] newKeys = makeArray(capacity);
+        V[] newValues = makeArray(capacity);
+        int[] newHashes = new int[capacity];
+        System.arraycopy(this.keys, 0, newKeys, 0, this.size);
+        System.arraycopy(this.values, 0, newValues, 0, this.size);
+        System.arraycopy(this.hashes, 0, newHashes, 0, this.size);
+        this.keys = newKeys;
+        this.values = newValues;
+        this.hashes = newHashes;
     }
 
     /*
      * remove the given key passed in as a parameter and its value, from the dictionary
+     * in the self-organizing orderings the relative order of the remaining pairs is kept,
+     * otherwise the last pair is moved into the hole
      * @throws NoSuchKeyException if there is no key matching key in dictionary
      * @see datastructures.interfaces.IDictionary#remove(java.lang.Object)
      */
     @Override
     public V remove(K key) {
-        int index = this.indexOf(key);
+        int index = this.indexOf(key, hashOf(key));
         this.checkKey(index);
-        V temp = null;
-        if (this.pairs[this.size - 1].key == key || (this.pairs[this.size - 1].key != null && 
-                this.pairs[this.size - 1].key.equals(key))) {
-            temp = this.pairs[this.size - 1].value;
-            this.pairs[this.size - 1] = null;
-            this.size--;
-            return(V) temp;
+        V temp = this.values[index];
+        int last = this.size - 1;
+        if (this.ordering == Ordering.STATIC) {
+            this.move(last, index);
         } else {
-            if (this.pairs[index].key == key || (this.pairs[index].key != null && 
-                    this.pairs[index].key.equals(key))) {
-                temp = this.pairs[index].value;
-                this.pairs[index] = this.pairs[this.size - 1];
-                this.pairs[this.size - 1] = null;
-                this.size--;
-                return (V) temp;
-            }
+            System.arraycopy(this.keys, index + 1, this.keys, index, last - index);
+            System.arraycopy(this.values, index + 1, this.values, index, last - index);
+            System.arraycopy(this.hashes, index + 1, this.hashes, index, last - index);
         }
+        this.keys[last] = null;
+        this.values[last] = null;
         this.size--;
-        return (V) temp;
+        return temp;
     }
 
     /*
@@ -120,23 +244,74 @@ public class ArrayDictionary<K, V> implements IDictionary<K, V> {
      */
     @Override
     public boolean containsKey(K key) {
-        return indexOf(key) != -1;
+        return this.find(key) != -1;
+    }
+
+    /*
+     * returns the hash code used for the given key; null keys hash to 0
+     */
+    private static int hashOf(Object key) {
+        return key == null ? 0 : key.hashCode();
     }
     
     /*
-     * returns the index of a key passed in as a parameter
+     * returns the index of a key with the given hash code passed in as parameters
      * if key is not found returns -1
      */
-    private int indexOf(K key) {
+    private int indexOf(K key, int hash) {
         for (int i = 0; i < this.size; i++) {
-            if (this.pairs[i].key == key || (this.pairs[i].key != null && 
-                    this.pairs[i].key.equals(key))) {
+            if (this.hashes[i] == hash && (this.keys[i] == key || (this.keys[i] != null
+                    && this.keys[i].equals(key)))) {
                 return i; 
             }
         }
         return -1;
     }
 
+    /*
+     * returns the index of a key passed in as a parameter after the pair has
+     * been moved according to the ordering of this dictionary
+     * if key is not found returns -1
+     */
+    private int find(K key) {
+        return this.find(key, hashOf(key));
+    }
+
+    private int find(K key, int hash) {
+        int index = this.indexOf(key, hash);
+        if (index > 0) {
+            if (this.ordering == Ordering.MOVE_TO_FRONT) {
+                K foundKey = this.keys[index];
+                V foundValue = this.values[index];
+                System.arraycopy(this.keys, 0, this.keys, 1, index);
+                System.arraycopy(this.values, 0, this.values, 1, index);
+                System.arraycopy(this.hashes, 0, this.hashes, 1, index);
+                this.keys[0] = foundKey;
+                this.values[0] = foundValue;
+                this.hashes[0] = hash;
+                return 0;
+            } else if (this.ordering == Ordering.TRANSPOSE) {
+                K foundKey = this.keys[index];
+                V foundValue = this.values[index];
+                this.move(index - 1, index);
+                this.keys[index - 1] = foundKey;
+                this.values[index - 1] = foundValue;
+                this.hashes[index - 1] = hash;
+                return index - 1;
+            }
+        }
+        return index;
+    }
+
+    /*
+     * copies the pair at index 'from' over the pair at index 'to'
+     */
+    private void move(int from, int to) {
+        this.keys[to] = this.keys[from];
+        this.values[to] = this.values[from];
+        this.hashes[to] = this.hashes[from];
+    }
+
     /*
      * return the size of dictionary
      * @see datastructures.interfaces.IDictionary#size()
@@ -146,22 +321,26 @@ public class ArrayDictionary<K, V> implements IDictionary<K, V> {
         return this.size;
     }
 
-    /*
-     * creates a pair of key and value
+    /**
+     * The strategies an ArrayDictionary can use to reorder its pairs whenever a key is found.
+     *
+     * Keeping frequently used keys near the front of the array means they are found after
+     * only a few comparisons, which pays off when lookups are heavily skewed towards a few keys.
      */
-    private static class Pair<K, V> {
-        public K key;
-        public V value;
+    public enum Ordering {
+        /**
+         * Pairs stay in insertion order (removals move the last pair into the hole).
+         */
+        STATIC,
 
-        // initiates the pair with given key and value
-        public Pair(K key, V value) {
-            this.key = key;
-            this.value = value;
-        }
+        /**
+         * A found pair is moved to the front of the array.
+         */
+        MOVE_TO_FRONT,
 
-        @Override
-        public String toString() {
-            return this.key + "=" + this.value;
-        }
+        /**
+         * A found pair is swapped with the pair directly in front of it.
+         */
+        TRANSPOSE,
     }
 }
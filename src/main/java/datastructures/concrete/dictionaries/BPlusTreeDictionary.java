@@ -0,0 +1,637 @@
+package datastructures.concrete.dictionaries;
+
+import datastructures.interfaces.IDictionary;
+import misc.exceptions.NoSuchKeyException;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.function.BiConsumer;
+
+/**
+ * A dictionary stored as a B+-tree inside a single file, so it can hold far more pairs than
+ * fit in memory and can be reopened later.
+ *
+ * The file is split into fixed-size pages. Page 0 is a header; every other page is a tree node.
+ * Leaf nodes hold the key-value pairs in sorted order and are chained together, so a range scan
+ * reads the leaves one after another. Internal nodes hold separator keys and child page numbers.
+ *
+ * Pages are read through an LRU page cache (an LruCacheDictionary of decoded nodes). Modified
+ * pages are written back to the file when the cache evicts them, and on 'flush' or 'close'.
+ * The cache must be able to hold the path from the root to a leaf plus the pages created by
+ * splitting it, so it needs at least MIN_CACHE_PAGES pages.
+ *
+ * Keys and values are written with fixed-width codecs; null keys and values are not supported.
+ * Removing a pair never merges pages, so the file does not shrink.
+ *
+ * Note: any IOException is rethrown as a RuntimeException, matching the rest of this project.
+ */
+public class BPlusTreeDictionary<K extends Comparable<K>, V> implements IDictionary<K, V>, Closeable {
+    public static final int DEFAULT_PAGE_SIZE = 4096;
+    public static final int MIN_CACHE_PAGES = 16;
+
+    private static final int MAGIC = 0x42504c54;
+    private static final long NO_PAGE = -1L;
+    private static final long HEADER_PAGE = 0L;
+
+    // Every node page starts with a type byte, the number of keys and the next leaf page
+    private static final int NODE_HEADER_SIZE = 1 + 4 + 8;
+    private static final byte LEAF = 0;
+    private static final byte INTERNAL = 1;
+
+    private final FileChannel channel;
+    private final Codec<K> keyCodec;
+    private final Codec<V> valueCodec;
+    private final int pageSize;
+    private final int leafCapacity;
+    private final int internalCapacity;
+    private final ByteBuffer readBuffer;
+    private final ByteBuffer writeBuffer;
+    private final LruCacheDictionary<Long, Node<K, V>> cache;
+
+    private long root;
+    private long pageCount;
+    private long size;
+
+    /**
+     * Opens the B+-tree stored in the given file using the default page size, creating an
+     * empty tree if the file does not exist or is empty.
+     */
+    public BPlusTreeDictionary(File file, Codec<K> keyCodec, Codec<V> valueCodec, int cachePages) {
+        this(file, keyCodec, valueCodec, cachePages, DEFAULT_PAGE_SIZE);
+    }
+
+    /**
+     * Opens the B+-tree stored in the given file, creating an empty tree with the given page
+     * size if the file does not exist or is empty. The page cache holds 'cachePages' pages.
+     *
+     * @throws IllegalArgumentException  if the cache is too small, if the page size cannot fit at
+     *                                   least three pairs per page, or if the existing file was
+     *                                   written with different codec widths
+     */
+    public BPlusTreeDictionary(File file, Codec<K> keyCodec, Codec<V> valueCodec,
+                               int cachePages, int pageSize) {
+        if (cachePages < MIN_CACHE_PAGES) {
+            throw new IllegalArgumentException("the page cache needs at least " + MIN_CACHE_PAGES + " pages");
+        }
+        this.keyCodec = keyCodec;
+        this.valueCodec = valueCodec;
+        try {
+            this.channel = FileChannel.open(file.toPath(),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            if (this.channel.size() > 0) {
+                ByteBuffer header = ByteBuffer.allocate(4 * 4 + 8 * 3);
+                this.channel.read(header, 0L);
+                header.flip();
+                if (header.getInt() != MAGIC) {
+                    throw new IllegalArgumentException("file does not contain a B+-tree: " + file);
+                }
+                pageSize = header.getInt();
+                if (header.getInt() != keyCodec.width() || header.getInt() != valueCodec.width()) {
+                    throw new IllegalArgumentException("file was written with different key or value codecs");
+                }
+                this.root = header.getLong();
+                this.size = header.getLong();
+                this.pageCount = header.getLong();
+            } else {
+                this.root = NO_PAGE;
+                this.size = 0L;
+                this.pageCount = 1L;
+            }
+        } catch (IOException ex) {
+            throw new RuntimeException(ex);
+        }
+
+        this.pageSize = pageSize;
+        this.leafCapacity = (pageSize - NODE_HEADER_SIZE) / (keyCodec.width() + valueCodec.width());
+        this.internalCapacity = (pageSize - NODE_HEADER_SIZE - 8) / (keyCodec.width() + 8);
+        if (this.leafCapacity < 3 || this.internalCapacity < 3) {
+            throw new IllegalArgumentException("page size is too small for the key and value widths");
+        }
+        this.readBuffer = ByteBuffer.allocate(pageSize);
+        this.writeBuffer = ByteBuffer.allocate(pageSize);
+        this.cache = new LruCacheDictionary<>(cachePages, (id, node) -> this.writeIfDirty(node));
+
+        if (this.root == NO_PAGE) {
+            this.root = this.newNode(true).id;
+        }
+    }
+
+    /*
+     * @see datastructures.interfaces.IDictionary#get(java.lang.Object)
+     */
+    @Override
+    public V get(K key) {
+        Node<K, V> leaf = this.findLeaf(checkKey(key));
+        int index = leaf.search(key);
+        if (index < 0) {
+            throw new NoSuchKeyException("dictionary does not contain key");
+        }
+        return leaf.values[index];
+    }
+
+    /*
+     * @see datastructures.interfaces.IDictionary#getOrDefault(java.lang.Object, java.lang.Object)
+     */
+    @Override
+    public V getOrDefault(K key, V defaultValue) {
+        Node<K, V> leaf = this.findLeaf(checkKey(key));
+        int index = leaf.search(key);
+        return index < 0 ? defaultValue : leaf.values[index];
+    }
+
+    /*
+     * @see datastructures.interfaces.IDictionary#put(java.lang.Object, java.lang.Object)
+     */
+    @Override
+    public void put(K key, V value) {
+        checkKey(key);
+        if (value == null) {
+            throw new IllegalArgumentException("null values are not supported");
+        }
+        // Pages are encoded lazily, so make sure they can be encoded before we store anything
+        this.keyCodec.validate(key);
+        this.valueCodec.validate(value);
+        Node<K, V> rootNode = this.load(this.root);
+        Split<K> split = this.insert(rootNode, key, value);
+        if (split != null) {
+            Node<K, V> newRoot = this.newNode(false);
+            newRoot.keys[0] = split.separator;
+            newRoot.children[0] = rootNode.id;
+            newRoot.children[1] = split.right;
+            newRoot.count = 1;
+            this.root = newRoot.id;
+        }
+    }
+
+    /*
+     * removes the pair from its leaf; pages are never merged
+     * @see datastructures.interfaces.IDictionary#remove(java.lang.Object)
+     */
+    @Override
+    public V remove(K key) {
+        Node<K, V> leaf = this.findLeaf(checkKey(key));
+        int index = leaf.search(key);
+        if (index < 0) {
+            throw new NoSuchKeyException("dictionary does not contain key");
+        }
+        V value = leaf.values[index];
+        System.arraycopy(leaf.keys, index + 1, leaf.keys, index, leaf.count - index - 1);
+        System.arraycopy(leaf.values, index + 1, leaf.values, index, leaf.count - index - 1);
+        leaf.count--;
+        leaf.keys[leaf.count] = null;
+        leaf.values[leaf.count] = null;
+        this.markDirty(leaf);
+        this.size--;
+        return value;
+    }
+
+    /*
+     * @see datastructures.interfaces.IDictionary#containsKey(java.lang.Object)
+     */
+    @Override
+    public boolean containsKey(K key) {
+        return this.findLeaf(checkKey(key)).search(key) >= 0;
+    }
+
+    /*
+     * @see datastructures.interfaces.IDictionary#size()
+     */
+    @Override
+    public int size() {
+        return (int) Math.min(Integer.MAX_VALUE, this.size);
+    }
+
+    /**
+     * Passes every pair whose key is at least 'from' and less than 'to' to the given action,
+     * in increasing key order. The leaves are visited one after another along their chain.
+     */
+    public void forEach(K from, K to, BiConsumer<? super K, ? super V> action) {
+        Node<K, V> leaf = this.findLeaf(checkKey(from));
+        int index = leaf.search(from);
+        if (index < 0) {
+            index = -(index + 1);
+        }
+        while (true) {
+            for (; index < leaf.count; index++) {
+                if (leaf.keys[index].compareTo(to) >= 0) {
+                    return;
+                }
+                action.accept(leaf.keys[index], leaf.values[index]);
+            }
+            if (leaf.next == NO_PAGE) {
+                return;
+            }
+            leaf = this.load(leaf.next);
+            index = 0;
+        }
+    }
+
+    /**
+     * Returns how many page lookups were answered by the page cache.
+     */
+    public long getCacheHits() {
+        return this.cache.getHits();
+    }
+
+    /**
+     * Returns how many page lookups had to read the page from the file.
+     */
+    public long getCacheMisses() {
+        return this.cache.getMisses();
+    }
+
+    /**
+     * Writes every modified page and the header to the file.
+     */
+    public void flush() {
+        this.cache.forEach((id, node) -> this.writeIfDirty(node));
+        ByteBuffer header = this.writeBuffer;
+        header.clear();
+        header.putInt(MAGIC);
+        header.putInt(this.pageSize);
+        header.putInt(this.keyCodec.width());
+        header.putInt(this.valueCodec.width());
+        header.putLong(this.root);
+        header.putLong(this.size);
+        header.putLong(this.pageCount);
+        this.writePage(HEADER_PAGE, header);
+        try {
+            this.channel.force(false);
+        } catch (IOException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    /**
+     * Flushes this dictionary and closes its file. The dictionary cannot be used afterwards.
+     */
+    @Override
+    public void close() {
+        this.flush();
+        try {
+            this.channel.close();
+        } catch (IOException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    private static <K> K checkKey(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException("null keys are not supported");
+        }
+        return key;
+    }
+
+    private Node<K, V> findLeaf(K key) {
+        Node<K, V> current = this.load(this.root);
+        while (!current.leaf) {
+            current = this.load(current.children[current.childIndex(key)]);
+        }
+        return current;
+    }
+
+    /*
+     * inserts the pair below the given node; if the node had to split, returns the separator
+     * key and the page of the new right sibling so the parent can link it in
+     */
+    private Split<K> insert(Node<K, V> node, K key, V value) {
+        if (node.leaf) {
+            int index = node.search(key);
+            if (index >= 0) {
+                node.values[index] = value;
+                this.markDirty(node);
+                return null;
+            }
+            index = -(index + 1);
+            System.arraycopy(node.keys, index, node.keys, index + 1, node.count - index);
+            System.arraycopy(node.values, index, node.values, index + 1, node.count - index);
+            node.keys[index] = key;
+            node.values[index] = value;
+            node.count++;
+            this.size++;
+            this.markDirty(node);
+            return node.count > this.leafCapacity ? this.splitLeaf(node) : null;
+        }
+
+        int index = node.childIndex(key);
+        Split<K> split = this.insert(this.load(node.children[index]), key, value);
+        if (split == null) {
+            return null;
+        }
+        System.arraycopy(node.keys, index, node.keys, index + 1, node.count - index);
+        System.arraycopy(node.children, index + 1, node.children, index + 2, node.count - index);
+        node.keys[index] = split.separator;
+        node.children[index + 1] = split.right;
+        node.count++;
+        this.markDirty(node);
+        return node.count > this.internalCapacity ? this.splitInternal(node) : null;
+    }
+
+    private Split<K> splitLeaf(Node<K, V> node) {
+        Node<K, V> right = this.newNode(true);
+        int mid = node.count / 2;
+        right.count = node.count - mid;
+        System.arraycopy(node.keys, mid, right.keys, 0, right.count);
+        System.arraycopy(node.values, mid, right.values, 0, right.count);
+        for (int i = mid; i < node.count; i++) {
+            node.keys[i] = null;
+            node.values[i] = null;
+        }
+        node.count = mid;
+        right.next = node.next;
+        node.next = right.id;
+        this.markDirty(node);
+        return new Split<>(right.keys[0], right.id);
+    }
+
+    private Split<K> splitInternal(Node<K, V> node) {
+        Node<K, V> right = this.newNode(false);
+        int mid = node.count / 2;
+        K separator = node.keys[mid];
+        right.count = node.count - mid - 1;
+        System.arraycopy(node.keys, mid + 1, right.keys, 0, right.count);
+        System.arraycopy(node.children, mid + 1, right.children, 0, right.count + 1);
+        for (int i = mid; i < node.count; i++) {
+            node.keys[i] = null;
+        }
+        node.count = mid;
+        this.markDirty(node);
+        return new Split<>(separator, right.id);
+    }
+
+    /*
+     * returns the node stored in the given page, reading it from the file on a cache miss
+     */
+    private Node<K, V> load(long id) {
+        Node<K, V> node = this.cache.getOrNull(id);
+        if (node != null) {
+            return node;
+        }
+        ByteBuffer page = this.readBuffer;
+        page.clear();
+        try {
+            while (page.hasRemaining()) {
+                if (this.channel.read(page, id * this.pageSize + page.position()) < 0) {
+                    break;
+                }
+            }
+        } catch (IOException ex) {
+            throw new RuntimeException(ex);
+        }
+        page.flip();
+
+        node = new Node<>(id, page.get() == LEAF, this.leafCapacity, this.internalCapacity);
+        node.count = page.getInt();
+        node.next = page.getLong();
+        if (node.leaf) {
+            for (int i = 0; i < node.count; i++) {
+                node.keys[i] = this.keyCodec.read(page);
+                node.values[i] = this.valueCodec.read(page);
+            }
+        } else {
+            node.children[0] = page.getLong();
+            for (int i = 0; i < node.count; i++) {
+                node.keys[i] = this.keyCodec.read(page);
+                node.children[i + 1] = page.getLong();
+            }
+        }
+        this.cache.put(id, node);
+        return node;
+    }
+
+    private Node<K, V> newNode(boolean leaf) {
+        Node<K, V> node = new Node<>(this.pageCount, leaf, this.leafCapacity, this.internalCapacity);
+        this.pageCount++;
+        this.markDirty(node);
+        return node;
+    }
+
+    /*
+     * Records that the node must be written back. Putting it into the cache again also makes
+     * sure it is cached (and thus eventually written) even if it was evicted while we held it.
+     */
+    private void markDirty(Node<K, V> node) {
+        node.dirty = true;
+        this.cache.put(node.id, node);
+    }
+
+    private void writeIfDirty(Node<K, V> node) {
+        if (!node.dirty) {
+            return;
+        }
+        ByteBuffer page = this.writeBuffer;
+        page.clear();
+        page.put(node.leaf ? LEAF : INTERNAL);
+        page.putInt(node.count);
+        page.putLong(node.next);
+        if (node.leaf) {
+            for (int i = 0; i < node.count; i++) {
+                this.keyCodec.write(page, node.keys[i]);
+                this.valueCodec.write(page, node.values[i]);
+            }
+        } else {
+            page.putLong(node.children[0]);
+            for (int i = 0; i < node.count; i++) {
+                this.keyCodec.write(page, node.keys[i]);
+                page.putLong(node.children[i + 1]);
+            }
+        }
+        // Always write whole pages so the file never ends in the middle of a page
+        page.position(this.pageSize);
+        this.writePage(node.id, page);
+        node.dirty = false;
+    }
+
+    private void writePage(long id, ByteBuffer page) {
+        page.position(this.pageSize);
+        page.flip();
+        try {
+            while (page.hasRemaining()) {
+                this.channel.write(page, id * this.pageSize + page.position());
+            }
+        } catch (IOException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    /**
+     * Converts keys or values of type T to and from a fixed number of bytes.
+     */
+    public interface Codec<T> {
+        /**
+         * Returns the number of bytes every encoded item takes up.
+         */
+        int width();
+
+        /**
+         * Checks that the item can be encoded.
+         *
+         * @throws IllegalArgumentException  if the item cannot be encoded
+         */
+        default void validate(T item) {
+            // By default, every item can be encoded
+        }
+
+        /**
+         * Writes exactly 'width()' bytes representing the item into the buffer.
+         */
+        void write(ByteBuffer buffer, T item);
+
+        /**
+         * Reads 'width()' bytes from the buffer and returns the item they represent.
+         */
+        T read(ByteBuffer buffer);
+    }
+
+    public static final Codec<Long> LONG_CODEC = new Codec<Long>() {
+        @Override
+        public int width() {
+            return 8;
+        }
+
+        @Override
+        public void write(ByteBuffer buffer, Long item) {
+            buffer.putLong(item);
+        }
+
+        @Override
+        public Long read(ByteBuffer buffer) {
+            return buffer.getLong();
+        }
+    };
+
+    public static final Codec<Double> DOUBLE_CODEC = new Codec<Double>() {
+        @Override
+        public int width() {
+            return 8;
+        }
+
+        @Override
+        public void write(ByteBuffer buffer, Double item) {
+            buffer.putDouble(item);
+        }
+
+        @Override
+        public Double read(ByteBuffer buffer) {
+            return buffer.getDouble();
+        }
+    };
+
+    /**
+     * Returns a codec for strings of at most 'maxLength' characters.
+     */
+    public static Codec<String> stringCodec(int maxLength) {
+        return new Codec<String>() {
+            @Override
+            public int width() {
+                return 2 + 2 * maxLength;
+            }
+
+            @Override
+            public void validate(String item) {
+                if (item.length() > maxLength) {
+                    throw new IllegalArgumentException("string is longer than " + maxLength + " characters");
+                }
+            }
+
+            @Override
+            public void write(ByteBuffer buffer, String item) {
+                buffer.putShort((short) item.length());
+                for (int i = 0; i < maxLength; i++) {
+                    buffer.putChar(i < item.length() ? item.charAt(i) : '\0');
+                }
+            }
+
+            @Override
+            public String read(ByteBuffer buffer) {
+                int length = buffer.getShort();
+                char[] chars = new char[length];
+                for (int i = 0; i < maxLength; i++) {
+                    char ch = buffer.getChar();
+                    if (i < length) {
+                        chars[i] = ch;
+                    }
+                }
+                return new String(chars);
+            }
+        };
+    }
+
+    /*
+     * a decoded page; leaves use 'keys', 'values' and 'next', internal nodes use 'keys'
+     * and 'children' (which has one more entry than there are keys)
+     */
+    private static class Node<K extends Comparable<K>, V> {
+        public final long id;
+        public final boolean leaf;
+        public int count;
+        public K[] keys;
+        public V[] values;
+        public long[] children;
+        public long next;
+        public boolean dirty;
+
+        @SuppressWarnings("unchecked")
+        public Node(long id, boolean leaf, int leafCapacity, int internalCapacity) {
+            this.id = id;
+            this.leaf = leaf;
+            this.count = 0;
+            this.next = NO_PAGE;
+            // Each array has room for one extra entry so a node can overflow before it splits
+            if (leaf) {
+                this.keys = (K[]) new Comparable[leafCapacity + 1];
+                this.values = (V[]) new Object[leafCapacity + 1];
+            } else {
+                this.keys = (K[]) new Comparable[internalCapacity + 1];
+                this.children = new long[internalCapacity + 2];
+            }
+        }
+
+        // binary search over the keys; returns the index of the key, or -(insertion point) - 1
+        public int search(K key) {
+            int low = 0;
+            int high = this.count - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int cmp = this.keys[mid].compareTo(key);
+                if (cmp < 0) {
+                    low = mid + 1;
+                } else if (cmp > 0) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -(low + 1);
+        }
+
+        // returns which child may contain the key: keys equal to a separator live to its right
+        public int childIndex(K key) {
+            int low = 0;
+            int high = this.count;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (this.keys[mid].compareTo(key) <= 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+
+    private static class Split<K> {
+        public final K separator;
+        public final long right;
+
+        public Split(K separator, long right) {
+            this.separator = separator;
+            this.right = right;
+        }
+    }
+}
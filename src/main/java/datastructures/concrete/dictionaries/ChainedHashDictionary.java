@@ -0,0 +1,299 @@
+package datastructures.concrete.dictionaries;
+
+import datastructures.interfaces.IDictionary;
+import misc.exceptions.NoSuchKeyException;
+
+/**
+ * A hash table that resolves collisions by chaining entries together within each bucket.
+ *
+ * Like every table that grows by doubling, it eventually has to move all of its entries into
+ * a bigger bucket array. By default this happens all at once inside the 'put' that crosses the
+ * load factor, which makes that one call take O(n) time.
+ *
+ * When constructed with 'incrementalRehash' set to true, the table instead keeps both the old
+ * and the new bucket arrays around while it grows, and every subsequent operation migrates a few
+ * old buckets into the new array. No single operation then does more than a constant amount of
+ * rehashing work. While a resize is in progress, lookups check both arrays and new entries always
+ * go into the new one.
+ */
+public class ChainedHashDictionary<K, V> implements IDictionary<K, V> {
+    private static final int INIT_BUCKETS = 16;
+
+    // The number of non-empty old buckets one operation migrates during an incremental resize,
+    // and how many empty buckets it may skip over for each of them
+    private static final int BUCKETS_PER_STEP = 4;
+    private static final int EMPTY_VISITS_PER_BUCKET = 10;
+
+    private final boolean incrementalRehash;
+
+    private Entry<K, V>[] table;
+    // Only non-null while an incremental resize is in progress: 'table' is then the old array,
+    // 'newTable' the new one, and every old bucket before 'rehashIndex' has been migrated.
+    private Entry<K, V>[] newTable;
+    private int rehashIndex;
+    private int size;
+
+    public ChainedHashDictionary() {
+        this(false);
+    }
+
+    /**
+     * Creates an empty table. If 'incrementalRehash' is true, resizing the table is spread over
+     * the operations that follow instead of happening all at once.
+     */
+    public ChainedHashDictionary(boolean incrementalRehash) {
+        this.incrementalRehash = incrementalRehash;
+        this.table = makeArrayOfEntries(INIT_BUCKETS);
+        this.newTable = null;
+        this.rehashIndex = 0;
+        this.size = 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <K, V> Entry<K, V>[] makeArrayOfEntries(int arraySize) {
+        return (Entry<K, V>[]) (new Entry[arraySize]);
+    }
+
+    /**
+     * Returns 'true' if this table spreads its resizes over later operations.
+     */
+    public boolean isIncrementalRehash() {
+        return this.incrementalRehash;
+    }
+
+    /**
+     * Returns 'true' if an incremental resize is currently in progress.
+     */
+    public boolean isRehashing() {
+        return this.newTable != null;
+    }
+
+    /*
+     * @see datastructures.interfaces.IDictionary#get(java.lang.Object)
+     */
+    @Override
+    public V get(K key) {
+        Entry<K, V> entry = this.findEntry(key, hashOf(key));
+        if (entry == null) {
+            throw new NoSuchKeyException("dictionary does not contain key");
+        }
+        return entry.value;
+    }
+
+    /*
+     * @see datastructures.interfaces.IDictionary#getOrDefault(java.lang.Object, java.lang.Object)
+     */
+    @Override
+    public V getOrDefault(K key, V defaultValue) {
+        Entry<K, V> entry = this.findEntry(key, hashOf(key));
+        return entry == null ? defaultValue : entry.value;
+    }
+
+    /*
+     * @see datastructures.interfaces.IDictionary#put(java.lang.Object, java.lang.Object)
+     */
+    @Override
+    public void put(K key, V value) {
+        int hash = hashOf(key);
+        Entry<K, V> entry = this.findEntry(key, hash);
+        if (entry != null) {
+            entry.value = value;
+            return;
+        }
+
+        Entry<K, V>[] target = this.newTable == null ? this.table : this.newTable;
+        int index = hash & (target.length - 1);
+        target[index] = new Entry<>(key, value, hash, target[index]);
+        this.size++;
+
+        if (this.size > target.length / 4 * 3) {
+            this.grow();
+        }
+    }
+
+    /*
+     * @see datastructures.interfaces.IDictionary#remove(java.lang.Object)
+     */
+    @Override
+    public V remove(K key) {
+        int hash = hashOf(key);
+        this.rehashStep();
+        Entry<K, V> removed = null;
+        if (this.newTable != null) {
+            removed = this.removeFrom(this.newTable, key, hash);
+        }
+        if (removed == null) {
+            removed = this.removeFrom(this.table, key, hash);
+        }
+        if (removed == null) {
+            throw new NoSuchKeyException("dictionary does not contain key");
+        }
+        return removed.value;
+    }
+
+    /*
+     * @see datastructures.interfaces.IDictionary#containsKey(java.lang.Object)
+     */
+    @Override
+    public boolean containsKey(K key) {
+        return this.findEntry(key, hashOf(key)) != null;
+    }
+
+    /*
+     * @see datastructures.interfaces.IDictionary#size()
+     */
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    /*
+     * returns the hash code used for the given key; null keys hash to 0
+     */
+    private static int hashOf(Object key) {
+        int hash = key == null ? 0 : key.hashCode();
+        // Spread the high bits down, since we only use the low bits to pick a bucket
+        return hash ^ (hash >>> 16);
+    }
+
+    private Entry<K, V> findEntry(K key, int hash) {
+        this.rehashStep();
+        if (this.newTable != null) {
+            Entry<K, V> entry = findIn(this.newTable, key, hash);
+            if (entry != null) {
+                return entry;
+            }
+        }
+        return findIn(this.table, key, hash);
+    }
+
+    private static <K, V> Entry<K, V> findIn(Entry<K, V>[] buckets, K key, int hash) {
+        Entry<K, V> current = buckets[hash & (buckets.length - 1)];
+        while (current != null) {
+            if (current.hash == hash && (current.key == key
+                    || (current.key != null && current.key.equals(key)))) {
+                return current;
+            }
+            current = current.next;
+        }
+        return null;
+    }
+
+    /*
+     * unlinks and returns the entry with the given key from the given buckets, or returns
+     * null if there is no such entry
+     */
+    private Entry<K, V> removeFrom(Entry<K, V>[] buckets, K key, int hash) {
+        int index = hash & (buckets.length - 1);
+        Entry<K, V> prev = null;
+        Entry<K, V> current = buckets[index];
+        while (current != null) {
+            if (current.hash == hash && (current.key == key
+                    || (current.key != null && current.key.equals(key)))) {
+                if (prev == null) {
+                    buckets[index] = current.next;
+                } else {
+                    prev.next = current.next;
+                }
+                current.next = null;
+                this.size--;
+                return current;
+            }
+            prev = current;
+            current = current.next;
+        }
+        return null;
+    }
+
+    /*
+     * doubles the number of buckets, either right away or by starting an incremental resize
+     */
+    private void grow() {
+        if (this.newTable != null) {
+            // The previous resize has not finished yet; this should only happen if many
+            // entries are added while barely any other operation runs, so just finish it
+            this.finishRehash();
+        }
+        Entry<K, V>[] bigger = makeArrayOfEntries(this.table.length * 2);
+        if (this.incrementalRehash) {
+            this.newTable = bigger;
+            this.rehashIndex = 0;
+        } else {
+            for (int i = 0; i < this.table.length; i++) {
+                moveBucket(this.table, i, bigger);
+            }
+            this.table = bigger;
+        }
+    }
+
+    /*
+     * migrates a bounded number of old buckets into the new array, if a resize is in progress
+     */
+    private void rehashStep() {
+        if (this.newTable == null) {
+            return;
+        }
+        int moved = 0;
+        int emptyVisits = BUCKETS_PER_STEP * EMPTY_VISITS_PER_BUCKET;
+        while (moved < BUCKETS_PER_STEP && this.rehashIndex < this.table.length) {
+            if (this.table[this.rehashIndex] == null) {
+                this.rehashIndex++;
+                emptyVisits--;
+                if (emptyVisits == 0) {
+                    break;
+                }
+            } else {
+                moveBucket(this.table, this.rehashIndex, this.newTable);
+                this.rehashIndex++;
+                moved++;
+            }
+        }
+        if (this.rehashIndex == this.table.length) {
+            this.table = this.newTable;
+            this.newTable = null;
+        }
+    }
+
+    private void finishRehash() {
+        while (this.rehashIndex < this.table.length) {
+            moveBucket(this.table, this.rehashIndex, this.newTable);
+            this.rehashIndex++;
+        }
+        this.table = this.newTable;
+        this.newTable = null;
+    }
+
+    private static <K, V> void moveBucket(Entry<K, V>[] from, int index, Entry<K, V>[] to) {
+        Entry<K, V> current = from[index];
+        while (current != null) {
+            Entry<K, V> next = current.next;
+            int newIndex = current.hash & (to.length - 1);
+            current.next = to[newIndex];
+            to[newIndex] = current;
+            current = next;
+        }
+        from[index] = null;
+    }
+
+    /*
+     * a key-value pair chained into its hash bucket
+     */
+    private static class Entry<K, V> {
+        public final K key;
+        public final int hash;
+        public V value;
+        public Entry<K, V> next;
+
+        public Entry(K key, V value, int hash, Entry<K, V> next) {
+            this.key = key;
+            this.value = value;
+            this.hash = hash;
+            this.next = next;
+        }
+
+        @Override
+        public String toString() {
+            return this.key + "=" + this.value;
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package datastructures.concrete.dictionaries;
+
+import datastructures.interfaces.IDictionary;
+import misc.exceptions.NoSuchKeyException;
+
+import java.util.Arrays;
+
+/**
+ * A read-only dictionary for tables that are built once and then looked up many times.
+ *
+ * The keys are sorted, but instead of being stored in sorted order they are stored in the
+ * order a breadth-first walk of the implicit binary search tree would visit them (the
+ * "Eytzinger" layout): the root is at index 1 and the children of index i are at 2i and
+ * 2i + 1. The first few levels of the tree, which every lookup touches, end up next to each
+ * other in memory, and the 16 descendants four levels below a node are 16 consecutive slots.
+ *
+ * Each step of a lookup picks the child with arithmetic instead of an if-statement, so the
+ * loop has no hard-to-predict branch and the processor can start loading the next levels
+ * before the current comparison finishes. 'compareTo' usually branches on its own, though, so
+ * when every key is a Long or every key is an Integer the keys are also copied into a
+ * primitive array and compared directly, without following a pointer per level.
+ *
+ * The set of keys is fixed at construction: 'put' may only replace the value of a key that
+ * already exists, and 'remove' is not supported.
+ */
+public class EytzingerDictionary<K extends Comparable<K>, V> implements IDictionary<K, V> {
+    // Both arrays are 1-based: index 0 is unused so the children of i are simply 2i and 2i + 1
+    private K[] keys;
+    private V[] values;
+    private int size;
+
+    // Copies of 'keys' as primitives when they all have class 'numericClass' (Long or Integer),
+    // or null otherwise
+    private long[] numericKeys;
+    private Class<?> numericClass;
+
+    /**
+     * Builds a dictionary mapping keys[i] to values[i]. The given arrays are not modified.
+     *
+     * @throws IllegalArgumentException if the arrays have different lengths, or if a key is
+     *         null or appears more than once
+     */
+    @SuppressWarnings("unchecked")
+    public EytzingerDictionary(K[] keys, V[] values) {
+        if (keys.length != values.length) {
+            throw new IllegalArgumentException("expected as many values as keys");
+        }
+        for (K key : keys) {
+            if (key == null) {
+                throw new IllegalArgumentException("keys may not be null");
+            }
+        }
+
+        Integer[] order = new Integer[keys.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> keys[a].compareTo(keys[b]));
+        for (int i = 1; i < order.length; i++) {
+            if (keys[order[i - 1]].compareTo(keys[order[i]]) == 0) {
+                throw new IllegalArgumentException("duplicate key: " + keys[order[i]]);
+            }
+        }
+
+        this.size = keys.length;
+        this.keys = (K[]) new Comparable[this.size + 1];
+        this.values = (V[]) new Object[this.size + 1];
+        this.fill(keys, values, order, 0, 1);
+
+        this.numericClass = this.size > 0 ? keys[0].getClass() : null;
+        if (this.numericClass == Long.class || this.numericClass == Integer.class) {
+            this.numericKeys = new long[this.size + 1];
+            for (int i = 1; i <= this.size && this.numericKeys != null; i++) {
+                if (this.keys[i].getClass() == this.numericClass) {
+                    this.numericKeys[i] = ((Number) this.keys[i]).longValue();
+                } else {
+                    this.numericKeys = null;
+                }
+            }
+        }
+    }
+
+    /*
+     * places the sorted keys into the subtree rooted at 'node' by walking it in order;
+     * returns the position in 'order' of the next key to place
+     */
+    private int fill(K[] sourceKeys, V[] sourceValues, Integer[] order, int next, int node) {
+        if (node <= this.size) {
+            next = this.fill(sourceKeys, sourceValues, order, next, 2 * node);
+            this.keys[node] = sourceKeys[order[next]];
+            this.values[node] = sourceValues[order[next]];
+            next++;
+            next = this.fill(sourceKeys, sourceValues, order, next, 2 * node + 1);
+        }
+        return next;
+    }
+
+    /*
+     * returns the index of the given key, or 0 if the key is not in the dictionary
+     */
+    private int indexOf(K key) {
+        if (key == null) {
+            return 0;
+        }
+        if (this.numericKeys != null && key.getClass() == this.numericClass) {
+            return this.indexOf(((Number) key).longValue());
+        }
+        int i = 1;
+        while (i <= this.size) {
+            // go right exactly when keys[i] < key: the sign bit of the comparison is the step
+            i = 2 * i + (this.keys[i].compareTo(key) >>> 31);
+        }
+        // The trailing 1 bits of i are the right turns taken after the last left turn; dropping
+        // them and that left turn leaves the smallest key that is >= the given one (or 0)
+        i >>>= Integer.numberOfTrailingZeros(~i) + 1;
+        if (i != 0 && this.keys[i].compareTo(key) == 0) {
+            return i;
+        }
+        return 0;
+    }
+
+    /*
+     * the same search as above over 'numericKeys'
+     */
+    private int indexOf(long key) {
+        long[] numbers = this.numericKeys;
+        int i = 1;
+        while (i <= this.size) {
+            i = 2 * i + (numbers[i] < key ? 1 : 0);
+        }
+        i >>>= Integer.numberOfTrailingZeros(~i) + 1;
+        if (i != 0 && numbers[i] == key) {
+            return i;
+        }
+        return 0;
+    }
+
+    /*
+     * return the value that is matching with the given key passed as a parameter
+     * @throws NoSuchKeyException if there is no key that matches with the given key
+     * @see datastructures.interfaces.IDictionary#get(java.lang.Object)
+     */
+    @Override
+    public V get(K key) {
+        int index = this.indexOf(key);
+        if (index == 0) {
+            throw new NoSuchKeyException("dictionary does not contain key");
+        }
+        return this.values[index];
+    }
+
+    /*
+     * return the value that is matching with the given key, or the given default value
+     * if there is no such key
+     * @see datastructures.interfaces.IDictionary#getOrDefault(java.lang.Object, java.lang.Object)
+     */
+    @Override
+    public V getOrDefault(K key, V defaultValue) {
+        int index = this.indexOf(key);
+        return index == 0 ? defaultValue : this.values[index];
+    }
+
+    /*
+     * replaces the value of the given key, which must already be in the dictionary
+     * @throws UnsupportedOperationException if the key is not in the dictionary
+     * @see datastructures.interfaces.IDictionary#put(java.lang.Object, java.lang.Object)
+     */
+    @Override
+    public void put(K key, V value) {
+        int index = this.indexOf(key);
+        if (index == 0) {
+            throw new UnsupportedOperationException("cannot add keys to an EytzingerDictionary");
+        }
+        this.values[index] = value;
+    }
+
+    /*
+     * keys can never be removed from this dictionary
+     * @throws UnsupportedOperationException always
+     * @see datastructures.interfaces.IDictionary#remove(java.lang.Object)
+     */
+    @Override
+    public V remove(K key) {
+        throw new UnsupportedOperationException("cannot remove keys from an EytzingerDictionary");
+    }
+
+    /*
+     * return true if there is key in dictionary that matches with the given key
+     * passed in as a parameter
+     * return false otherwise
+     * @see datastructures.interfaces.IDictionary#containsKey(java.lang.Object)
+     */
+    @Override
+    public boolean containsKey(K key) {
+        return this.indexOf(key) != 0;
+    }
+
+    /*
+     * return the size of dictionary
+     * @see datastructures.interfaces.IDictionary#size()
+     */
+    @Override
+    public int size() {
+        return this.size;
+    }
+}
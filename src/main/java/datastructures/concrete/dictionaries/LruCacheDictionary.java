@@ -0,0 +1,357 @@
+package datastructures.concrete.dictionaries;
+
+import datastructures.interfaces.IDictionary;
+import misc.exceptions.NoSuchKeyException;
+
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * A dictionary with a fixed maximum size that behaves like a cache: once it is full,
+ * adding a new key evicts the least recently used key-value pair.
+ *
+ * Entries are found through a chained hash table, and every entry is also a node in a
+ * doubly linked "recency" list (much like the nodes in DoubleLinkedList) whose front is the
+ * most recently used entry and whose back is the least recently used one. This means that
+ * get, put, remove and eviction all run in O(1) time on average.
+ *
+ * Calling 'get', 'getOrDefault', 'put' or 'computeIfAbsent' counts as using a key;
+ * 'containsKey' only peeks and does not change the recency order.
+ *
+ * An optional eviction listener is told about every pair the cache evicts, which lets the
+ * owner of the cache write back entries before they are dropped.
+ */
+public class LruCacheDictionary<K, V> implements IDictionary<K, V> {
+    private static final int INIT_BUCKETS = 16;
+
+    private Entry<K, V>[] buckets;
+    private Entry<K, V> front;
+    private Entry<K, V> back;
+    private int size;
+    private int capacity;
+    private BiConsumer<? super K, ? super V> evictionListener;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * Creates an empty cache that holds at most 'capacity' key-value pairs.
+     *
+     * @throws IllegalArgumentException  if the capacity is not positive
+     */
+    public LruCacheDictionary(int capacity) {
+        this(capacity, null);
+    }
+
+    /**
+     * Creates an empty cache that holds at most 'capacity' key-value pairs and passes every
+     * evicted pair to the given listener (which may be null). Removing a pair or clearing the
+     * cache does not count as an eviction.
+     *
+     * @throws IllegalArgumentException  if the capacity is not positive
+     */
+    public LruCacheDictionary(int capacity, BiConsumer<? super K, ? super V> evictionListener) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.evictionListener = evictionListener;
+        // Small caches never need more buckets than twice their capacity; doubling is only safe
+        // below INIT_BUCKETS, since it would overflow for capacities of 2^30 or more
+        int initBuckets = capacity >= INIT_BUCKETS ? INIT_BUCKETS : Integer.highestOneBit(capacity) * 2;
+        this.buckets = makeArrayOfEntries(initBuckets);
+        this.front = null;
+        this.back = null;
+        this.size = 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <K, V> Entry<K, V>[] makeArrayOfEntries(int arraySize) {
+        return (Entry<K, V>[]) (new Entry[arraySize]);
+    }
+
+    /*
+     * return the value matching the given key and mark the key as most recently used
+     * @throws NoSuchKeyException if there is no key that matches with the given key
+     * @see datastructures.interfaces.IDictionary#get(java.lang.Object)
+     */
+    @Override
+    public V get(K key) {
+        Entry<K, V> entry = this.use(key);
+        if (entry == null) {
+            throw new NoSuchKeyException("dictionary does not contain key");
+        }
+        return entry.value;
+    }
+
+    /*
+     * return the value matching the given key and mark the key as most recently used,
+     * or return the given default value if there is no such key
+     * @see datastructures.interfaces.IDictionary#getOrDefault(java.lang.Object, java.lang.Object)
+     */
+    @Override
+    public V getOrDefault(K key, V defaultValue) {
+        Entry<K, V> entry = this.use(key);
+        return entry == null ? defaultValue : entry.value;
+    }
+
+    /*
+     * adds or replaces the pair and marks the key as most recently used, evicting the
+     * least recently used pair if the cache is full
+     * @see datastructures.interfaces.IDictionary#put(java.lang.Object, java.lang.Object)
+     */
+    @Override
+    public void put(K key, V value) {
+        int hash = hashOf(key);
+        Entry<K, V> entry = this.findEntry(key, hash);
+        if (entry == null) {
+            this.insert(key, value, hash);
+        } else {
+            entry.value = value;
+            this.moveToFront(entry);
+        }
+    }
+
+    /*
+     * returns the value of the given key, computing and caching it with the given function
+     * first if the key is not cached
+     * @see datastructures.interfaces.IDictionary#computeIfAbsent(java.lang.Object, java.util.function.Function)
+     */
+    @Override
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        Entry<K, V> entry = this.use(key);
+        if (entry != null) {
+            return entry.value;
+        }
+        V value = mappingFunction.apply(key);
+        this.insert(key, value, hashOf(key));
+        return value;
+    }
+
+    /*
+     * removes the pair matching the given key from the cache and returns its value
+     * @throws NoSuchKeyException if there is no key matching key in dictionary
+     * @see datastructures.interfaces.IDictionary#remove(java.lang.Object)
+     */
+    @Override
+    public V remove(K key) {
+        Entry<K, V> entry = this.findEntry(key, hashOf(key));
+        if (entry == null) {
+            throw new NoSuchKeyException("dictionary does not contain key");
+        }
+        this.unlink(entry);
+        return entry.value;
+    }
+
+    /*
+     * returns true if the given key is cached, without changing the recency order
+     * @see datastructures.interfaces.IDictionary#containsKey(java.lang.Object)
+     */
+    @Override
+    public boolean containsKey(K key) {
+        return this.findEntry(key, hashOf(key)) != null;
+    }
+
+    /*
+     * @see datastructures.interfaces.IDictionary#size()
+     */
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Returns the maximum number of key-value pairs this cache holds.
+     */
+    public int getCapacity() {
+        return this.capacity;
+    }
+
+    /**
+     * Returns how many lookups found the key they were looking for.
+     */
+    public long getHits() {
+        return this.hits;
+    }
+
+    /**
+     * Returns how many lookups did not find the key they were looking for.
+     */
+    public long getMisses() {
+        return this.misses;
+    }
+
+    /**
+     * Returns how many pairs were evicted to make room for new ones.
+     */
+    public long getEvictions() {
+        return this.evictions;
+    }
+
+    /**
+     * Passes every cached pair to the given action, from the most to the least recently used one.
+     * This does not change the recency order or the counters.
+     */
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        for (Entry<K, V> current = this.front; current != null; current = current.next) {
+            action.accept(current.key, current.value);
+        }
+    }
+
+    /**
+     * Removes every pair from the cache. The hit, miss and eviction counters are kept.
+     */
+    public void clear() {
+        this.buckets = makeArrayOfEntries(this.buckets.length);
+        this.front = null;
+        this.back = null;
+        this.size = 0;
+    }
+
+    /*
+     * returns the hash code used for the given key; null keys hash to 0
+     */
+    private static int hashOf(Object key) {
+        int hash = key == null ? 0 : key.hashCode();
+        // Spread the high bits down, since we only use the low bits to pick a bucket
+        return hash ^ (hash >>> 16);
+    }
+
+    /*
+     * finds the entry of the given key, records a hit or a miss and marks the entry
+     * as most recently used; returns null if there is no such entry
+     */
+    private Entry<K, V> use(K key) {
+        Entry<K, V> entry = this.findEntry(key, hashOf(key));
+        if (entry == null) {
+            this.misses++;
+        } else {
+            this.hits++;
+            this.moveToFront(entry);
+        }
+        return entry;
+    }
+
+    private Entry<K, V> findEntry(K key, int hash) {
+        Entry<K, V> current = this.buckets[hash & (this.buckets.length - 1)];
+        while (current != null) {
+            if (current.hash == hash && (current.key == key
+                    || (current.key != null && current.key.equals(key)))) {
+                return current;
+            }
+            current = current.chain;
+        }
+        return null;
+    }
+
+    /*
+     * adds a pair whose key is known not to be cached yet at the front of the recency list
+     */
+    private void insert(K key, V value, int hash) {
+        if (this.size == this.capacity) {
+            Entry<K, V> evicted = this.back;
+            this.unlink(evicted);
+            this.evictions++;
+            if (this.evictionListener != null) {
+                this.evictionListener.accept(evicted.key, evicted.value);
+            }
+        }
+        if (this.size >= this.buckets.length * 3 / 4) {
+            this.rehash(this.buckets.length * 2);
+        }
+        Entry<K, V> entry = new Entry<>(key, value, hash);
+        int index = hash & (this.buckets.length - 1);
+        entry.chain = this.buckets[index];
+        this.buckets[index] = entry;
+
+        entry.next = this.front;
+        if (this.front == null) {
+            this.back = entry;
+        } else {
+            this.front.prev = entry;
+        }
+        this.front = entry;
+        this.size++;
+    }
+
+    /*
+     * removes the given entry from both its bucket and the recency list
+     */
+    private void unlink(Entry<K, V> entry) {
+        int index = entry.hash & (this.buckets.length - 1);
+        if (this.buckets[index] == entry) {
+            this.buckets[index] = entry.chain;
+        } else {
+            Entry<K, V> current = this.buckets[index];
+            while (current.chain != entry) {
+                current = current.chain;
+            }
+            current.chain = entry.chain;
+        }
+        entry.chain = null;
+
+        if (entry.prev == null) {
+            this.front = entry.next;
+        } else {
+            entry.prev.next = entry.next;
+        }
+        if (entry.next == null) {
+            this.back = entry.prev;
+        } else {
+            entry.next.prev = entry.prev;
+        }
+        entry.prev = null;
+        entry.next = null;
+        this.size--;
+    }
+
+    private void moveToFront(Entry<K, V> entry) {
+        if (entry == this.front) {
+            return;
+        }
+        entry.prev.next = entry.next;
+        if (entry.next == null) {
+            this.back = entry.prev;
+        } else {
+            entry.next.prev = entry.prev;
+        }
+        entry.prev = null;
+        entry.next = this.front;
+        this.front.prev = entry;
+        this.front = entry;
+    }
+
+    private void rehash(int numBuckets) {
+        Entry<K, V>[] newBuckets = makeArrayOfEntries(numBuckets);
+        for (Entry<K, V> current = this.front; current != null; current = current.next) {
+            int index = current.hash & (numBuckets - 1);
+            current.chain = newBuckets[index];
+            newBuckets[index] = current;
+        }
+        this.buckets = newBuckets;
+    }
+
+    /*
+     * a key-value pair that is linked both into its hash bucket and into the recency list
+     */
+    private static class Entry<K, V> {
+        public final K key;
+        public final int hash;
+        public V value;
+        public Entry<K, V> chain;
+        public Entry<K, V> prev;
+        public Entry<K, V> next;
+
+        public Entry(K key, V value, int hash) {
+            this.key = key;
+            this.value = value;
+            this.hash = hash;
+        }
+
+        @Override
+        public String toString() {
+            return this.key + "=" + this.value;
+        }
+    }
+}
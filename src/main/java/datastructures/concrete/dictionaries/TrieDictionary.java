@@ -0,0 +1,295 @@
+package datastructures.concrete.dictionaries;
+
+import datastructures.concrete.DoubleLinkedList;
+import datastructures.interfaces.IDictionary;
+import datastructures.interfaces.IList;
+import misc.exceptions.NoSuchKeyException;
+
+/**
+ * A dictionary whose keys are calculator identifiers: non-empty strings matching
+ * [a-zA-Z_][a-zA-Z_0-9]* (see CalculatorGrammarLexer.g4).
+ *
+ * The keys are stored in a trie. Because the alphabet only has 63 symbols, each node
+ * records which children it has in a single 64-bit mask and keeps just those children in a
+ * dense array, so finding the child for a character is a mask test plus a bit count.
+ *
+ * A lookup walks the key one character at a time and never hashes the whole string: it stops
+ * as soon as a prefix of the key is missing. The trie can also list every key starting with a
+ * given prefix, which is handy for completing variable and function names.
+ */
+public class TrieDictionary<V> implements IDictionary<String, V> {
+    private static final int NOT_A_SYMBOL = -1;
+
+    private Node<V> root;
+    private int size;
+
+    public TrieDictionary() {
+        this.root = new Node<>();
+        this.size = 0;
+    }
+
+    /*
+     * return the value that is matching with the given key passed as a parameter
+     * @throws NoSuchKeyException if there is no key that matches with the given key
+     * @see datastructures.interfaces.IDictionary#get(java.lang.Object)
+     */
+    @Override
+    public V get(String key) {
+        Node<V> node = this.findNode(key);
+        if (node == null || !node.hasValue) {
+            throw new NoSuchKeyException("dictionary does not contain key");
+        }
+        return node.value;
+    }
+
+    /*
+     * return the value that is matching with the given key, or the given default value
+     * if there is no such key
+     * @see datastructures.interfaces.IDictionary#getOrDefault(java.lang.Object, java.lang.Object)
+     */
+    @Override
+    public V getOrDefault(String key, V defaultValue) {
+        Node<V> node = this.findNode(key);
+        if (node == null || !node.hasValue) {
+            return defaultValue;
+        }
+        return node.value;
+    }
+
+    /*
+     * Puts/adds the pair of key and value parameters passed in to the dictionary
+     * If key is already in the dictionary, replace the value with the given value for that key
+     * @throws IllegalArgumentException if the key is not a valid identifier
+     * @see datastructures.interfaces.IDictionary#put(java.lang.Object, java.lang.Object)
+     */
+    @Override
+    public void put(String key, V value) {
+        if (!isIdentifier(key)) {
+            throw new IllegalArgumentException("key is not a valid identifier: " + key);
+        }
+        Node<V> current = this.root;
+        for (int i = 0; i < key.length(); i++) {
+            int symbol = symbolOf(key.charAt(i));
+            Node<V> child = current.getChild(symbol);
+            if (child == null) {
+                child = new Node<>();
+                current.addChild(symbol, child);
+            }
+            current = child;
+        }
+        if (!current.hasValue) {
+            current.hasValue = true;
+            this.size++;
+        }
+        current.value = value;
+    }
+
+    /*
+     * remove the given key passed in as a parameter and its value from the dictionary,
+     * along with any nodes that no longer lead to a key
+     * @throws NoSuchKeyException if there is no key matching key in dictionary
+     * @see datastructures.interfaces.IDictionary#remove(java.lang.Object)
+     */
+    @Override
+    public V remove(String key) {
+        Node<V> node = this.findNode(key);
+        if (node == null || !node.hasValue) {
+            throw new NoSuchKeyException("dictionary does not contain key");
+        }
+        V value = node.value;
+        node.hasValue = false;
+        node.value = null;
+        this.size--;
+        this.prune(this.root, key, 0);
+        return value;
+    }
+
+    /*
+     * removes the empty nodes along the path of the given key, returns true if the
+     * given node itself has become empty
+     */
+    private boolean prune(Node<V> node, String key, int depth) {
+        if (depth < key.length()) {
+            int symbol = symbolOf(key.charAt(depth));
+            Node<V> child = node.getChild(symbol);
+            if (this.prune(child, key, depth + 1)) {
+                node.removeChild(symbol);
+            }
+        }
+        return !node.hasValue && node.present == 0L;
+    }
+
+    /*
+     * return true if there is key in dictionary that matches with the given key
+     * passed in as a parameter
+     * return false otherwise
+     * @see datastructures.interfaces.IDictionary#containsKey(java.lang.Object)
+     */
+    @Override
+    public boolean containsKey(String key) {
+        Node<V> node = this.findNode(key);
+        return node != null && node.hasValue;
+    }
+
+    /*
+     * return the size of dictionary
+     * @see datastructures.interfaces.IDictionary#size()
+     */
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Returns every key in this dictionary that starts with the given prefix, sorted in
+     * ASCII order. The empty prefix matches every key.
+     */
+    public IList<String> keysWithPrefix(String prefix) {
+        IList<String> out = new DoubleLinkedList<>();
+        Node<V> node = this.root;
+        for (int i = 0; i < prefix.length() && node != null; i++) {
+            int symbol = symbolOf(prefix.charAt(i));
+            node = symbol == NOT_A_SYMBOL ? null : node.getChild(symbol);
+        }
+        if (node != null) {
+            this.collectKeys(node, new StringBuilder(prefix), out);
+        }
+        return out;
+    }
+
+    private void collectKeys(Node<V> node, StringBuilder prefix, IList<String> out) {
+        if (node.hasValue) {
+            out.add(prefix.toString());
+        }
+        long remaining = node.present;
+        int index = 0;
+        while (remaining != 0L) {
+            int symbol = Long.numberOfTrailingZeros(remaining);
+            remaining &= remaining - 1;
+            prefix.append(charOf(symbol));
+            this.collectKeys(node.children[index], prefix, out);
+            prefix.setLength(prefix.length() - 1);
+            index++;
+        }
+    }
+
+    /*
+     * returns the node at the end of the path spelled by the given key, or null as soon
+     * as the path leaves the trie (or the key contains a character that is not allowed)
+     */
+    private Node<V> findNode(String key) {
+        if (key == null || key.isEmpty()) {
+            return null;
+        }
+        Node<V> current = this.root;
+        for (int i = 0; i < key.length() && current != null; i++) {
+            int symbol = symbolOf(key.charAt(i));
+            if (symbol == NOT_A_SYMBOL) {
+                return null;
+            }
+            current = current.getChild(symbol);
+        }
+        return current;
+    }
+
+    /**
+     * Returns 'true' if the given string is a valid calculator identifier and 'false' otherwise.
+     */
+    public static boolean isIdentifier(String key) {
+        if (key == null || key.isEmpty()) {
+            return false;
+        }
+        char first = key.charAt(0);
+        if (first >= '0' && first <= '9') {
+            return false;
+        }
+        for (int i = 0; i < key.length(); i++) {
+            if (symbolOf(key.charAt(i)) == NOT_A_SYMBOL) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /*
+     * maps each allowed character to a number in [0, 63), keeping ASCII order:
+     * '0'-'9' are 0-9, 'A'-'Z' are 10-35, '_' is 36 and 'a'-'z' are 37-62
+     */
+    private static int symbolOf(char ch) {
+        if (ch >= 'a' && ch <= 'z') {
+            return ch - 'a' + 37;
+        } else if (ch >= 'A' && ch <= 'Z') {
+            return ch - 'A' + 10;
+        } else if (ch >= '0' && ch <= '9') {
+            return ch - '0';
+        } else if (ch == '_') {
+            return 36;
+        }
+        return NOT_A_SYMBOL;
+    }
+
+    private static char charOf(int symbol) {
+        if (symbol >= 37) {
+            return (char) ('a' + symbol - 37);
+        } else if (symbol == 36) {
+            return '_';
+        } else if (symbol >= 10) {
+            return (char) ('A' + symbol - 10);
+        }
+        return (char) ('0' + symbol);
+    }
+
+    /*
+     * a trie node; 'present' has bit i set if the node has a child for symbol i, and
+     * 'children' holds exactly those children in symbol order
+     */
+    private static class Node<V> {
+        private static final Node<?>[] NO_CHILDREN = new Node<?>[0];
+
+        public long present;
+        public Node<V>[] children;
+        public boolean hasValue;
+        public V value;
+
+        @SuppressWarnings("unchecked")
+        public Node() {
+            this.present = 0L;
+            this.children = (Node<V>[]) NO_CHILDREN;
+            this.hasValue = false;
+            this.value = null;
+        }
+
+        // returns the index in 'children' that the given symbol has (or would have)
+        private int indexOf(int symbol) {
+            return Long.bitCount(this.present & ((1L << symbol) - 1));
+        }
+
+        public Node<V> getChild(int symbol) {
+            if ((this.present & (1L << symbol)) == 0L) {
+                return null;
+            }
+            return this.children[this.indexOf(symbol)];
+        }
+
+        @SuppressWarnings("unchecked")
+        public void addChild(int symbol, Node<V> child) {
+            int index = this.indexOf(symbol);
+            Node<V>[] result = (Node<V>[]) new Node<?>[this.children.length + 1];
+            System.arraycopy(this.children, 0, result, 0, index);
+            result[index] = child;
+            System.arraycopy(this.children, index, result, index + 1, this.children.length - index);
+            this.children = result;
+            this.present |= 1L << symbol;
+        }
+
+        @SuppressWarnings("unchecked")
+        public void removeChild(int symbol) {
+            int index = this.indexOf(symbol);
+            Node<V>[] result = (Node<V>[]) new Node<?>[this.children.length - 1];
+            System.arraycopy(this.children, 0, result, 0, index);
+            System.arraycopy(this.children, index + 1, result, index, this.children.length - index - 1);
+            this.children = result;
+            this.present &= ~(1L << symbol);
+        }
+    }
+}
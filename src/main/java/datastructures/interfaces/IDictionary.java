@@ -2,6 +2,9 @@ package datastructures.interfaces;
 
 import misc.exceptions.NoSuchKeyException;
 
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
 /**
  * Represents a data structure that contains a bunch of key-value mappings. Each key must be unique.
  */
@@ -30,12 +33,88 @@ public interface IDictionary<K, V> {
         }
     }
 
+    /**
+     * Returns the value corresponding to the given key, or null if the key does not exist
+     * in the map.
+     *
+     * Note: if the dictionary may contain null values, use 'containsKey' to tell a missing
+     *       key apart from a key mapped to null.
+     */
+    public default V getOrNull(K key) {
+        return this.getOrDefault(key, null);
+    }
+
     /**
      * Adds the key-value pair to the dictionary. If the key already exists in the dictionary,
      * replace its value with the given one.
      */
     public void put(K key, V value);
 
+    /**
+     * Adds the key-value pair to the dictionary only if the key does not exist yet.
+     *
+     * Returns the value the key was already mapped to, or null if the pair was added.
+     *
+     * Note: the interface provides a default implementation that looks the key up more than
+     *       once; implementations may override it to find the key in a single pass.
+     */
+    public default V putIfAbsent(K key, V value) {
+        if (this.containsKey(key)) {
+            return this.get(key);
+        }
+        this.put(key, value);
+        return null;
+    }
+
+    /**
+     * Returns the value corresponding to the given key. If the key does not exist yet,
+     * first computes its value by passing the key to the given function and adds the
+     * resulting key-value pair to the dictionary.
+     *
+     * Note: the interface provides a default implementation that looks the key up more than
+     *       once; implementations may override it to find the key in a single pass.
+     */
+    public default V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        if (this.containsKey(key)) {
+            return this.get(key);
+        }
+        V value = mappingFunction.apply(key);
+        this.put(key, value);
+        return value;
+    }
+
+    /**
+     * Replaces the value of the given key with the result of the given function, which receives
+     * the key and its current value (or null if the key does not exist yet). Returns the new value.
+     *
+     * Unlike java.util.Map, a null result is stored like any other value instead of removing the key.
+     *
+     * Note: the interface provides a default implementation that looks the key up more than
+     *       once; implementations may override it to find the key in a single pass.
+     */
+    public default V compute(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        V value = remappingFunction.apply(key, this.getOrNull(key));
+        this.put(key, value);
+        return value;
+    }
+
+    /**
+     * Adds the key-value pair to the dictionary if the key does not exist yet. Otherwise, replaces
+     * the current value with the result of passing the current value and the given value to the
+     * given function. Returns the new value.
+     *
+     * Note: the interface provides a default implementation that looks the key up more than
+     *       once; implementations may override it to find the key in a single pass.
+     */
+    public default V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        V newValue = value;
+        if (this.containsKey(key)) {
+            newValue = remappingFunction.apply(this.get(key), value);
+        }
+        this.put(key, newValue);
+        return newValue;
+    }
+
     /**
      * Remove the key-value pair corresponding to the given key from the dictionary.
      *
@@ -0,0 +1,45 @@
+package datastructures.interfaces;
+
+import misc.exceptions.EmptyContainerException;
+
+/**
+ * Represents a collection that always hands back its smallest element first.
+ *
+ * Elements are compared with 'compareTo'. The same element may be added more than once.
+ */
+public interface IPriorityQueue<T extends Comparable<T>> {
+    /**
+     * Removes and returns the smallest element in the queue.
+     *
+     * If two elements are tied for the smallest, either one may be returned.
+     *
+     * @throws EmptyContainerException  if the queue is empty
+     */
+    public T removeMin();
+
+    /**
+     * Returns, but does not remove, the smallest element in the queue.
+     *
+     * @throws EmptyContainerException  if the queue is empty
+     */
+    public T peekMin();
+
+    /**
+     * Inserts the given item into the queue.
+     *
+     * @throws IllegalArgumentException  if the item is null
+     */
+    public void add(T item);
+
+    /**
+     * Returns the number of elements contained within this queue.
+     */
+    public int size();
+
+    /**
+     * Returns 'true' if this queue is empty, and 'false' otherwise.
+     */
+    public default boolean isEmpty() {
+        return this.size() == 0;
+    }
+}
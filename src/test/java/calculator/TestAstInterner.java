@@ -0,0 +1,120 @@
+package calculator;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import calculator.ast.AstInterner;
+import calculator.ast.AstNode;
+import datastructures.concrete.DoubleLinkedList;
+import datastructures.interfaces.IList;
+import misc.BaseTest;
+
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class TestAstInterner extends BaseTest {
+    private static AstNode op(String name, AstNode... children) {
+        IList<AstNode> list = new DoubleLinkedList<>();
+        for (AstNode child : children) {
+            list.add(child);
+        }
+        return new AstNode(name, list);
+    }
+
+    // Builds x ^ 2 + x ^ 2 out of entirely separate nodes
+    private static AstNode makeRepeatedSquare() {
+        return op("+", op("^", new AstNode("x"), new AstNode(2)), op("^", new AstNode("x"), new AstNode(2)));
+    }
+
+    @Test(timeout=SECOND)
+    public void testStructuralEquality() {
+        AstNode a = makeRepeatedSquare();
+        AstNode b = makeRepeatedSquare();
+        assertEquals(a, b);
+        assertEquals(a.hashCode(), b.hashCode());
+        assertEquals(a.getChild(0), a.getChild(1));
+
+        assertNotEquals(new AstNode(2), new AstNode(3));
+        assertNotEquals(new AstNode("x"), new AstNode("y"));
+        assertNotEquals(new AstNode(2), new AstNode("2"));
+        assertNotEquals(op("-", new AstNode("x"), new AstNode(2)), op("-", new AstNode(2), new AstNode("x")));
+        assertNotEquals(op("-", new AstNode("x"), new AstNode(2)), op("+", new AstNode("x"), new AstNode(2)));
+        assertNotEquals(op("f", new AstNode("x")), op("f", new AstNode("x"), new AstNode("x")));
+        assertNotEquals(new AstNode("x"), null);
+    }
+
+    @Test(timeout=SECOND)
+    public void testInternSharesIdenticalSubtrees() {
+        AstInterner interner = new AstInterner();
+        AstNode sum = interner.intern(makeRepeatedSquare());
+        assertEquals(makeRepeatedSquare(), sum);
+        assertSame(sum.getChild(0), sum.getChild(1));
+        assertSame(sum.getChild(0).getChild(0), interner.variable("x"));
+
+        // x, 2, x ^ 2 and the sum
+        assertEquals(4, interner.size());
+        assertSame(sum, interner.intern(makeRepeatedSquare()));
+        assertEquals(4, interner.size());
+    }
+
+    @Test(timeout=SECOND)
+    public void testFactoryMethods() {
+        AstInterner interner = new AstInterner();
+        AstNode x = interner.variable("x");
+        AstNode two = interner.number(2);
+        IList<AstNode> children = new DoubleLinkedList<>();
+        children.add(new AstNode("x"));
+        children.add(new AstNode(2));
+        AstNode square = interner.operation("^", children);
+
+        assertSame(x, square.getChild(0));
+        assertSame(two, square.getChild(1));
+        assertSame(square, interner.intern(op("^", new AstNode("x"), new AstNode(2))));
+        assertSame(two, interner.number(2.0));
+        assertFalse(two == interner.number(3.0));
+    }
+
+    @Test(timeout=SECOND)
+    public void testIsCanonicalAndClear() {
+        AstInterner interner = new AstInterner();
+        AstNode tree = makeRepeatedSquare();
+        assertFalse(interner.isCanonical(tree));
+
+        AstNode canonical = interner.intern(tree);
+        assertTrue(interner.isCanonical(canonical));
+        assertSame(canonical, interner.intern(canonical));
+        assertFalse(interner.isCanonical(makeRepeatedSquare()));
+
+        interner.clear();
+        assertEquals(0, interner.size());
+        assertFalse(interner.isCanonical(canonical));
+        assertFalse(canonical == interner.intern(makeRepeatedSquare()));
+    }
+
+    @Test(timeout=SECOND)
+    public void testInternManyChildren() {
+        AstInterner interner = new AstInterner();
+        AstNode call = interner.intern(op("f", new AstNode(1), new AstNode("y"), new AstNode(1), new AstNode("y")));
+        assertEquals(4, call.getNumChildren());
+        assertSame(call.getChild(0), call.getChild(2));
+        assertSame(call.getChild(1), call.getChild(3));
+        assertEquals(3, interner.size());
+    }
+
+    @Test(timeout=SECOND)
+    public void testInternLargeTree() {
+        AstInterner interner = new AstInterner();
+        AstNode tree = new AstNode("x");
+        for (int i = 0; i < 2000; i++) {
+            tree = op("+", tree, op("*", new AstNode(i % 7), new AstNode("x")));
+        }
+        AstNode canonical = interner.intern(tree);
+        assertEquals(tree, canonical);
+        // x, 0..6, the 7 products and the 2000 sums
+        assertEquals(1 + 7 + 7 + 2000, interner.size());
+    }
+}
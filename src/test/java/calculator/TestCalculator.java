@@ -13,7 +13,10 @@ import org.junit.runners.MethodSorters;
 
 import java.awt.geom.Rectangle2D;
 import java.util.Arrays;
+import java.util.Iterator;
+import java.util.function.DoubleUnaryOperator;
 
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 @FixMethodOrder(MethodSorters.NAME_ASCENDING)
@@ -197,6 +200,166 @@ public class TestCalculator extends BaseTest {
         }
     }
 
+    @Test(timeout=SECOND)
+    public void testPlotReducesLongPlots() {
+        FakeImageDrawer drawer = new FakeImageDrawer();
+
+        Calculator calc = new Calculator();
+        calc.setImageDrawer(drawer);
+
+        // A million samples, drawn 800 pixels wide
+        calc.evaluate("plot(x * sin(x), x, 0, 100, 0.0001)");
+        IList<Double> xs = drawer.lastXValues;
+        IList<Double> ys = drawer.lastYValues;
+        assertTrue(xs.size() <= 4 * 800);
+        assertEquals(xs.size(), ys.size());
+        assertEquals(0.0, xs.get(0));
+
+        double previous = Double.NEGATIVE_INFINITY;
+        Iterator<Double> yIter = ys.iterator();
+        for (double x : xs) {
+            assertTrue(x > previous);
+            assertEquals(x * Math.sin(x), yIter.next());
+            previous = x;
+        }
+        assertTrue(previous > 99.999);
+    }
+
+    @Test(timeout=SECOND)
+    public void testPlotParallel() {
+        FakeImageDrawer drawer = new FakeImageDrawer();
+
+        Calculator calc = new Calculator();
+        calc.setImageDrawer(drawer);
+
+        calc.evaluate("plotParallel(3 * x, x, 0, 10, 1)");
+        IList<Double> xs = drawer.lastXValues;
+        IList<Double> ys = drawer.lastYValues;
+        assertEquals(11, xs.size());
+        for (int i = 0; i <= 10; i += 1) {
+            assertEquals((double) i, xs.get(i));
+            assertEquals(3.0 * i, ys.get(i));
+        }
+
+        // Enough samples to be split between several tasks, and reduced like 'plot' reduces
+        // them; they must still come out in order
+        calc.evaluate("c := 4");
+        calc.evaluate("plotParallel(c * a - 1, a, -50, 50, 0.001)");
+        xs = drawer.lastXValues;
+        ys = drawer.lastYValues;
+        assertTrue(xs.size() <= 4 * 800);
+        assertEquals(xs.size(), ys.size());
+        assertEquals(-50.0, xs.get(0));
+        double previous = Double.NEGATIVE_INFINITY;
+        Iterator<Double> yIter = ys.iterator();
+        for (double x : xs) {
+            assertTrue(x > previous);
+            assertEquals(4 * x - 1, yIter.next());
+            previous = x;
+        }
+        assertTrue(previous > 49.999);
+
+        // About the same samples as 'plot' keeps; a sample on the edge of a column may land on
+        // the other side of it, since its x value may differ in the last few bits
+        calc.evaluate("plot(c * a - 1, a, -50, 50, 0.001)");
+        assertEquals(drawer.lastXValues.size(), xs.size());
+        Iterator<Double> plotIter = drawer.lastXValues.iterator();
+        for (double x : xs) {
+            assertTrue(Math.abs(plotIter.next() - x) < 0.0011);
+        }
+        assertEquals("a", calc.evaluate("a"));
+    }
+
+    @Test(timeout=SECOND)
+    public void testPlotParallelFailsOnBadInput() {
+        Calculator calc = new Calculator();
+        calc.setImageDrawer(new FakeImageDrawer());
+
+        String[] invalid = {
+            "plotParallel(3 * x + a, x, 0, 10, 1)",
+            "plotParallel(3 * x, x, 10, 0, 1)",
+            "plotParallel(3 * x, x, 0, 10, 0)",
+        };
+        for (String input : invalid) {
+            try {
+                calc.evaluate(input);
+                fail("Expected EvaluationError for " + input);
+            } catch (EvaluationError err) {
+                // Do nothing
+            }
+        }
+    }
+
+    @Test(timeout=SECOND)
+    public void testPlotAdaptive() {
+        FakeImageDrawer drawer = new FakeImageDrawer();
+
+        Calculator calc = new Calculator();
+        calc.setImageDrawer(drawer);
+
+        // Too few samples to leave anything out
+        calc.evaluate("plotAdaptive(3 * x, x, 0, 10, 1)");
+        IList<Double> xs = drawer.lastXValues;
+        IList<Double> ys = drawer.lastYValues;
+        assertTrue(drawer.lastPlotWasLines);
+        assertEquals(11, xs.size());
+        for (int i = 0; i <= 10; i += 1) {
+            assertEquals((double) i, xs.get(i));
+            assertEquals(3.0 * i, ys.get(i));
+        }
+
+        // A straight line needs nothing but the starting grid, joined up into one line
+        calc.evaluate("plotAdaptive(2 * x + 1, x, 0, 100, 0.001)");
+        assertTrue(drawer.lastPlotWasLines);
+        assertEquals(33, drawer.lastXValues.size());
+        assertDrawnWithin(drawer, 0, 100, 0.1, 1e-9, x -> 2 * x + 1);
+
+        calc.evaluate("plotAdaptive(x ^ 3 - 50 * x, x, -10, 10, 0.0001)");
+        assertTrue(drawer.lastPlotWasLines);
+        double[] pointX = toArray(drawer.lastXValues);
+        double[] pointY = toArray(drawer.lastYValues);
+        assertTrue(pointX.length < 2000);
+        assertEquals(-10.0, pointX[0]);
+        assertEquals(10.0, pointX[pointX.length - 1]);
+        for (int i = 0; i < pointX.length; i++) {
+            assertTrue(i == 0 || pointX[i - 1] < pointX[i]);
+            assertEquals(Math.pow(pointX[i], 3) - 50 * pointX[i], pointY[i]);
+        }
+
+        // Between the samples, the drawn lines stay within a pixel or so of the curve; the
+        // curve goes from -500 to 500, over 800 pixels
+        assertDrawnWithin(drawer, -10, 10, 0.01, 2.5, x -> Math.pow(x, 3) - 50 * x);
+    }
+
+    /*
+     * checks that the lines last drawn stay within 'tolerance' of the given curve, at every
+     * 'step' from 'min' to 'max'
+     */
+    private static void assertDrawnWithin(FakeImageDrawer drawer, double min, double max, double step,
+                                          double tolerance, DoubleUnaryOperator curve) {
+        double[] pointX = toArray(drawer.lastXValues);
+        double[] pointY = toArray(drawer.lastYValues);
+        int index = 0;
+        for (double x = min; x <= max; x += step) {
+            while (pointX[index + 1] < x) {
+                index++;
+            }
+            double fraction = (x - pointX[index]) / (pointX[index + 1] - pointX[index]);
+            double drawn = pointY[index] + fraction * (pointY[index + 1] - pointY[index]);
+            assertTrue(Math.abs(drawn - curve.applyAsDouble(x)) < tolerance);
+        }
+    }
+
+    private static double[] toArray(IList<Double> list) {
+        double[] result = new double[list.size()];
+        int index = 0;
+        for (double value : list) {
+            result[index] = value;
+            index++;
+        }
+        return result;
+    }
+
     @Test(timeout=SECOND)
     public void testPlotCleansUpVariable() {
         Calculator calc = new Calculator();
@@ -291,6 +454,8 @@ public class TestCalculator extends BaseTest {
     private static class FakeImageDrawer extends ImageDrawer {
         public IList<Double> lastXValues;
         public IList<Double> lastYValues;
+        // Whether the last plot joined its points with lines, rather than marking each one
+        public boolean lastPlotWasLines;
 
         public FakeImageDrawer() {
             super(null, 800, 800);
@@ -302,6 +467,16 @@ public class TestCalculator extends BaseTest {
                                     Rectangle2D drawReagion) {
             this.lastXValues = xValues;
             this.lastYValues = yValues;
+            this.lastPlotWasLines = false;
+        }
+
+        @Override
+        public void drawLinePlot(String title, String xAxisLabel, String yAxisLabel,
+                                 IList<Double> xValues, IList<Double> yValues,
+                                 Rectangle2D drawRegion) {
+            this.lastXValues = xValues;
+            this.lastYValues = yValues;
+            this.lastPlotWasLines = true;
         }
     }
 }
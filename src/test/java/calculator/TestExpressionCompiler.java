@@ -0,0 +1,301 @@
+package calculator;
+
+import static org.junit.Assert.fail;
+
+import analysis.experiments.BytecodeCompiler;
+import calculator.ast.AstNode;
+import calculator.ast.ExpressionManipulators;
+import calculator.compiler.BatchCompiler;
+import calculator.compiler.BatchExpression;
+import calculator.compiler.CompiledExpression;
+import calculator.compiler.ExpressionCompiler;
+import calculator.compiler.ExpressionDag;
+import calculator.errors.EvaluationError;
+import calculator.interpreter.Environment;
+import calculator.parser.Parser;
+import datastructures.concrete.DoubleLinkedList;
+import datastructures.concrete.dictionaries.ArrayDictionary;
+import datastructures.interfaces.IDictionary;
+import datastructures.interfaces.IList;
+import misc.BaseTest;
+
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class TestExpressionCompiler extends BaseTest {
+    private static AstNode parse(String input) {
+        // The parser wraps every input in a 'block'
+        return new Parser().parse(input + "\n").getChild(0);
+    }
+
+    private static AstNode op(String name, AstNode left, AstNode right) {
+        IList<AstNode> children = new DoubleLinkedList<>();
+        children.add(left);
+        children.add(right);
+        return new AstNode(name, children);
+    }
+
+    private static double interpret(AstNode expression, IDictionary<String, AstNode> variables) {
+        IList<AstNode> children = new DoubleLinkedList<>();
+        children.add(expression);
+        Environment env = new Environment(variables, null, null, null, null);
+        return ExpressionManipulators.handleToDouble(env, new AstNode("toDouble", children)).getNumericValue();
+    }
+
+    // Checks that every compiled version of the expression gives bit-for-bit the same results
+    // as 'toDouble'
+    private static void assertMatchesToDouble(String input, IDictionary<String, AstNode> variables) {
+        AstNode expression = parse(input);
+        CompiledExpression compiled = ExpressionCompiler.compile(expression, variables, "x");
+        CompiledExpression bytecode = BytecodeCompiler.compile(expression, variables, "x");
+        CompiledExpression dag = ExpressionDag.build(expression, variables, "x");
+        // A small capacity, so the samples take several columns and the last one is partial
+        BatchExpression batch = BatchCompiler.compile(expression, variables, "x", 7);
+        double[] xs = new double[batch.getCapacity()];
+        double[] ys = new double[batch.getCapacity()];
+        int count = 0;
+        double[] frame = new double[1];
+        for (double x = -5; x <= 5; x += 0.125) {
+            frame[0] = x;
+            variables.put("x", new AstNode(x));
+            double expected = interpret(expression, variables);
+            assertEquals(input + " at x = " + x, expected, compiled.evaluate(frame));
+            assertEquals(input + " at x = " + x, expected, bytecode.evaluate(frame));
+            assertEquals(input + " at x = " + x, expected, dag.evaluate(frame));
+            variables.remove("x");
+
+            xs[count] = x;
+            count++;
+            if (count == xs.length || x + 0.125 > 5) {
+                batch.evaluate(xs, ys, count);
+                for (int i = 0; i < count; i++) {
+                    frame[0] = xs[i];
+                    assertEquals(input + " at x = " + xs[i], compiled.evaluate(frame), ys[i]);
+                }
+                count = 0;
+            }
+        }
+    }
+
+    @Test(timeout=SECOND)
+    public void testArithmetic() {
+        IDictionary<String, AstNode> variables = new ArrayDictionary<>();
+        assertMatchesToDouble("3 * x", variables);
+        assertMatchesToDouble("x ^ 2 + 4 * x + 4", variables);
+        assertMatchesToDouble("x - 1 / x", variables);
+        assertMatchesToDouble("2 ^ x - x ^ 0.5", variables);
+        assertMatchesToDouble("-x + -(3 - x)", variables);
+        assertMatchesToDouble("sin(x) * cos(2 * x) / (1 + x * x)", variables);
+        assertMatchesToDouble("(1 + 2) * 3 - x", variables);
+    }
+
+    @Test(timeout=SECOND)
+    public void testVariables() {
+        IDictionary<String, AstNode> variables = new ArrayDictionary<>();
+        variables.put("c", new AstNode(4));
+        variables.put("y", parse("x * c + 1"));
+        assertMatchesToDouble("x ^ 2 + c * x + c", variables);
+        assertMatchesToDouble("y * y - c", variables);
+    }
+
+    @Test(timeout=SECOND)
+    public void testRepeatedSubexpressions() {
+        IDictionary<String, AstNode> variables = new ArrayDictionary<>();
+        variables.put("s", parse("sin(x)"));
+        variables.put("y", parse("s * s + s"));
+        assertMatchesToDouble("sin(x) ^ 2 + sin(x) * cos(x)", variables);
+        assertMatchesToDouble("y * y - y / (s + 1)", variables);
+        assertMatchesToDouble("x * x", variables);
+        assertMatchesToDouble("(x + 1) * (x + 1) - (x + 1) ^ (x + 1)", variables);
+        assertMatchesToDouble("sin(cos(x)) - cos(sin(x)) + sin(cos(x)) * cos(sin(x))", variables);
+    }
+
+    @Test(timeout=SECOND)
+    public void testDagSharesSubexpressions() {
+        IDictionary<String, AstNode> variables = new ArrayDictionary<>();
+        ExpressionDag dag = ExpressionDag.build(parse("sin(x) ^ 2 + sin(x) * cos(x)"), variables, "x");
+        assertEquals(10, dag.getTreeSize());
+        // x, 2, sin(x), sin(x) ^ 2, cos(x), sin(x) * cos(x) and the sum
+        assertEquals(7, dag.getNumValues());
+        assertEquals(5, dag.getNumOperations());
+        assertEquals(1, dag.getNumShared());
+
+        // Each 'y' stands for 2^10 copies of x, but is computed once
+        variables.put("y0", parse("x"));
+        for (int i = 1; i <= 10; i++) {
+            variables.put("y" + i, parse("y" + (i - 1) + " * y" + (i - 1)));
+        }
+        dag = ExpressionDag.build(parse("y10"), variables, "x");
+        assertEquals(2047, dag.getTreeSize());
+        assertEquals(10, dag.getNumOperations());
+        assertEquals(Math.pow(1.5, 1024), dag.evaluate(new double[] {1.5}));
+
+        ExpressionDag constant = ExpressionDag.build(parse("2 ^ 10"), variables);
+        assertEquals(0, constant.getNumOperations());
+        assertEquals(1024.0, constant.evaluate(new double[0]));
+    }
+
+    @Test(timeout=SECOND)
+    public void testBatchKeepsSharedColumns() {
+        IDictionary<String, AstNode> variables = new ArrayDictionary<>();
+        variables.put("y", parse("x + 1"));
+        // y is read by the first and the last instruction, so its column must outlive every
+        // temporary in between
+        BatchExpression batch = BatchCompiler.compile(
+                parse("y * (sin(x) * (cos(x) - (x * 3 - 2))) + y"), variables, "x", 2);
+        double[] xs = {0.5, -2.0};
+        double[] ys = new double[2];
+        batch.evaluate(xs, ys, 2);
+        CompiledExpression closures = ExpressionCompiler.compile(parse("y * (sin(x) * (cos(x) - (x * 3 - 2))) + y"),
+                variables, "x");
+        assertEquals(closures.evaluate(new double[] {0.5}), ys[0]);
+        assertEquals(closures.evaluate(new double[] {-2.0}), ys[1]);
+    }
+
+    @Test(timeout=SECOND)
+    public void testVariablesResolvedAtCompileTime() {
+        IDictionary<String, AstNode> variables = new ArrayDictionary<>();
+        variables.put("c", new AstNode(4));
+        CompiledExpression compiled = ExpressionCompiler.compile(parse("c * x"), variables, "x");
+        variables.put("c", new AstNode(100));
+        assertEquals(8.0, compiled.evaluate(new double[] {2.0}));
+    }
+
+    @Test(timeout=SECOND)
+    public void testParameters() {
+        IDictionary<String, AstNode> variables = new ArrayDictionary<>();
+        // Parameters take precedence over variables with the same name
+        variables.put("a", new AstNode(100));
+        CompiledExpression compiled = ExpressionCompiler.compile(parse("a - b * 2"), variables, "a", "b");
+        assertEquals(-5.0, compiled.evaluate(new double[] {1.0, 3.0}));
+        assertEquals(10.0, compiled.evaluate(new double[] {10.0, 0.0}));
+
+        CompiledExpression constant = ExpressionCompiler.compile(parse("2 ^ 10"), variables);
+        assertEquals(1024.0, constant.evaluate(new double[0]));
+    }
+
+    @Test(timeout=SECOND)
+    public void testBytecodeParameters() {
+        IDictionary<String, AstNode> variables = new ArrayDictionary<>();
+        String sum = "p0";
+        for (int i = 1; i < 200; i++) {
+            sum += " + p" + i;
+        }
+        String[] parameters = new String[200];
+        double[] frame = new double[200];
+        for (int i = 0; i < 200; i++) {
+            parameters[i] = "p" + i;
+            frame[i] = i;
+        }
+        // Enough parameters to need every way of pushing a slot index
+        CompiledExpression compiled = BytecodeCompiler.compile(parse(sum), variables, parameters);
+        assertEquals(199.0 * 200.0 / 2.0, compiled.evaluate(frame));
+    }
+
+    @Test(timeout=SECOND)
+    public void testBytecodeFallsBack() {
+        IDictionary<String, AstNode> variables = new ArrayDictionary<>();
+        try {
+            BytecodeCompiler.compile(parse("foo(x)"), variables, "x");
+            fail("Expected EvaluationError");
+        } catch (EvaluationError ex) {
+            // All ok -- expected result
+        }
+        try {
+            BytecodeCompiler.compile(parse("x + y"), variables, "x");
+            fail("Expected EvaluationError");
+        } catch (EvaluationError ex) {
+            // All ok -- expected result
+        }
+
+        // Too long to be worth compiling to bytecode, but must still work
+        AstNode expression = new AstNode("x");
+        for (int i = 0; i < 1500; i++) {
+            expression = op("+", op("*", expression, new AstNode("x")), new AstNode(1));
+        }
+        CompiledExpression compiled = BytecodeCompiler.compile(expression, variables, "x");
+        CompiledExpression closures = ExpressionCompiler.compile(expression, variables, "x");
+        assertEquals(closures.evaluate(new double[] {0.5}), compiled.evaluate(new double[] {0.5}));
+    }
+
+    @Test(timeout=SECOND)
+    public void testBatchLeaves() {
+        IDictionary<String, AstNode> variables = new ArrayDictionary<>();
+        variables.put("c", new AstNode(4));
+        double[] xs = {1.0, 2.0, 3.0};
+        double[] ys = new double[3];
+
+        BatchCompiler.compile(parse("x"), variables, "x").evaluate(xs, ys, 3);
+        assertEquals(3.0, ys[2]);
+        BatchCompiler.compile(parse("c ^ 2"), variables, "x").evaluate(xs, ys, 3);
+        assertEquals(16.0, ys[0]);
+        assertEquals(16.0, ys[2]);
+
+        // Only the first 'count' results are written
+        BatchCompiler.compile(parse("x * c"), variables, "x").evaluate(xs, ys, 2);
+        assertEquals(8.0, ys[1]);
+        assertEquals(16.0, ys[2]);
+    }
+
+    @Test(timeout=SECOND)
+    public void testBatchErrors() {
+        IDictionary<String, AstNode> variables = new ArrayDictionary<>();
+        try {
+            BatchCompiler.compile(parse("x + y"), variables, "x");
+            fail("Expected EvaluationError");
+        } catch (EvaluationError ex) {
+            // All ok -- expected result
+        }
+        try {
+            BatchCompiler.compile(parse("foo(x)"), variables, "x");
+            fail("Expected EvaluationError");
+        } catch (EvaluationError ex) {
+            // All ok -- expected result
+        }
+
+        BatchExpression batch = BatchCompiler.compile(parse("x + 1"), variables, "x", 4);
+        try {
+            batch.evaluate(new double[8], new double[8], 5);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException ex) {
+            // All ok -- expected result
+        }
+        try {
+            batch.evaluate(new double[4], new double[2], 3);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException ex) {
+            // All ok -- expected result
+        }
+    }
+
+    @Test(timeout=SECOND)
+    public void testErrors() {
+        IDictionary<String, AstNode> variables = new ArrayDictionary<>();
+        try {
+            ExpressionCompiler.compile(parse("x + y"), variables, "x");
+            fail("Expected EvaluationError");
+        } catch (EvaluationError ex) {
+            // All ok -- expected result
+        }
+        try {
+            ExpressionCompiler.compile(parse("foo(x)"), variables, "x");
+            fail("Expected EvaluationError");
+        } catch (EvaluationError ex) {
+            // All ok -- expected result
+        }
+        try {
+            ExpressionDag.build(parse("x + y"), variables, "x");
+            fail("Expected EvaluationError");
+        } catch (EvaluationError ex) {
+            // All ok -- expected result
+        }
+        try {
+            ExpressionDag.build(parse("foo(x)"), variables, "x");
+            fail("Expected EvaluationError");
+        } catch (EvaluationError ex) {
+            // All ok -- expected result
+        }
+    }
+}
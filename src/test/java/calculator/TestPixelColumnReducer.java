@@ -0,0 +1,154 @@
+package calculator;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import calculator.gui.PixelColumnReducer;
+import datastructures.concrete.DoubleLinkedList;
+import datastructures.interfaces.IList;
+import misc.BaseTest;
+
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class TestPixelColumnReducer extends BaseTest {
+    private static void assertListMatches(double[] expected, IList<Double> actual) {
+        assertEquals(expected.length, actual.size());
+        int index = 0;
+        for (double value : actual) {
+            assertEquals(expected[index], value);
+            index++;
+        }
+    }
+
+    private static double[] toArray(IList<Double> list) {
+        double[] result = new double[list.size()];
+        int index = 0;
+        for (double value : list) {
+            result[index] = value;
+            index++;
+        }
+        return result;
+    }
+
+    @Test(timeout=SECOND)
+    public void testFewSamplesAreKept() {
+        PixelColumnReducer reducer = new PixelColumnReducer(0, 10, 10);
+        for (int x = 0; x <= 10; x++) {
+            reducer.add(x, 2 * x);
+        }
+        assertEquals(11L, reducer.getNumSamples());
+
+        IList<Double> xs = new DoubleLinkedList<>();
+        IList<Double> ys = new DoubleLinkedList<>();
+        reducer.addTo(xs, ys);
+        // The sample at x = 10 is counted in the last column, along with x = 9
+        assertListMatches(new double[] {0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10}, xs);
+        assertListMatches(new double[] {0, 2, 4, 6, 8, 10, 12, 14, 16, 18, 20}, ys);
+    }
+
+    @Test(timeout=SECOND)
+    public void testKeepsFirstLastLowAndHigh() {
+        PixelColumnReducer reducer = new PixelColumnReducer(0, 2, 2);
+        double[] xs = {0.0, 0.2, 0.4, 0.6, 0.8, 1.0, 1.5};
+        double[] ys = {5.0, 9.0, 1.0, 7.0, 6.0, 3.0, 3.0};
+        reducer.add(xs, ys, xs.length);
+
+        IList<Double> keptX = new DoubleLinkedList<>();
+        IList<Double> keptY = new DoubleLinkedList<>();
+        reducer.addTo(keptX, keptY);
+        // 0.6 is neither first, last, lowest nor highest in the first column
+        assertListMatches(new double[] {0.0, 0.2, 0.4, 0.8, 1.0, 1.5}, keptX);
+        assertListMatches(new double[] {5.0, 9.0, 1.0, 6.0, 3.0, 3.0}, keptY);
+    }
+
+    @Test(timeout=SECOND)
+    public void testManySamples() {
+        PixelColumnReducer reducer = new PixelColumnReducer(0, 100, 800);
+        double yMin = Double.POSITIVE_INFINITY;
+        double yMax = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i <= 1000000; i++) {
+            double x = i * 0.0001;
+            double y = Math.sin(x * 7) * x;
+            yMin = Math.min(yMin, y);
+            yMax = Math.max(yMax, y);
+            reducer.add(x, y);
+        }
+        reducer.add(50, Double.NaN);
+        assertEquals(1000001L, reducer.getNumSamples());
+
+        IList<Double> xs = new DoubleLinkedList<>();
+        IList<Double> ys = new DoubleLinkedList<>();
+        reducer.addTo(xs, ys);
+        assertTrue(xs.size() <= 4 * 800);
+        double previous = Double.NEGATIVE_INFINITY;
+        double keptMin = Double.POSITIVE_INFINITY;
+        double keptMax = Double.NEGATIVE_INFINITY;
+        for (double x : xs) {
+            assertTrue(x > previous);
+            previous = x;
+        }
+        for (double y : ys) {
+            keptMin = Math.min(keptMin, y);
+            keptMax = Math.max(keptMax, y);
+        }
+        assertEquals(0.0, xs.get(0));
+        assertEquals(100.0, previous);
+        assertEquals(yMin, keptMin);
+        assertEquals(yMax, keptMax);
+    }
+
+    @Test(timeout=SECOND)
+    public void testAddAll() {
+        PixelColumnReducer whole = new PixelColumnReducer(0, 100, 800);
+        PixelColumnReducer first = new PixelColumnReducer(0, 100, 800);
+        PixelColumnReducer second = new PixelColumnReducer(0, 100, 800);
+        for (int i = 0; i <= 100000; i++) {
+            double x = i * 0.001;
+            double y = Math.sin(x * 7) * x;
+            whole.add(x, y);
+            // The halves meet in the middle of a column
+            if (x < 50.01) {
+                first.add(x, y);
+            } else {
+                second.add(x, y);
+            }
+        }
+        first.addAll(second);
+        assertEquals(whole.getNumSamples(), first.getNumSamples());
+
+        IList<Double> wholeX = new DoubleLinkedList<>();
+        IList<Double> wholeY = new DoubleLinkedList<>();
+        whole.addTo(wholeX, wholeY);
+        IList<Double> mergedX = new DoubleLinkedList<>();
+        IList<Double> mergedY = new DoubleLinkedList<>();
+        first.addTo(mergedX, mergedY);
+        assertListMatches(toArray(wholeX), mergedX);
+        assertListMatches(toArray(wholeY), mergedY);
+
+        try {
+            first.addAll(new PixelColumnReducer(0, 100, 400));
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException ex) {
+            // All ok -- expected result
+        }
+    }
+
+    @Test(timeout=SECOND)
+    public void testBadArguments() {
+        try {
+            new PixelColumnReducer(0, 1, 0);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException ex) {
+            // All ok -- expected result
+        }
+        try {
+            new PixelColumnReducer(1, 0, 10);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException ex) {
+            // All ok -- expected result
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package calculator;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import calculator.ast.AstNode;
+import calculator.compiler.Program;
+import calculator.compiler.ProgramCompiler;
+import calculator.errors.EvaluationError;
+import calculator.interpreter.Calculator;
+import calculator.parser.Parser;
+import misc.BaseTest;
+
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class TestProgramCompiler extends BaseTest {
+    private static AstNode parse(String input) {
+        // The parser wraps every input in a 'block'
+        return new Parser().parse(input + "\n").getChild(0);
+    }
+
+    // Runs the program both through the interpreter and through 'run', each on a calculator
+    // that first evaluates the given setup lines, and checks the results and the variables
+    // afterwards are the same
+    private static void assertMatchesInterpreter(String program, String[] setup, String... variables) {
+        Calculator interpreted = new Calculator();
+        Calculator compiled = new Calculator();
+        for (String line : setup) {
+            interpreted.evaluate(line);
+            compiled.evaluate(line);
+        }
+        assertEquals(program, interpreted.evaluate(program), compiled.evaluate("run(" + program + ")"));
+        for (String variable : variables) {
+            assertEquals(program + ": " + variable,
+                    interpreted.evaluate(variable), compiled.evaluate(variable));
+        }
+    }
+
+    @Test(timeout=SECOND)
+    public void testArithmetic() {
+        Calculator calc = new Calculator();
+        assertEquals("3", calc.evaluate("x := 3"));
+        assertEquals("14", calc.evaluate("run(2 + 3 * x ^ 2 - 15)"));
+        assertEquals("-0.75", calc.evaluate("run(-x / 4)"));
+        assertEquals("0", calc.evaluate("run(sin(x - 3) + cos(x - 3) - 1)"));
+        assertEquals("6", calc.evaluate("run(toDouble(simplify(x + x)))"));
+    }
+
+    @Test(timeout=SECOND)
+    public void testComparisons() {
+        Calculator calc = new Calculator();
+        assertEquals("2", calc.evaluate("run(gr(5, 3))"));
+        assertEquals("0", calc.evaluate("run(gr(3, 5))"));
+        assertEquals("2", calc.evaluate("run(sm(3, 5))"));
+        assertEquals("0", calc.evaluate("run(sm(5, 3))"));
+        assertEquals("1", calc.evaluate("run(eq(3, 3))"));
+        assertEquals("0", calc.evaluate("run(eq(3, 5))"));
+        assertEquals("-2", calc.evaluate("run(nq(3, 5))"));
+    }
+
+    @Test(timeout=SECOND)
+    public void testIfMatchesInterpreter() {
+        String[] setup = {"x := 3", "y := 4"};
+        assertMatchesInterpreter("if(sm(x,0), 10, 0)", setup);
+        assertMatchesInterpreter("if(gr(x,0), x + 10, y)", setup);
+        assertMatchesInterpreter("if(eq(x,3), if(nq(y,4), 1, 2), 3)", setup);
+    }
+
+    @Test(timeout=SECOND)
+    public void testRepeatMatchesInterpreter() {
+        assertMatchesInterpreter("repeat(3, x+3)", new String[] {"x := 0"}, "x");
+        assertMatchesInterpreter("repeat(3, x+y)", new String[] {"x := 0", "y := 3"}, "x", "y");
+        assertMatchesInterpreter("repeat(3,3+1*x)", new String[] {"x := 0"}, "x");
+        assertMatchesInterpreter("repeat(2.9, x*2)", new String[] {"x := 1"}, "x");
+    }
+
+    @Test(timeout=SECOND)
+    public void testWhileMatchesInterpreter() {
+        assertMatchesInterpreter("while(sm(x+1,10), x+1, 100)", new String[] {"x := 0"}, "x");
+        assertMatchesInterpreter("while(sm(y,10), x+1, 100)", new String[] {"x := 0", "y := 0"}, "x", "y");
+        assertMatchesInterpreter("while(gr(x,10), x+1, 100)", new String[] {"x := 0"}, "x");
+    }
+
+    @Test(timeout=SECOND)
+    public void testNestedLoops() {
+        Calculator calc = new Calculator();
+        calc.evaluate("x := 0");
+        calc.evaluate("y := 0");
+        // Each outer step adds 1 to y five times, and then y to x
+        assertEquals("75", calc.evaluate("run(repeat(5, x + repeat(5, y + 1)))"));
+        assertEquals("75", calc.evaluate("x"));
+        assertEquals("25", calc.evaluate("y"));
+    }
+
+    @Test(timeout=SECOND)
+    public void testLongLoop() {
+        Calculator calc = new Calculator();
+        calc.evaluate("x := 0");
+        assertEquals("1000000", calc.evaluate("run(repeat(1000000, x + 1))"));
+        assertEquals("1000000", calc.evaluate("x"));
+        assertEquals("2000000", calc.evaluate("run(while(sm(x, 2000000), x + 1, 2000000))"));
+    }
+
+    @Test(timeout=SECOND)
+    public void testRunDirectly() {
+        Program program = ProgramCompiler.compile(parse("repeat(n, x * 2)"));
+        double[] slots = new double[program.getNumSlots()];
+        int x = -1;
+        for (int i = 0; i < slots.length; i++) {
+            if ("x".equals(program.getSlotName(i))) {
+                x = i;
+                slots[i] = 1;
+            } else if ("n".equals(program.getSlotName(i))) {
+                slots[i] = 10;
+                assertFalse(program.isAssigned(i));
+            }
+        }
+        assertTrue(program.isAssigned(x));
+        assertEquals(1024.0, program.run(slots));
+        assertEquals(1024.0, slots[x]);
+        assertEquals(1048576.0, program.run(slots));
+    }
+
+    @Test(timeout=SECOND)
+    public void testErrors() {
+        Calculator calc = new Calculator();
+        calc.evaluate("x := 0");
+        String[] invalid = {
+            "run(y + 1)",
+            "run(repeat(0, x + 1))",
+            "run(repeat(3, 4))",
+            "run(while(sm(x, 100), x + 1, 10))",
+            "run(if(x, 1, 2))",
+            "run(plot(x, 0, 1, 0.5))",
+        };
+        for (String input : invalid) {
+            try {
+                calc.evaluate(input);
+                fail("Expected EvaluationError for " + input);
+            } catch (EvaluationError ex) {
+                // Do nothing
+            }
+        }
+    }
+}
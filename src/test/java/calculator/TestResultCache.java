@@ -0,0 +1,152 @@
+package calculator;
+
+import static org.junit.Assert.fail;
+
+import calculator.ast.AstNode;
+import calculator.errors.EvaluationError;
+import calculator.interpreter.Calculator;
+import calculator.interpreter.ResultCache;
+import calculator.interpreter.VariableStore;
+import calculator.parser.Parser;
+import misc.BaseTest;
+
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class TestResultCache extends BaseTest {
+    private static AstNode parse(String input) {
+        // The parser wraps every input in a 'block'
+        return new Parser().parse(input + "\n").getChild(0);
+    }
+
+    @Test(timeout=SECOND)
+    public void basicTestHitsAndMisses() {
+        Calculator calc = new Calculator();
+        calc.evaluate("x := 3");
+        calc.evaluate("y := 3");
+        assertEquals("0", calc.evaluate("cacheHits()"));
+        assertEquals("0", calc.evaluate("cacheMisses()"));
+
+        assertEquals("12", calc.evaluate("toDouble(x ^ 2 + y)"));
+        assertEquals("12", calc.evaluate("toDouble(x ^ 2 + y)"));
+        assertEquals("1", calc.evaluate("cacheHits()"));
+        assertEquals("1", calc.evaluate("cacheMisses()"));
+    }
+
+    @Test(timeout=SECOND)
+    public void testAssignInvalidates() {
+        Calculator calc = new Calculator();
+        calc.evaluate("x := 2");
+        calc.evaluate("y := 3");
+        assertEquals("7", calc.evaluate("toDouble(x ^ 2 + y)"));
+
+        calc.evaluate("y := 5");
+        assertEquals("9", calc.evaluate("toDouble(x ^ 2 + y)"));
+        assertEquals("0", calc.evaluate("cacheHits()"));
+
+        // 'z' isn't read by the expression
+        calc.evaluate("z := 1");
+        assertEquals("9", calc.evaluate("toDouble(x ^ 2 + y)"));
+        assertEquals("1", calc.evaluate("cacheHits()"));
+        assertEquals("2", calc.evaluate("cacheMisses()"));
+    }
+
+    @Test(timeout=SECOND)
+    public void testChangesThroughOtherVariables() {
+        Calculator calc = new Calculator();
+        calc.evaluate("y := x + 1");
+        calc.evaluate("w := y * 10");
+        calc.evaluate("x := 1");
+        assertEquals("21", calc.evaluate("toDouble(w + 1)"));
+        assertEquals("21", calc.evaluate("toDouble(w + 1)"));
+
+        // 'w + 1' only names 'w', but 'w' reads 'y', which reads 'x'
+        calc.evaluate("x := 2");
+        assertEquals("31", calc.evaluate("toDouble(w + 1)"));
+        calc.evaluate("x := 3");
+        calc.evaluate("x := 4");
+        assertEquals("51", calc.evaluate("toDouble(w + 1)"));
+        assertEquals("1", calc.evaluate("cacheHits()"));
+    }
+
+    @Test(timeout=SECOND)
+    public void testErrorsAreNotKept() {
+        Calculator calc = new Calculator();
+        try {
+            calc.evaluate("toDouble(q * 2)");
+            fail("Expected EvaluationError");
+        } catch (EvaluationError ex) {
+            // All ok -- expected result
+        }
+        calc.evaluate("q := 4");
+        assertEquals("8", calc.evaluate("toDouble(q * 2)"));
+    }
+
+    @Test(timeout=SECOND)
+    public void testBoundedSize() {
+        VariableStore store = new VariableStore();
+        store.put("x", new AstNode(2));
+        ResultCache cache = new ResultCache(store, 2);
+        assertEquals(4.0, cache.toDouble(parse("x * 2")));
+        assertEquals(6.0, cache.toDouble(parse("x * 3")));
+        assertEquals(8.0, cache.toDouble(parse("x * 4")));
+        assertEquals(2, cache.size());
+
+        // 'x * 2' was the least recently used, so it was evicted
+        assertEquals(6.0, cache.toDouble(parse("x * 3")));
+        assertEquals(4.0, cache.toDouble(parse("x * 2")));
+        assertEquals(1L, cache.getHits());
+        assertEquals(4L, cache.getMisses());
+
+        store.remove("x");
+        try {
+            cache.toDouble(parse("x * 2"));
+            fail("Expected EvaluationError");
+        } catch (EvaluationError ex) {
+            // All ok -- expected result
+        }
+    }
+
+    @Test(timeout=SECOND)
+    public void testMatchesEqualTrees() {
+        VariableStore store = new VariableStore();
+        store.put("x", new AstNode(2));
+        ResultCache cache = new ResultCache(store);
+        AstNode expression = parse("x ^ 2 + 1");
+        assertEquals(5.0, cache.toDouble(expression));
+        assertEquals(5.0, cache.toDouble(expression));
+        assertEquals(1L, cache.getHits());
+
+        // An equal tree that is a separate object finds the same result
+        assertEquals(5.0, cache.toDouble(parse("x ^ 2 + 1")));
+        assertEquals(2L, cache.getHits());
+        assertEquals(1L, cache.getMisses());
+
+        // Equal inputs written differently parse to separate but equal trees
+        Calculator calc = new Calculator();
+        calc.evaluate("x := 2");
+        assertEquals(calc.evaluate("toDouble(sin(x)*x^2)"), calc.evaluate("toDouble(sin(x) *x ^ 2)"));
+        assertEquals("1", calc.evaluate("cacheHits()"));
+        assertEquals("1", calc.evaluate("cacheMisses()"));
+    }
+
+    @Test(timeout=SECOND)
+    public void testInternedNodesAreBounded() {
+        VariableStore store = new VariableStore();
+        store.put("x", new AstNode(2));
+        ResultCache cache = new ResultCache(store, 1);
+        // Far more distinct nodes than the cache keeps for a single result
+        for (int i = 0; i < 10 * ResultCache.MAX_NODES_PER_RESULT; i++) {
+            assertEquals(2.0 + i, cache.toDouble(parse("x + " + i)));
+        }
+        assertEquals(1, cache.size());
+        assertEquals(0L, cache.getHits());
+
+        // The last result is still found after the interner starts over
+        int last = 10 * ResultCache.MAX_NODES_PER_RESULT - 1;
+        assertEquals(2.0 + last, cache.toDouble(parse("x + " + last)));
+        assertEquals(1L, cache.getHits());
+    }
+}
@@ -0,0 +1,153 @@
+package calculator;
+
+import static org.junit.Assert.assertTrue;
+
+import analysis.utils.AnalysisUtils;
+import calculator.ast.AstNode;
+import calculator.ast.ExpressionManipulators;
+import calculator.ast.Opcode;
+import calculator.ast.Rewriter;
+import calculator.interpreter.Calculator;
+import calculator.interpreter.Environment;
+import datastructures.concrete.DoubleLinkedList;
+import datastructures.concrete.dictionaries.ChainedHashDictionary;
+import datastructures.interfaces.IDictionary;
+import datastructures.interfaces.IList;
+import misc.BaseTest;
+
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class TestRewriter extends BaseTest {
+    private static AstNode op(String name, AstNode... children) {
+        IList<AstNode> list = new DoubleLinkedList<>();
+        for (AstNode child : children) {
+            list.add(child);
+        }
+        return new AstNode(name, list);
+    }
+
+    private static double toDouble(AstNode expression, IDictionary<String, AstNode> variables) {
+        Environment env = new Environment(variables, null, null, null, null);
+        return ExpressionManipulators.handleToDouble(env, op("toDouble", expression)).getNumericValue();
+    }
+
+    private static int countNodes(AstNode node) {
+        int count = 1;
+        for (AstNode child : node.getChildren()) {
+            count += countNodes(child);
+        }
+        return count;
+    }
+
+    @Test(timeout=SECOND)
+    public void testIdentities() {
+        Calculator calc = new Calculator();
+        assertEquals("x", calc.evaluate("rewrite(x * 1 + 0 * y + x - x)"));
+        assertEquals("x", calc.evaluate("rewrite(1 * x)"));
+        assertEquals("x", calc.evaluate("rewrite(x / 1)"));
+        assertEquals("x", calc.evaluate("rewrite(x ^ 1)"));
+        assertEquals("x", calc.evaluate("rewrite(-(-x))"));
+        assertEquals("x", calc.evaluate("rewrite(0 + x - 0)"));
+        assertEquals("1", calc.evaluate("rewrite(x ^ 0)"));
+        assertEquals("1", calc.evaluate("rewrite(1 ^ x)"));
+        assertEquals("1", calc.evaluate("rewrite(sin(x) / sin(x))"));
+        assertEquals("0", calc.evaluate("rewrite(0 / x)"));
+        assertEquals("0", calc.evaluate("rewrite(sin(x) * 0)"));
+        assertEquals("0", calc.evaluate("rewrite(cos(x) - cos(x))"));
+    }
+
+    @Test(timeout=SECOND)
+    public void testCollectsLikeTerms() {
+        Calculator calc = new Calculator();
+        assertEquals("2 * x", calc.evaluate("rewrite(x + x)"));
+        assertEquals("2 * x + 7", calc.evaluate("rewrite(3 * x + 2 - x + 5)"));
+        assertEquals("5 * sin(x) - y", calc.evaluate("rewrite(2 * sin(x) - y + sin(x) * 3)"));
+        assertEquals("-x + 1", calc.evaluate("rewrite(1 - x)"));
+        assertEquals("-2 * x", calc.evaluate("rewrite(-x - x)"));
+        assertEquals("x * y", calc.evaluate("rewrite(2 * x * y - x * y)"));
+        // Products are only alike when their factors come in the same order
+        assertEquals("2 * x * y - y * x", calc.evaluate("rewrite(2 * x * y - y * x)"));
+    }
+
+    @Test(timeout=SECOND)
+    public void testCollectsFactors() {
+        Calculator calc = new Calculator();
+        assertEquals("6 * x ^ 2", calc.evaluate("rewrite(2 * x * 3 * x)"));
+        assertEquals("x ^ 5", calc.evaluate("rewrite(x ^ 2 * x ^ 3)"));
+        assertEquals("-(x * y)", calc.evaluate("rewrite(-x * y)"));
+        assertEquals("y", calc.evaluate("rewrite(x * y * x ^ (0 - 1))"));
+    }
+
+    @Test(timeout=SECOND)
+    public void testFoldsOnlyExactDivisions() {
+        Calculator calc = new Calculator();
+        assertEquals("2", calc.evaluate("rewrite(6 / 3)"));
+        assertEquals("0.75", calc.evaluate("rewrite(3 / 4)"));
+        assertEquals("1 / 3", calc.evaluate("rewrite(1 / 3)"));
+        assertEquals("1 / 0", calc.evaluate("rewrite(1 / 0)"));
+        assertEquals("2 * x", calc.evaluate("rewrite(x * (6 / 3))"));
+    }
+
+    @Test(timeout=SECOND)
+    public void testSimplifyIsUnchanged() {
+        Calculator calc = new Calculator();
+        assertEquals("x * 1 + 0 * y + x - x", calc.evaluate("x * 1 + 0 * y + x - x"));
+        assertEquals("3 / 4", calc.evaluate("3 / 4"));
+    }
+
+    @Test(timeout=SECOND)
+    public void testUsesVariables() {
+        Calculator calc = new Calculator();
+        calc.evaluate("a := x * 1 + 0");
+        calc.evaluate("b := 4");
+        assertEquals("2 * x + 4", calc.evaluate("rewrite(a + b + a)"));
+        assertEquals("3 * x", calc.evaluate("rewrite(x + rewrite(a + a))"));
+    }
+
+    @Test(timeout=SECOND)
+    public void testKeepsValues() {
+        IDictionary<String, AstNode> variables = new ChainedHashDictionary<>();
+        for (int numNodes = 1; numNodes < 200; numNodes += 7) {
+            AstNode expression = AnalysisUtils.makeExpression(numNodes);
+            AstNode rewritten = Rewriter.algebraic().rewrite(expression);
+            assertTrue(countNodes(rewritten) <= countNodes(expression));
+            for (double x = -2; x <= 2; x += 0.25) {
+                variables.put("x", new AstNode(x));
+                double expected = toDouble(expression, variables);
+                double actual = toDouble(rewritten, variables);
+                assertTrue(Math.abs(expected - actual) <= 1e-9 * Math.max(1.0, Math.abs(expected)));
+            }
+        }
+    }
+
+    @Test(timeout=SECOND)
+    public void testRulesAreIndexedByOpcode() {
+        Rewriter rewriter = new Rewriter();
+        int[] calls = new int[1];
+        rewriter.addRule(Opcode.SIN, node -> {
+            calls[0]++;
+            return node.getChild(0).isNumber() ? null : op("sin", new AstNode(0));
+        });
+        AstNode x = new AstNode("x");
+        AstNode sum = op("+", op("sin", x), op("*", op("cos", x), op("sin", x)));
+        assertEquals(op("+", op("sin", new AstNode(0)), op("*", op("cos", x), op("sin", new AstNode(0)))),
+                rewriter.rewrite(sum));
+
+        // Both copies of sin(x) are rewritten once, and so is the sin(0) they become; the rule
+        // is never tried on the other nodes
+        assertEquals(2, calls[0]);
+        assertEquals(sum, new Rewriter().rewrite(sum));
+    }
+
+    @Test(timeout=SECOND)
+    public void testStopsOnRulesThatNeverSettle() {
+        Rewriter rewriter = new Rewriter();
+        rewriter.addRule(Opcode.ADD, node -> op("+", node.getChild(1), node.getChild(0)));
+        AstNode sum = op("+", new AstNode("x"), new AstNode("y"));
+        AstNode result = rewriter.rewrite(sum);
+        assertTrue(result.equals(sum) || result.equals(op("+", new AstNode("y"), new AstNode("x"))));
+    }
+}
@@ -0,0 +1,216 @@
+package calculator;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import calculator.ast.AstNode;
+import calculator.ast.ExpressionManipulators;
+import calculator.errors.EvaluationError;
+import calculator.interpreter.Calculator;
+import calculator.interpreter.VariableStore;
+import calculator.parser.Parser;
+import misc.BaseTest;
+import misc.exceptions.NoSuchKeyException;
+
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class TestVariableStore extends BaseTest {
+    private static AstNode parse(String input) {
+        // The parser wraps every input in a 'block'
+        return new Parser().parse(input + "\n").getChild(0);
+    }
+
+    @Test(timeout=SECOND)
+    public void basicTestDictionary() {
+        VariableStore store = new VariableStore();
+        assertTrue(store.isEmpty());
+        store.put("y", parse("x + 1"));
+        assertEquals(1, store.size());
+        assertEquals(parse("x + 1"), store.get("y"));
+        // 'x' is read by 'y', but not defined
+        assertFalse(store.containsKey("x"));
+        assertEquals(null, store.getOrNull("x"));
+        try {
+            store.get("x");
+            fail("Expected NoSuchKeyException");
+        } catch (NoSuchKeyException ex) {
+            // All ok -- expected result
+        }
+
+        store.put("x", new AstNode(2));
+        assertEquals(2, store.size());
+        assertEquals(new AstNode(2), store.remove("x"));
+        assertEquals(1, store.size());
+        assertFalse(store.containsKey("x"));
+        try {
+            store.remove("x");
+            fail("Expected NoSuchKeyException");
+        } catch (NoSuchKeyException ex) {
+            // All ok -- expected result
+        }
+    }
+
+    @Test(timeout=SECOND)
+    public void testValuesAreKept() {
+        VariableStore store = new VariableStore();
+        store.put("a", new AstNode(3));
+        store.put("b", parse("a ^ 2 + 1"));
+        store.put("c", parse("b * b - a"));
+        store.put("d", parse("sin(a)"));
+        assertFalse(store.isUpToDate("c"));
+
+        assertEquals(97.0, store.getNumericValue("c"));
+        assertTrue(store.isUpToDate("a"));
+        assertTrue(store.isUpToDate("b"));
+        assertTrue(store.isUpToDate("c"));
+        // Nothing asked for 'd' yet
+        assertFalse(store.isUpToDate("d"));
+        assertEquals(97.0, store.getNumericValue("c"));
+    }
+
+    @Test(timeout=SECOND)
+    public void testAssignInvalidatesOnlyDependents() {
+        VariableStore store = new VariableStore();
+        store.put("a", new AstNode(3));
+        store.put("e", new AstNode(10));
+        store.put("b", parse("a + 1"));
+        store.put("c", parse("b * 2"));
+        store.put("f", parse("e * 2"));
+        assertEquals(8.0, store.getNumericValue("c"));
+        assertEquals(20.0, store.getNumericValue("f"));
+
+        store.put("a", new AstNode(5));
+        assertFalse(store.isUpToDate("a"));
+        assertFalse(store.isUpToDate("b"));
+        assertFalse(store.isUpToDate("c"));
+        assertTrue(store.isUpToDate("e"));
+        assertTrue(store.isUpToDate("f"));
+        assertEquals(12.0, store.getNumericValue("c"));
+
+        // 'c' no longer reads 'b', so changing 'b' leaves it alone
+        store.put("c", parse("e + 1"));
+        assertEquals(11.0, store.getNumericValue("c"));
+        store.put("b", new AstNode(0));
+        assertTrue(store.isUpToDate("c"));
+        store.put("e", new AstNode(1));
+        assertEquals(2.0, store.getNumericValue("c"));
+        assertEquals(2.0, store.getNumericValue("f"));
+    }
+
+    @Test(timeout=SECOND)
+    public void testUndefinedAndCircular() {
+        VariableStore store = new VariableStore();
+        store.put("y", parse("x * 2"));
+        try {
+            store.getNumericValue("y");
+            fail("Expected EvaluationError");
+        } catch (EvaluationError ex) {
+            // All ok -- expected result
+        }
+        store.put("x", new AstNode(4));
+        assertEquals(8.0, store.getNumericValue("y"));
+        store.remove("x");
+        try {
+            store.getNumericValue("y");
+            fail("Expected EvaluationError");
+        } catch (EvaluationError ex) {
+            // All ok -- expected result
+        }
+
+        store.put("x", parse("y + 1"));
+        try {
+            store.getNumericValue("x");
+            fail("Expected EvaluationError");
+        } catch (EvaluationError ex) {
+            // All ok -- expected result
+        }
+        store.put("x", new AstNode(1));
+        assertEquals(2.0, store.getNumericValue("y"));
+    }
+
+    @Test(timeout=SECOND)
+    public void testLongChain() {
+        VariableStore store = new VariableStore();
+        store.put("v0", parse("x"));
+        for (int i = 1; i <= 500; i++) {
+            store.put("v" + i, parse("v" + (i - 1) + " + v" + (i - 1)));
+        }
+        store.put("x", new AstNode(1));
+        double expected = Math.pow(2, 500);
+        assertEquals(expected, store.getNumericValue("v500"));
+        // Without the kept values, this would take 2^500 steps
+        store.put("x", new AstNode(2));
+        assertEquals(2 * expected, store.getNumericValue("v500"));
+    }
+
+    @Test(timeout=SECOND)
+    public void testSlots() {
+        VariableStore store = new VariableStore();
+        Parser parser = new Parser(store.getSymbols());
+        AstNode x = parser.parse("x\n").getChild(0);
+        AstNode sum = parser.parse("y + x\n").getChild(0);
+        int slot = sum.getChild(0).getSlot(store.getSymbols());
+        assertEquals(x.getSlot(store.getSymbols()), sum.getChild(1).getSlot(store.getSymbols()));
+        assertFalse(x.getSlot(store.getSymbols()) == slot);
+        assertEquals(slot, store.getSymbols().find("y"));
+        assertEquals(-1, store.getSymbols().find("neverUsedAsAVariable"));
+        // Nodes parsed without the store's table have no slot in it
+        assertEquals(-1, parse("y").getSlot(store.getSymbols()));
+        assertEquals(slot, store.slotOf(parse("y")));
+        try {
+            sum.getSlot(store.getSymbols());
+            fail("Expected EvaluationError");
+        } catch (EvaluationError ex) {
+            // All ok -- expected result
+        }
+
+        assertEquals(null, store.getOrNull(slot));
+        assertEquals(0L, store.getVersion(slot));
+        store.put("y", parse("x * 3"));
+        store.put("x", new AstNode(2));
+        assertEquals(parse("x * 3"), store.getOrNull(slot));
+        assertEquals(6.0, store.getNumericValue(slot));
+        assertEquals(store.getVersion("y"), store.getVersion(slot));
+
+        store.remove("y");
+        assertEquals(null, store.getOrNull(slot));
+        // Slots past the end of the store's array are simply undefined
+        assertEquals(null, store.getOrNull(store.getSymbols().slotOf("aNameNoStoreHasSeen")));
+    }
+
+    @Test(timeout=SECOND)
+    public void testTablesAreSeparate() {
+        VariableStore first = new VariableStore();
+        VariableStore second = new VariableStore();
+        AstNode a = new Parser(first.getSymbols()).parse("a + b\n").getChild(0);
+        AstNode b = new Parser(second.getSymbols()).parse("b\n").getChild(0);
+        // Each table numbers only the names it has seen, starting from 0
+        assertEquals(1, a.getChild(1).getSlot(first.getSymbols()));
+        assertEquals(0, b.getSlot(second.getSymbols()));
+        assertEquals(2, first.getSymbols().size());
+        assertEquals(1, second.getSymbols().size());
+
+        // A node from one store's parser still reads the right variable in another store
+        first.put("b", new AstNode(1));
+        second.put("b", new AstNode(2));
+        second.put("a", new AstNode(5));
+        assertEquals(3.0, ExpressionManipulators.toDouble(first, parse("b + 2")));
+        assertEquals(7.0, ExpressionManipulators.toDouble(second, a));
+    }
+
+    @Test(timeout=SECOND)
+    public void testCalculatorUsesStore() {
+        Calculator calc = new Calculator();
+        calc.evaluate("y := x ^ 2 + 3");
+        calc.evaluate("z := y * y");
+        calc.evaluate("x := 2");
+        assertEquals("49", calc.evaluate("toDouble(z)"));
+        calc.evaluate("x := 1");
+        assertEquals("16", calc.evaluate("toDouble(z)"));
+        assertEquals("4", calc.evaluate("y"));
+    }
+}
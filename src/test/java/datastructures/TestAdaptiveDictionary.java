@@ -0,0 +1,136 @@
+package datastructures;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import datastructures.concrete.dictionaries.AdaptiveDictionary;
+import datastructures.interfaces.IDictionary;
+import misc.BaseTest;
+import misc.exceptions.NoSuchKeyException;
+
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+import java.util.Random;
+
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class TestAdaptiveDictionary extends BaseTest {
+    @Test(timeout=SECOND)
+    public void basicTestPutGetRemove() {
+        IDictionary<String, String> dict = new AdaptiveDictionary<>();
+        dict.put("a", "1");
+        dict.put("b", "2");
+        dict.put(null, "3");
+        dict.put("a", "4");
+
+        assertEquals(3, dict.size());
+        assertEquals("4", dict.get("a"));
+        assertEquals("2", dict.get("b"));
+        assertEquals("3", dict.get(null));
+        assertEquals("2", dict.remove("b"));
+        assertFalse(dict.containsKey("b"));
+
+        try {
+            dict.get("b");
+            fail("Expected NoSuchKeyException");
+        } catch (NoSuchKeyException ex) {
+            // This is ok: do nothing
+        }
+    }
+
+    @Test(timeout=SECOND)
+    public void testPromotesAndDemotes() {
+        AdaptiveDictionary<Integer, Integer> dict = new AdaptiveDictionary<>(10, 5);
+
+        for (int i = 0; i < 10; i++) {
+            dict.put(i, i);
+        }
+        assertFalse(dict.isHashed());
+
+        dict.put(10, 10);
+        assertTrue(dict.isHashed());
+        for (int i = 0; i <= 10; i++) {
+            assertEquals(i, (int) dict.get(i));
+        }
+
+        for (int i = 10; i >= 5; i--) {
+            assertEquals(i, (int) dict.remove(i));
+            assertTrue(dict.isHashed());
+        }
+        dict.remove(4);
+        assertFalse(dict.isHashed());
+        for (int i = 0; i < 4; i++) {
+            assertEquals(i, (int) dict.get(i));
+        }
+    }
+
+    @Test(timeout=SECOND)
+    public void testRejectsBadThresholds() {
+        try {
+            new AdaptiveDictionary<String, String>(4, 5);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException ex) {
+            // This is ok: do nothing
+        }
+        try {
+            new AdaptiveDictionary<String, String>(4, -1);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException ex) {
+            // This is ok: do nothing
+        }
+        assertTrue(new AdaptiveDictionary<String, String>(0, 0).isHashed());
+    }
+
+    @Test(timeout=5 * SECOND)
+    public void testPutAndGetMany() {
+        IDictionary<Integer, Integer> dict = new AdaptiveDictionary<>();
+        int cap = 200000;
+
+        for (int i = 0; i < cap; i++) {
+            dict.put(i, i * 2);
+        }
+        for (int i = cap - 1; i >= 0; i--) {
+            assertEquals(i * 2, (int) dict.get(i));
+        }
+        assertEquals(cap, dict.size());
+    }
+
+    @Test(timeout=5 * SECOND)
+    public void testRandomOperationsWithCollidingKeys() {
+        // All keys share a handful of hash codes, so removals have to repair long probe runs
+        IDictionary<Wrapper<Integer>, Integer> dict = new AdaptiveDictionary<>(4, 2);
+        int[] expected = new int[500];
+        boolean[] present = new boolean[500];
+        Random rand = new Random(12);
+
+        for (int step = 0; step < 50000; step++) {
+            int key = rand.nextInt(500);
+            Wrapper<Integer> wrapped = new Wrapper<>(key, key % 7);
+            if (rand.nextInt(3) == 0) {
+                if (present[key]) {
+                    assertEquals(expected[key], (int) dict.remove(wrapped));
+                    present[key] = false;
+                } else {
+                    assertFalse(dict.containsKey(wrapped));
+                }
+            } else {
+                dict.put(wrapped, step);
+                expected[key] = step;
+                present[key] = true;
+            }
+        }
+
+        int count = 0;
+        for (int key = 0; key < 500; key++) {
+            Wrapper<Integer> wrapped = new Wrapper<>(key, key % 7);
+            assertEquals(present[key], dict.containsKey(wrapped));
+            if (present[key]) {
+                assertEquals(expected[key], (int) dict.get(wrapped));
+                count++;
+            }
+        }
+        assertEquals(count, dict.size());
+    }
+}
@@ -350,4 +350,102 @@ public class TestArrayDictionary extends BaseTest {
         assertEquals("world", dict.remove(null));
         assertFalse(dict.containsKey(null));
     }
+
+    @Test(timeout=SECOND)
+    public void testSelfOrganizingOrderingsKeepMappings() {
+        for (ArrayDictionary.Ordering ordering : ArrayDictionary.Ordering.values()) {
+            IDictionary<String, String> dict = new ArrayDictionary<>(ordering);
+            dict.put("a", "1");
+            dict.put("b", "2");
+            dict.put("c", "3");
+            dict.put("d", "4");
+
+            assertEquals("4", dict.get("d"));
+            assertEquals("3", dict.get("c"));
+            assertTrue(dict.containsKey("d"));
+            dict.put("a", "5");
+            assertEquals("2", dict.remove("b"));
+
+            this.assertDictMatches(
+                    new String[] {"a", "c", "d"},
+                    new String[] {"5", "3", "4"},
+                    dict);
+            assertFalse(dict.containsKey("b"));
+        }
+    }
+
+    @Test(timeout=5 * SECOND)
+    public void testSelfOrganizingOrderingsSkewedLookups() {
+        for (ArrayDictionary.Ordering ordering : ArrayDictionary.Ordering.values()) {
+            IDictionary<Integer, Integer> dict = new ArrayDictionary<>(ordering);
+            int cap = 2000;
+            for (int i = 0; i < cap; i++) {
+                dict.put(i, i * 2);
+            }
+
+            for (int i = 0; i < cap; i++) {
+                int hot = cap - 1 - (i % 3);
+                assertEquals(hot * 2, (int) dict.get(hot));
+                assertEquals(i * 2, (int) dict.get(i));
+            }
+
+            for (int i = 0; i < cap; i += 2) {
+                assertEquals(i * 2, (int) dict.remove(i));
+            }
+            assertEquals(cap / 2, dict.size());
+            for (int i = 1; i < cap; i += 2) {
+                assertEquals(i * 2, (int) dict.get(i));
+            }
+        }
+    }
+
+    @Test(timeout=SECOND)
+    public void testGetOrNullAndGetOrDefault() {
+        IDictionary<String, String> dict = this.makeBasicDictionary();
+
+        assertEquals("valA", dict.getOrNull("keyA"));
+        assertEquals(null, dict.getOrNull("keyD"));
+        assertEquals("valB", dict.getOrDefault("keyB", "none"));
+        assertEquals("none", dict.getOrDefault("keyD", "none"));
+        assertEquals(3, dict.size());
+    }
+
+    @Test(timeout=SECOND)
+    public void testPutIfAbsent() {
+        IDictionary<String, String> dict = this.makeBasicDictionary();
+
+        assertEquals("valA", dict.putIfAbsent("keyA", "other"));
+        assertEquals(null, dict.putIfAbsent("keyD", "valD"));
+        this.assertDictMatches(
+                new String[] {"keyA", "keyB", "keyC", "keyD"},
+                new String[] {"valA", "valB", "valC", "valD"},
+                dict);
+    }
+
+    @Test(timeout=SECOND)
+    public void testComputeIfAbsent() {
+        IDictionary<String, Integer> dict = new ArrayDictionary<>();
+        dict.put("abc", 10);
+
+        assertEquals(10, (int) dict.computeIfAbsent("abc", String::length));
+        assertEquals(5, (int) dict.computeIfAbsent("hello", String::length));
+        this.assertDictMatches(
+                new String[] {"abc", "hello"},
+                new Integer[] {10, 5},
+                dict);
+    }
+
+    @Test(timeout=SECOND)
+    public void testComputeAndMerge() {
+        IDictionary<String, Integer> dict = new ArrayDictionary<>();
+
+        assertEquals(1, (int) dict.compute("a", (key, value) -> value == null ? 1 : value + 1));
+        assertEquals(2, (int) dict.compute("a", (key, value) -> value == null ? 1 : value + 1));
+        assertEquals(4, (int) dict.merge("b", 4, Integer::sum));
+        assertEquals(7, (int) dict.merge("b", 3, Integer::sum));
+        this.assertDictMatches(
+                new String[] {"a", "b"},
+                new Integer[] {2, 7},
+                dict);
+    }
 }
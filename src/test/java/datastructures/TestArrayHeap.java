@@ -0,0 +1,92 @@
+package datastructures;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import datastructures.concrete.ArrayHeap;
+import datastructures.interfaces.IPriorityQueue;
+import misc.BaseTest;
+import misc.exceptions.EmptyContainerException;
+
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+import java.util.Arrays;
+import java.util.Random;
+
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class TestArrayHeap extends BaseTest {
+    @Test(timeout=SECOND)
+    public void basicTestAddAndRemove() {
+        IPriorityQueue<Integer> heap = new ArrayHeap<>();
+        assertTrue(heap.isEmpty());
+        heap.add(5);
+        heap.add(3);
+        heap.add(8);
+        heap.add(3);
+        assertEquals(4, heap.size());
+        assertFalse(heap.isEmpty());
+
+        assertEquals(3, (int) heap.peekMin());
+        assertEquals(3, (int) heap.removeMin());
+        assertEquals(3, (int) heap.removeMin());
+        assertEquals(5, (int) heap.removeMin());
+        assertEquals(8, (int) heap.peekMin());
+        assertEquals(8, (int) heap.removeMin());
+        assertTrue(heap.isEmpty());
+    }
+
+    @Test(timeout=SECOND)
+    public void testEmptyAndNull() {
+        IPriorityQueue<String> heap = new ArrayHeap<>();
+        try {
+            heap.removeMin();
+            fail("Expected EmptyContainerException");
+        } catch (EmptyContainerException ex) {
+            // All ok -- expected result
+        }
+        try {
+            heap.peekMin();
+            fail("Expected EmptyContainerException");
+        } catch (EmptyContainerException ex) {
+            // All ok -- expected result
+        }
+        try {
+            heap.add(null);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException ex) {
+            // All ok -- expected result
+        }
+        assertEquals(0, heap.size());
+    }
+
+    @Test(timeout=SECOND)
+    public void testRemovesInSortedOrder() {
+        Random random = new Random(373);
+        IPriorityQueue<Integer> heap = new ArrayHeap<>();
+        int[] expected = new int[10000];
+        for (int i = 0; i < expected.length; i++) {
+            expected[i] = random.nextInt(1000);
+            heap.add(expected[i]);
+        }
+        Arrays.sort(expected);
+        for (int value : expected) {
+            assertEquals(value, (int) heap.removeMin());
+        }
+        assertTrue(heap.isEmpty());
+    }
+
+    @Test(timeout=SECOND)
+    public void testInterleaved() {
+        IPriorityQueue<Integer> heap = new ArrayHeap<>();
+        for (int i = 0; i < 1000; i++) {
+            heap.add(i + 1000);
+            heap.add(i);
+            // Everything left over from earlier rounds is at least 1000
+            assertEquals(i, (int) heap.removeMin());
+        }
+        assertEquals(1000, heap.size());
+    }
+}
@@ -0,0 +1,187 @@
+package datastructures;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import datastructures.concrete.DoubleLinkedList;
+import datastructures.concrete.dictionaries.BPlusTreeDictionary;
+import datastructures.interfaces.IList;
+import misc.BaseTest;
+import misc.exceptions.NoSuchKeyException;
+
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class TestBPlusTreeDictionary extends BaseTest {
+    // Small pages hold only a handful of pairs, so even small tests build a deep tree
+    private static final int SMALL_PAGE_SIZE = 128;
+
+    private File makeTempFile() {
+        try {
+            File file = File.createTempFile("bplustree", ".db");
+            file.deleteOnExit();
+            return file;
+        } catch (IOException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    private BPlusTreeDictionary<Long, Long> makeDictionary(File file) {
+        return new BPlusTreeDictionary<>(
+                file,
+                BPlusTreeDictionary.LONG_CODEC,
+                BPlusTreeDictionary.LONG_CODEC,
+                BPlusTreeDictionary.MIN_CACHE_PAGES,
+                SMALL_PAGE_SIZE);
+    }
+
+    @Test(timeout=SECOND)
+    public void basicTestPutGetRemove() {
+        try (BPlusTreeDictionary<Long, Long> dict = this.makeDictionary(this.makeTempFile())) {
+            dict.put(3L, 30L);
+            dict.put(1L, 10L);
+            dict.put(2L, 20L);
+            dict.put(3L, 31L);
+
+            assertEquals(3, dict.size());
+            assertEquals(10L, (long) dict.get(1L));
+            assertEquals(31L, (long) dict.get(3L));
+            assertEquals(20L, (long) dict.remove(2L));
+            assertFalse(dict.containsKey(2L));
+            assertEquals(-1L, (long) dict.getOrDefault(2L, -1L));
+
+            try {
+                dict.get(2L);
+                fail("Expected NoSuchKeyException");
+            } catch (NoSuchKeyException ex) {
+                // This is ok: do nothing
+            }
+            try {
+                dict.put(null, 1L);
+                fail("Expected IllegalArgumentException");
+            } catch (IllegalArgumentException ex) {
+                // This is ok: do nothing
+            }
+        }
+    }
+
+    @Test(timeout=10 * SECOND)
+    public void testRandomOperationsMatchExpected() {
+        int numKeys = 5000;
+        long[] expected = new long[numKeys];
+        boolean[] present = new boolean[numKeys];
+        Random rand = new Random(7);
+
+        try (BPlusTreeDictionary<Long, Long> dict = this.makeDictionary(this.makeTempFile())) {
+            for (int step = 0; step < 50000; step++) {
+                int key = rand.nextInt(numKeys);
+                if (rand.nextInt(4) == 0) {
+                    if (present[key]) {
+                        assertEquals(expected[key], (long) dict.remove((long) key));
+                        present[key] = false;
+                    } else {
+                        assertFalse(dict.containsKey((long) key));
+                    }
+                } else {
+                    dict.put((long) key, (long) step);
+                    expected[key] = step;
+                    present[key] = true;
+                }
+            }
+
+            int count = 0;
+            for (int key = 0; key < numKeys; key++) {
+                assertEquals(present[key], dict.containsKey((long) key));
+                if (present[key]) {
+                    assertEquals(expected[key], (long) dict.get((long) key));
+                    count++;
+                }
+            }
+            assertEquals(count, dict.size());
+            assertTrue(dict.getCacheMisses() > 0);
+        }
+    }
+
+    @Test(timeout=10 * SECOND)
+    public void testReopenKeepsContents() {
+        File file = this.makeTempFile();
+        int cap = 20000;
+
+        try (BPlusTreeDictionary<Long, Long> dict = this.makeDictionary(file)) {
+            for (long i = cap - 1; i >= 0; i--) {
+                dict.put(i, i * 3);
+            }
+            dict.remove(5L);
+        }
+
+        try (BPlusTreeDictionary<Long, Long> dict = this.makeDictionary(file)) {
+            assertEquals(cap - 1, dict.size());
+            assertFalse(dict.containsKey(5L));
+            for (long i = 0; i < cap; i++) {
+                if (i != 5L) {
+                    assertEquals(i * 3, (long) dict.get(i));
+                }
+            }
+        }
+
+        try {
+            new BPlusTreeDictionary<>(file, BPlusTreeDictionary.stringCodec(4),
+                    BPlusTreeDictionary.LONG_CODEC, BPlusTreeDictionary.MIN_CACHE_PAGES);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException ex) {
+            // This is ok: do nothing
+        }
+    }
+
+    @Test(timeout=5 * SECOND)
+    public void testForEachVisitsRangeInOrder() {
+        try (BPlusTreeDictionary<Long, Long> dict = this.makeDictionary(this.makeTempFile())) {
+            for (long i = 0; i < 1000; i += 2) {
+                dict.put(i, -i);
+            }
+
+            IList<Long> keys = new DoubleLinkedList<>();
+            dict.forEach(101L, 301L, (key, value) -> {
+                assertEquals(-key, (long) value);
+                keys.add(key);
+            });
+
+            assertEquals(100, keys.size());
+            long expected = 102L;
+            for (long key : keys) {
+                assertEquals(expected, key);
+                expected += 2;
+            }
+        }
+    }
+
+    @Test(timeout=SECOND)
+    public void testStringKeys() {
+        try (BPlusTreeDictionary<String, Double> dict = new BPlusTreeDictionary<>(
+                this.makeTempFile(),
+                BPlusTreeDictionary.stringCodec(8),
+                BPlusTreeDictionary.DOUBLE_CODEC,
+                BPlusTreeDictionary.MIN_CACHE_PAGES)) {
+            dict.put("x", 1.5);
+            dict.put("step", 0.25);
+            dict.put("", 3.0);
+
+            assertEquals(1.5, dict.get("x"));
+            assertEquals(0.25, dict.get("step"));
+            assertEquals(3.0, dict.get(""));
+            try {
+                dict.put("muchTooLong", 1.0);
+                fail("Expected IllegalArgumentException");
+            } catch (IllegalArgumentException ex) {
+                // This is ok: do nothing
+            }
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package datastructures;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import datastructures.concrete.dictionaries.ChainedHashDictionary;
+import datastructures.interfaces.IDictionary;
+import misc.BaseTest;
+import misc.exceptions.NoSuchKeyException;
+
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+import java.util.Random;
+
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class TestChainedHashDictionary extends BaseTest {
+    @Test(timeout=SECOND)
+    public void basicTestPutGetRemove() {
+        for (boolean incremental : new boolean[] {false, true}) {
+            IDictionary<String, String> dict = new ChainedHashDictionary<>(incremental);
+            dict.put("a", "1");
+            dict.put("b", "2");
+            dict.put(null, "3");
+            dict.put("c", null);
+            dict.put("a", "4");
+
+            assertEquals(4, dict.size());
+            assertEquals("4", dict.get("a"));
+            assertEquals("3", dict.get(null));
+            assertEquals(null, dict.get("c"));
+            assertEquals(null, dict.remove("c"));
+            assertEquals("2", dict.remove("b"));
+            assertFalse(dict.containsKey("b"));
+            assertFalse(dict.containsKey("c"));
+            assertEquals(2, dict.size());
+
+            try {
+                dict.remove("b");
+                fail("Expected NoSuchKeyException");
+            } catch (NoSuchKeyException ex) {
+                // This is ok: do nothing
+            }
+        }
+    }
+
+    @Test(timeout=SECOND)
+    public void testIncrementalResizeKeepsEveryKeyVisible() {
+        ChainedHashDictionary<Integer, Integer> dict = new ChainedHashDictionary<>(true);
+        boolean sawRehash = false;
+
+        for (int i = 0; i < 5000; i++) {
+            dict.put(i, i * 2);
+            sawRehash |= dict.isRehashing();
+            // Check a key that may still sit in the old bucket array
+            assertEquals((i / 2) * 2, (int) dict.get(i / 2));
+        }
+        assertTrue(sawRehash);
+        for (int i = 0; i < 5000; i++) {
+            assertEquals(i * 2, (int) dict.get(i));
+        }
+        assertEquals(5000, dict.size());
+    }
+
+    @Test(timeout=5 * SECOND)
+    public void testPutAndGetMany() {
+        for (boolean incremental : new boolean[] {false, true}) {
+            IDictionary<Integer, Integer> dict = new ChainedHashDictionary<>(incremental);
+            int cap = 300000;
+
+            for (int i = 0; i < cap; i++) {
+                dict.put(i, i * 2);
+            }
+            for (int i = cap - 1; i >= 0; i--) {
+                assertEquals(i * 2, (int) dict.get(i));
+            }
+            assertEquals(cap, dict.size());
+        }
+    }
+
+    @Test(timeout=5 * SECOND)
+    public void testRandomOperations() {
+        for (boolean incremental : new boolean[] {false, true}) {
+            IDictionary<Wrapper<Integer>, Integer> dict = new ChainedHashDictionary<>(incremental);
+            int numKeys = 20000;
+            int[] expected = new int[numKeys];
+            boolean[] present = new boolean[numKeys];
+            Random rand = new Random(42);
+
+            for (int step = 0; step < 200000; step++) {
+                int key = rand.nextInt(numKeys);
+                Wrapper<Integer> wrapped = new Wrapper<>(key, key % 1000);
+                if (rand.nextInt(4) == 0) {
+                    if (present[key]) {
+                        assertEquals(expected[key], (int) dict.remove(wrapped));
+                        present[key] = false;
+                    } else {
+                        assertFalse(dict.containsKey(wrapped));
+                    }
+                } else {
+                    dict.put(wrapped, step);
+                    expected[key] = step;
+                    present[key] = true;
+                }
+            }
+
+            int count = 0;
+            for (int key = 0; key < numKeys; key++) {
+                Wrapper<Integer> wrapped = new Wrapper<>(key, key % 1000);
+                assertEquals(present[key], dict.containsKey(wrapped));
+                if (present[key]) {
+                    assertEquals(expected[key], (int) dict.get(wrapped));
+                    count++;
+                }
+            }
+            assertEquals(count, dict.size());
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package datastructures;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import datastructures.concrete.dictionaries.EytzingerDictionary;
+import misc.BaseTest;
+import misc.exceptions.NoSuchKeyException;
+
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+import java.util.Random;
+
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class TestEytzingerDictionary extends BaseTest {
+    private EytzingerDictionary<String, Integer> makeBasicDictionary() {
+        String[] keys = {"keyD", "keyA", "keyC", "keyB", "keyE"};
+        Integer[] values = {4, 1, 3, 2, 5};
+        return new EytzingerDictionary<>(keys, values);
+    }
+
+    @Test(timeout=SECOND)
+    public void basicTestConstructor() {
+        EytzingerDictionary<String, Integer> dict = this.makeBasicDictionary();
+        assertEquals(5, dict.size());
+        assertEquals(1, (int) dict.get("keyA"));
+        assertEquals(2, (int) dict.get("keyB"));
+        assertEquals(3, (int) dict.get("keyC"));
+        assertEquals(4, (int) dict.get("keyD"));
+        assertEquals(5, (int) dict.get("keyE"));
+    }
+
+    @Test(timeout=SECOND)
+    public void testMissingKeys() {
+        EytzingerDictionary<String, Integer> dict = this.makeBasicDictionary();
+        // Smaller than, between, and larger than the existing keys
+        assertFalse(dict.containsKey("a"));
+        assertFalse(dict.containsKey("keyBB"));
+        assertFalse(dict.containsKey("z"));
+        assertFalse(dict.containsKey(null));
+        assertEquals(-1, (int) dict.getOrDefault("keyBB", -1));
+
+        try {
+            dict.get("keyF");
+            fail("Expected NoSuchKeyException");
+        } catch (NoSuchKeyException ex) {
+            // All ok -- expected result
+        }
+    }
+
+    @Test(timeout=SECOND)
+    public void testEmptyDictionary() {
+        EytzingerDictionary<Integer, Integer> dict = new EytzingerDictionary<>(new Integer[0], new Integer[0]);
+        assertEquals(0, dict.size());
+        assertFalse(dict.containsKey(3));
+        assertEquals(null, dict.getOrNull(3));
+    }
+
+    @Test(timeout=SECOND)
+    public void testPutReplacesOnly() {
+        EytzingerDictionary<String, Integer> dict = this.makeBasicDictionary();
+        dict.put("keyC", 30);
+        assertEquals(30, (int) dict.get("keyC"));
+        assertEquals(5, dict.size());
+
+        try {
+            dict.put("keyF", 6);
+            fail("Expected UnsupportedOperationException");
+        } catch (UnsupportedOperationException ex) {
+            // All ok -- expected result
+        }
+        try {
+            dict.remove("keyA");
+            fail("Expected UnsupportedOperationException");
+        } catch (UnsupportedOperationException ex) {
+            // All ok -- expected result
+        }
+        assertEquals(5, dict.size());
+    }
+
+    @Test(timeout=SECOND)
+    public void testBadInput() {
+        try {
+            new EytzingerDictionary<>(new Integer[] {1, 2, 1}, new Integer[] {1, 2, 3});
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException ex) {
+            // All ok -- expected result
+        }
+        try {
+            new EytzingerDictionary<>(new Integer[] {1, null}, new Integer[] {1, 2});
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException ex) {
+            // All ok -- expected result
+        }
+        try {
+            new EytzingerDictionary<>(new Integer[] {1, 2}, new Integer[] {1});
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException ex) {
+            // All ok -- expected result
+        }
+    }
+
+    @Test(timeout=SECOND)
+    public void testManySizes() {
+        // Every size up to 100 exercises complete, nearly complete and lopsided trees
+        Random rand = new Random(12);
+        for (int size = 0; size <= 100; size++) {
+            Integer[] keys = new Integer[size];
+            Integer[] values = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                keys[i] = 2 * i;
+                values[i] = -i;
+            }
+            for (int i = size - 1; i > 0; i--) {
+                int other = rand.nextInt(i + 1);
+                Integer temp = keys[i];
+                keys[i] = keys[other];
+                keys[other] = temp;
+                temp = values[i];
+                values[i] = values[other];
+                values[other] = temp;
+            }
+
+            EytzingerDictionary<Integer, Integer> dict = new EytzingerDictionary<>(keys, values);
+            assertEquals(size, dict.size());
+            for (int key = -1; key <= 2 * size; key++) {
+                if (key >= 0 && key % 2 == 0 && key < 2 * size) {
+                    assertTrue(dict.containsKey(key));
+                    assertEquals(-key / 2, (int) dict.get(key));
+                } else {
+                    assertFalse(dict.containsKey(key));
+                }
+            }
+        }
+    }
+}
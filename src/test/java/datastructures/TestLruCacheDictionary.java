@@ -0,0 +1,141 @@
+package datastructures;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import datastructures.concrete.dictionaries.LruCacheDictionary;
+import misc.BaseTest;
+import misc.exceptions.NoSuchKeyException;
+
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class TestLruCacheDictionary extends BaseTest {
+    private LruCacheDictionary<String, Integer> makeBasicCache() {
+        LruCacheDictionary<String, Integer> cache = new LruCacheDictionary<>(3);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.put("c", 3);
+        return cache;
+    }
+
+    @Test(timeout=SECOND)
+    public void basicTestPutAndGet() {
+        LruCacheDictionary<String, Integer> cache = this.makeBasicCache();
+        assertEquals(3, cache.size());
+        assertEquals(1, (int) cache.get("a"));
+        assertEquals(2, (int) cache.get("b"));
+        assertEquals(3, (int) cache.get("c"));
+
+        cache.put("b", 20);
+        assertEquals(3, cache.size());
+        assertEquals(20, (int) cache.get("b"));
+    }
+
+    @Test(timeout=SECOND)
+    public void testEvictsLeastRecentlyUsed() {
+        LruCacheDictionary<String, Integer> cache = this.makeBasicCache();
+
+        // 'a' becomes the most recently used key, so 'b' is now the oldest
+        cache.get("a");
+        cache.put("d", 4);
+
+        assertFalse(cache.containsKey("b"));
+        assertTrue(cache.containsKey("a"));
+        assertTrue(cache.containsKey("c"));
+        assertTrue(cache.containsKey("d"));
+        assertEquals(3, cache.size());
+        assertEquals(1L, cache.getEvictions());
+
+        // containsKey does not count as a use, so 'c' is evicted next
+        cache.containsKey("c");
+        cache.put("e", 5);
+        assertFalse(cache.containsKey("c"));
+        assertEquals(2L, cache.getEvictions());
+    }
+
+    @Test(timeout=SECOND)
+    public void testHitAndMissCounters() {
+        LruCacheDictionary<String, Integer> cache = this.makeBasicCache();
+
+        cache.get("a");
+        cache.getOrDefault("b", -1);
+        assertEquals(-1, (int) cache.getOrDefault("z", -1));
+        try {
+            cache.get("y");
+            fail("Expected NoSuchKeyException");
+        } catch (NoSuchKeyException ex) {
+            // This is ok: do nothing
+        }
+        assertEquals(6, (int) cache.computeIfAbsent("abcdef", String::length));
+        assertEquals(6, (int) cache.computeIfAbsent("abcdef", key -> -1));
+
+        assertEquals(3L, cache.getHits());
+        assertEquals(3L, cache.getMisses());
+    }
+
+    @Test(timeout=SECOND)
+    public void testRemoveAndErrorHandling() {
+        LruCacheDictionary<String, Integer> cache = this.makeBasicCache();
+
+        assertEquals(2, (int) cache.remove("b"));
+        assertEquals(2, cache.size());
+        assertFalse(cache.containsKey("b"));
+
+        try {
+            cache.remove("b");
+            fail("Expected NoSuchKeyException");
+        } catch (NoSuchKeyException ex) {
+            // This is ok: do nothing
+        }
+
+        cache.put(null, 0);
+        assertEquals(0, (int) cache.get(null));
+        assertEquals(3, cache.size());
+        assertEquals(0L, cache.getEvictions());
+
+        try {
+            new LruCacheDictionary<String, Integer>(0);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException ex) {
+            // This is ok: do nothing
+        }
+    }
+
+    @Test(timeout=SECOND)
+    public void testHugeCapacity() {
+        LruCacheDictionary<String, Integer> cache = new LruCacheDictionary<>(Integer.MAX_VALUE);
+        for (int i = 0; i < 100; i++) {
+            cache.put("key" + i, i);
+        }
+        assertEquals(100, cache.size());
+        assertEquals(0L, cache.getEvictions());
+        assertEquals(42, (int) cache.get("key42"));
+
+        cache = new LruCacheDictionary<>(1 << 30);
+        cache.put("a", 1);
+        assertEquals(1, (int) cache.get("a"));
+    }
+
+    @Test(timeout=5 * SECOND)
+    public void testManyOperationsStayBounded() {
+        int capacity = 1000;
+        LruCacheDictionary<Integer, Integer> cache = new LruCacheDictionary<>(capacity);
+        int cap = 500000;
+
+        for (int i = 0; i < cap; i++) {
+            cache.put(i, i * 2);
+            assertEquals(i * 2, (int) cache.get(i));
+        }
+
+        assertEquals(capacity, cache.size());
+        assertEquals((long) (cap - capacity), cache.getEvictions());
+        for (int i = cap - capacity; i < cap; i++) {
+            assertEquals(i * 2, (int) cache.get(i));
+        }
+        assertFalse(cache.containsKey(cap - capacity - 1));
+    }
+}
@@ -0,0 +1,143 @@
+package datastructures;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import datastructures.concrete.dictionaries.TrieDictionary;
+import datastructures.interfaces.IList;
+import misc.BaseTest;
+import misc.exceptions.NoSuchKeyException;
+
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class TestTrieDictionary extends BaseTest {
+    private TrieDictionary<Integer> makeBasicDictionary() {
+        TrieDictionary<Integer> dict = new TrieDictionary<>();
+        dict.put("x", 1);
+        dict.put("x2", 2);
+        dict.put("xMax", 3);
+        dict.put("step", 4);
+        dict.put("_tmp", 5);
+        return dict;
+    }
+
+    private void assertListMatches(String[] expected, IList<String> actual) {
+        assertEquals(expected.length, actual.size());
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], actual.get(i));
+        }
+    }
+
+    @Test(timeout=SECOND)
+    public void basicTestPutAndGet() {
+        TrieDictionary<Integer> dict = this.makeBasicDictionary();
+        assertEquals(5, dict.size());
+        assertEquals(1, (int) dict.get("x"));
+        assertEquals(2, (int) dict.get("x2"));
+        assertEquals(3, (int) dict.get("xMax"));
+        assertEquals(4, (int) dict.get("step"));
+        assertEquals(5, (int) dict.get("_tmp"));
+
+        dict.put("x", 10);
+        assertEquals(5, dict.size());
+        assertEquals(10, (int) dict.get("x"));
+    }
+
+    @Test(timeout=SECOND)
+    public void testMissingKeys() {
+        TrieDictionary<Integer> dict = this.makeBasicDictionary();
+
+        assertFalse(dict.containsKey("xM"));
+        assertFalse(dict.containsKey("steps"));
+        assertFalse(dict.containsKey("y"));
+        assertFalse(dict.containsKey("a b"));
+        assertFalse(dict.containsKey(""));
+        assertFalse(dict.containsKey(null));
+        assertEquals(-1, (int) dict.getOrDefault("xMa", -1));
+
+        try {
+            dict.get("xMa");
+            fail("Expected NoSuchKeyException");
+        } catch (NoSuchKeyException ex) {
+            // This is ok: do nothing
+        }
+    }
+
+    @Test(timeout=SECOND)
+    public void testPutRejectsInvalidIdentifiers() {
+        TrieDictionary<Integer> dict = new TrieDictionary<>();
+        String[] invalid = {"", "2x", "a-b", "x y", "\u00e9", null};
+        for (String key : invalid) {
+            try {
+                dict.put(key, 1);
+                fail("Expected IllegalArgumentException for " + key);
+            } catch (IllegalArgumentException ex) {
+                // This is ok: do nothing
+            }
+        }
+        assertTrue(dict.isEmpty());
+    }
+
+    @Test(timeout=SECOND)
+    public void testRemove() {
+        TrieDictionary<Integer> dict = this.makeBasicDictionary();
+
+        assertEquals(1, (int) dict.remove("x"));
+        assertFalse(dict.containsKey("x"));
+        assertEquals(2, (int) dict.get("x2"));
+        assertEquals(3, (int) dict.get("xMax"));
+
+        assertEquals(3, (int) dict.remove("xMax"));
+        assertEquals(2, (int) dict.remove("x2"));
+        assertEquals(2, dict.size());
+        this.assertListMatches(new String[] {}, dict.keysWithPrefix("x"));
+
+        try {
+            dict.remove("x");
+            fail("Expected NoSuchKeyException");
+        } catch (NoSuchKeyException ex) {
+            // This is ok: do nothing
+        }
+    }
+
+    @Test(timeout=SECOND)
+    public void testKeysWithPrefix() {
+        TrieDictionary<Integer> dict = this.makeBasicDictionary();
+
+        this.assertListMatches(new String[] {"x", "x2", "xMax"}, dict.keysWithPrefix("x"));
+        this.assertListMatches(new String[] {"xMax"}, dict.keysWithPrefix("xM"));
+        this.assertListMatches(new String[] {"step"}, dict.keysWithPrefix("step"));
+        this.assertListMatches(new String[] {}, dict.keysWithPrefix("steps"));
+        this.assertListMatches(new String[] {}, dict.keysWithPrefix("?"));
+        this.assertListMatches(
+                new String[] {"_tmp", "step", "x", "x2", "xMax"},
+                dict.keysWithPrefix(""));
+    }
+
+    @Test(timeout=5 * SECOND)
+    public void testPutAndGetMany() {
+        TrieDictionary<Integer> dict = new TrieDictionary<>();
+        int cap = 100000;
+
+        for (int i = 0; i < cap; i++) {
+            dict.put("v" + i, i);
+        }
+        assertEquals(cap, dict.size());
+        for (int i = 0; i < cap; i++) {
+            assertEquals(i, (int) dict.get("v" + i));
+        }
+        assertEquals(11, dict.keysWithPrefix("v9999").size());
+
+        for (int i = 0; i < cap; i += 2) {
+            assertEquals(i, (int) dict.remove("v" + i));
+        }
+        assertEquals(cap / 2, dict.size());
+        for (int i = 1; i < cap; i += 2) {
+            assertTrue(dict.containsKey("v" + i));
+        }
+    }
+}